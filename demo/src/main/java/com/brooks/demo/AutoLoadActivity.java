@@ -7,6 +7,7 @@ import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.Toolbar;
 
 import com.brooks.demo.dummy.DummyContent;
+import com.brooks.loadmorerecyclerview.AdaptivePrefetchPolicy;
 import com.brooks.loadmorerecyclerview.LoadMoreRecyclerView;
 public class AutoLoadActivity extends AppCompatActivity{
 
@@ -37,12 +38,19 @@ public class AutoLoadActivity extends AppCompatActivity{
         recyclerView.setAdapter(myItemRecyclerViewAdapter);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
         recyclerView.setLoadMoreEnable(DummyContent.hasMore(page));
+        //根据滑动速度和加载耗时自适应预加载
+        recyclerView.setPrefetchPolicy(new AdaptivePrefetchPolicy());
         recyclerView.setLoadMoreListener(new LoadMoreRecyclerView.LoadMoreListener(){
             @Override
             public void onLoadMore(){
+                //记录本次加载的代数，下拉刷新之后返回的旧数据直接丢弃
+                final int generation=recyclerView.getLoadGeneration();
                 recyclerView.postDelayed(new Runnable(){
                     @Override
                     public void run(){
+                        if(!recyclerView.isCurrentLoadGeneration(generation)){
+                            return;
+                        }
                         swipeRefreshLayout.setRefreshing(false);
                         myItemRecyclerViewAdapter.addDatas(DummyContent.generateData(++page));
                         recyclerView.notifyMoreFinish(DummyContent.hasMore(page));
@@ -63,7 +71,6 @@ public class AutoLoadActivity extends AppCompatActivity{
                 myItemRecyclerViewAdapter=new MyItemRecyclerViewAdapter(DummyContent.generateData(page));
                 recyclerView.setAdapter(myItemRecyclerViewAdapter);
                 recyclerView.setLoadMoreEnable(DummyContent.hasMore(page));
-                recyclerView.setLoadingMore(false);
                 myItemRecyclerViewAdapter.notifyDataSetChanged();
                 swipeRefreshLayout.setRefreshing(false);
             }
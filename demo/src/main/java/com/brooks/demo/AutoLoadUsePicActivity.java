@@ -42,9 +42,14 @@ public class AutoLoadUsePicActivity extends AppCompatActivity{
         recyclerView.setLoadMoreListener(new LoadMoreRecyclerView.LoadMoreListener(){
             @Override
             public void onLoadMore(){
+                //记录本次加载的代数，下拉刷新之后返回的旧数据直接丢弃
+                final int generation=recyclerView.getLoadGeneration();
                 recyclerView.postDelayed(new Runnable(){
                     @Override
                     public void run(){
+                        if(!recyclerView.isCurrentLoadGeneration(generation)){
+                            return;
+                        }
                         swipeRefreshLayout.setRefreshing(false);
                         myItemRecyclerViewAdapter.addDatas(DummyContent.generateData(++page));
                         recyclerView.notifyMoreFinish(DummyContent.hasMore(page));
@@ -67,7 +72,6 @@ public class AutoLoadUsePicActivity extends AppCompatActivity{
                 //声明使用图片动画加载
                 recyclerView.setUsePictureAnim(true);
                 recyclerView.setLoadMoreEnable(DummyContent.hasMore(page));
-                recyclerView.setLoadingMore(false);
                 myItemRecyclerViewAdapter.notifyDataSetChanged();
                 swipeRefreshLayout.setRefreshing(false);
             }
@@ -44,9 +44,13 @@ public class McAutoLoadActivity extends AppCompatActivity {
                 if (item != null) {
                     Toast.makeText(McAutoLoadActivity.this, "" + item.content, Toast.LENGTH_SHORT).show();
                 }
+                final int generation = recyclerView.getLoadGeneration();
                 recyclerView.postDelayed(new Runnable() {
                     @Override
                     public void run() {
+                        if (!recyclerView.isCurrentLoadGeneration(generation)) {
+                            return;
+                        }
                         myItemRecyclerViewAdapter.addDatas(DummyContent.generateData(++page));
                         recyclerView.notifyMoreFinish(DummyContent.hasMore(page));
                     }
@@ -6,21 +6,23 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import com.brooks.demo.dummy.DummyContent;
+import com.brooks.loadmorerecyclerview.PagedList;
 
 import java.util.List;
 /**
  * TODO: Replace the implementation with code for your data type.
  */
 public class MyItemRecyclerViewAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>{
-    private List<DummyContent.DummyItem> mValues;
+    private final PagedList<DummyContent.DummyItem> mValues=new PagedList<DummyContent.DummyItem>();
     public MyItemRecyclerViewAdapter(List<DummyContent.DummyItem> items){
-        mValues=items;
+        mValues.addPage(items);
     }
     public void setData(List<DummyContent.DummyItem> datas){
-        mValues=datas;
+        mValues.clear();
+        mValues.addPage(datas);
     }
     public void addDatas(List<DummyContent.DummyItem> datas){
-        mValues.addAll(datas);
+        mValues.addPage(datas);
     }
 
     public DummyContent.DummyItem getItemData(int position) {
@@ -0,0 +1,312 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseArray;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按item类型统计创建和绑定holder的耗时、RecycledViewPool的命中次数，并在加载更多期间用Choreographer统计每一帧的耗时，
+ * 掉帧时把这一帧中创建和绑定的耗时记到对应的item类型上，用来找出是哪种item导致了卡顿
+ * <p>
+ * 通过LoadMoreRecyclerView.setAdapterProfiler或McLoadMoreRecyclerView.setAdapterProfiler打开，不设置时没有任何开销；
+ * 打开后每种item类型第一次出现时分配一次统计对象，之后记录时不再分配内存。只能在主线程中使用。
+ */
+public class AdapterProfiler implements Choreographer.FrameCallback {
+
+    /**
+     * 默认的掉帧阈值，超过1.5帧（60fps）即认为掉帧，单位ns
+     */
+    private static final long DEFAULT_JANK_THRESHOLD = 25000000L;
+
+    private final SparseArray<TypeStats> mTypeStats = new SparseArray<TypeStats>();
+
+    /**
+     * 加载期间每一帧的耗时，单位us
+     */
+    private final LatencyHistogram mFrameTime = new LatencyHistogram();
+
+    private long mJankThreshold = DEFAULT_JANK_THRESHOLD;
+
+    private int mJankFrameCount;
+
+    /**
+     * 正在统计帧耗时的列表数量，多个列表共用时都停止后才移除帧回调
+     */
+    private int mFrameMonitorCount;
+
+    /**
+     * 上一帧的时间，-1表示还没有收到第一帧
+     */
+    private long mLastFrameTime = -1;
+
+    /**
+     * 设置掉帧的阈值
+     * @param thresholdMs 两帧之间超过这个时间认为掉帧，单位ms，默认为25
+     */
+    public void setJankThreshold(float thresholdMs) {
+        mJankThreshold = (long) (thresholdMs * 1000000);
+    }
+
+    /**
+     * 记录一次创建holder
+     * @param nanos 耗时，单位ns
+     */
+    void recordCreate(int viewType, long nanos) {
+        TypeStats stats = getTypeStats(viewType);
+        stats.mCreateTime.record(nanos / 1000);
+        stats.mFrameNanos += nanos;
+        // 新建的holder一定是pool中没有可用的holder
+        stats.mPoolMissCount++;
+    }
+
+    /**
+     * 记录一次绑定holder
+     * @param nanos 耗时，单位ns
+     */
+    void recordBind(RecyclerView.ViewHolder holder, long nanos) {
+        TypeStats stats = getTypeStats(holder.getItemViewType());
+        stats.mBindTime.record(nanos / 1000);
+        stats.mFrameNanos += nanos;
+        if (holder.itemView.getTag(R.id.loadmore_recycler_pooled) != null) {
+            holder.itemView.setTag(R.id.loadmore_recycler_pooled, null);
+            stats.mPoolHitCount++;
+        }
+    }
+
+    /**
+     * holder被放入RecycledViewPool，下一次绑定时记为一次命中
+     */
+    void onViewRecycled(RecyclerView.ViewHolder holder) {
+        holder.itemView.setTag(R.id.loadmore_recycler_pooled, Boolean.TRUE);
+    }
+
+    /**
+     * 开始统计帧耗时，和{@link #stopFrameMonitor()}成对调用
+     */
+    void startFrameMonitor() {
+        if (mFrameMonitorCount++ == 0) {
+            mLastFrameTime = -1;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /**
+     * 停止统计帧耗时
+     */
+    void stopFrameMonitor() {
+        if (mFrameMonitorCount > 0 && --mFrameMonitorCount == 0) {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (mFrameMonitorCount == 0) {
+            return;
+        }
+        if (mLastFrameTime >= 0) {
+            long frameNanos = frameTimeNanos - mLastFrameTime;
+            mFrameTime.record(frameNanos / 1000);
+            boolean jank = frameNanos > mJankThreshold;
+            if (jank) {
+                mJankFrameCount++;
+            }
+            // 上一帧的创建和绑定都在两次doFrame之间完成
+            for (int i = 0; i < mTypeStats.size(); i++) {
+                TypeStats stats = mTypeStats.valueAt(i);
+                if (jank && stats.mFrameNanos > 0) {
+                    stats.mJankFrameCount++;
+                    stats.mJankNanos += stats.mFrameNanos;
+                }
+                stats.mFrameNanos = 0;
+            }
+        } else {
+            for (int i = 0; i < mTypeStats.size(); i++) {
+                mTypeStats.valueAt(i).mFrameNanos = 0;
+            }
+        }
+        mLastFrameTime = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * 复制当前的统计数据，可以在任何时候调用，之后的记录不影响返回的快照
+     */
+    public Snapshot snapshot() {
+        List<TypeSnapshot> types = new ArrayList<TypeSnapshot>(mTypeStats.size());
+        for (int i = 0; i < mTypeStats.size(); i++) {
+            types.add(new TypeSnapshot(mTypeStats.keyAt(i), mTypeStats.valueAt(i)));
+        }
+        return new Snapshot(types, mFrameTime.getCount(), mJankFrameCount, mFrameTime.getMax(),
+                mFrameTime.getPercentile(95));
+    }
+
+    /**
+     * 清空所有统计
+     */
+    public void reset() {
+        mTypeStats.clear();
+        mFrameTime.reset();
+        mJankFrameCount = 0;
+        mLastFrameTime = -1;
+    }
+
+    private TypeStats getTypeStats(int viewType) {
+        TypeStats stats = mTypeStats.get(viewType);
+        if (stats == null) {
+            stats = new TypeStats();
+            mTypeStats.put(viewType, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * 某种item类型的统计
+     */
+    private static class TypeStats {
+
+        /**
+         * 创建耗时，单位us
+         */
+        private final LatencyHistogram mCreateTime = new LatencyHistogram();
+
+        /**
+         * 绑定耗时，单位us
+         */
+        private final LatencyHistogram mBindTime = new LatencyHistogram();
+
+        private int mPoolHitCount;
+
+        private int mPoolMissCount;
+
+        /**
+         * 当前这一帧中创建和绑定的总耗时，单位ns
+         */
+        private long mFrameNanos;
+
+        /**
+         * 创建或绑定过这种item的掉帧次数
+         */
+        private int mJankFrameCount;
+
+        /**
+         * 掉帧的那些帧中创建和绑定这种item的总耗时，单位ns
+         */
+        private long mJankNanos;
+    }
+
+    /**
+     * 统计数据的快照
+     */
+    public static class Snapshot {
+
+        /**
+         * 每种item类型的统计
+         */
+        public final List<TypeSnapshot> types;
+
+        /**
+         * 加载期间统计到的帧数
+         */
+        public final long frameCount;
+
+        /**
+         * 加载期间的掉帧次数
+         */
+        public final int jankFrameCount;
+
+        /**
+         * 加载期间最长的一帧，单位us
+         */
+        public final long maxFrameMicros;
+
+        /**
+         * 加载期间帧耗时的P95，单位us
+         */
+        public final long p95FrameMicros;
+
+        Snapshot(List<TypeSnapshot> types, long frameCount, int jankFrameCount, long maxFrameMicros,
+                 long p95FrameMicros) {
+            this.types = types;
+            this.frameCount = frameCount;
+            this.jankFrameCount = jankFrameCount;
+            this.maxFrameMicros = maxFrameMicros;
+            this.p95FrameMicros = p95FrameMicros;
+        }
+
+        /**
+         * 某种item类型的统计，没有记录过时返回null
+         */
+        public TypeSnapshot getType(int viewType) {
+            for (int i = 0; i < types.size(); i++) {
+                if (types.get(i).viewType == viewType) {
+                    return types.get(i);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 某种item类型的统计快照，耗时单位都是us
+     */
+    public static class TypeSnapshot {
+
+        public final int viewType;
+
+        public final long createCount;
+
+        public final long totalCreateMicros;
+
+        public final long maxCreateMicros;
+
+        public final long p95CreateMicros;
+
+        public final long bindCount;
+
+        public final long totalBindMicros;
+
+        public final long maxBindMicros;
+
+        public final long p95BindMicros;
+
+        /**
+         * 绑定的holder来自RecycledViewPool的次数
+         */
+        public final int poolHitCount;
+
+        /**
+         * pool中没有可用的holder而新建的次数
+         */
+        public final int poolMissCount;
+
+        /**
+         * 创建或绑定过这种item的掉帧次数
+         */
+        public final int jankFrameCount;
+
+        /**
+         * 掉帧的那些帧中创建和绑定这种item的总耗时
+         */
+        public final long jankMicros;
+
+        TypeSnapshot(int viewType, TypeStats stats) {
+            this.viewType = viewType;
+            createCount = stats.mCreateTime.getCount();
+            totalCreateMicros = stats.mCreateTime.getSum();
+            maxCreateMicros = stats.mCreateTime.getMax();
+            p95CreateMicros = stats.mCreateTime.getPercentile(95);
+            bindCount = stats.mBindTime.getCount();
+            totalBindMicros = stats.mBindTime.getSum();
+            maxBindMicros = stats.mBindTime.getMax();
+            p95BindMicros = stats.mBindTime.getPercentile(95);
+            poolHitCount = stats.mPoolHitCount;
+            poolMissCount = stats.mPoolMissCount;
+            jankFrameCount = stats.mJankFrameCount;
+            jankMicros = stats.mJankNanos / 1000;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.brooks.loadmorerecyclerview;
+
+/**
+ * 自适应的预加载策略
+ * <p>
+ * 根据onScrolled的dy估算当前滑动速度，再结合最近几次onLoadMore到notifyMoreFinish的耗时，
+ * 计算出"在下一页数据返回之前还会滑过多少像素"，以此作为预加载距离。
+ * 快速fling时提前加载，慢慢阅读时只在接近底部时才加载，避免加载用户根本不会看到的页。
+ */
+public class AdaptivePrefetchPolicy {
+
+    /**
+     * 没有任何加载耗时数据时假定的耗时，单位ms
+     */
+    private static final long DEFAULT_LATENCY = 1000;
+
+    /**
+     * 两次onScrolled的间隔超过该值时认为之前的速度已经失效，单位ms
+     */
+    private static final long SCROLL_SAMPLE_TIMEOUT = 100;
+
+    /**
+     * 滑动速度的平滑系数，越大越灵敏
+     */
+    private static final float VELOCITY_SMOOTHING = 0.3f;
+
+    /**
+     * 加载耗时的平滑系数
+     */
+    private static final float LATENCY_SMOOTHING = 0.25f;
+
+    /**
+     * 安全系数，预留出比估算值更多的距离
+     */
+    private float mSafetyFactor = 1.5f;
+
+    /**
+     * 最小预加载距离，单位px
+     */
+    private int mMinDistance;
+
+    /**
+     * 最大预加载距离，单位px，0表示由调用方决定
+     */
+    private int mMaxDistance;
+
+    /**
+     * 平滑后的滑动速度，单位px/ms
+     */
+    private float mVelocity;
+
+    /**
+     * 上一次onScrolled的时间
+     */
+    private long mLastScrollTime = -1;
+
+    /**
+     * 平滑后的加载耗时，单位ms
+     */
+    private float mLatency = DEFAULT_LATENCY;
+
+    /**
+     * 是否已经有过真实的加载耗时数据
+     */
+    private boolean mHasLatencySample;
+
+    /**
+     * 本次加载开始的时间，-1表示当前没有在加载
+     */
+    private long mLoadStartTime = -1;
+
+    /**
+     * 设置最小预加载距离
+     * @param minDistance 单位px
+     */
+    public void setMinDistance(int minDistance) {
+        mMinDistance = Math.max(0, minDistance);
+    }
+
+    /**
+     * 设置最大预加载距离，防止网络很慢时一次性预加载过多
+     * @param maxDistance 单位px，0表示由LoadMoreRecyclerView按屏幕高度决定
+     */
+    public void setMaxDistance(int maxDistance) {
+        mMaxDistance = Math.max(0, maxDistance);
+    }
+
+    /**
+     * 设置安全系数
+     * @param safetyFactor 必须大于0，默认为1.5
+     */
+    public void setSafetyFactor(float safetyFactor) {
+        if (safetyFactor <= 0) {
+            throw new IllegalArgumentException("safetyFactor must be positive");
+        }
+        mSafetyFactor = safetyFactor;
+    }
+
+    /**
+     * 记录一次滑动
+     * @param dy 本次滑动的距离
+     * @param now 当前时间，单位ms
+     */
+    public void onScrolled(int dy, long now) {
+        if (mLastScrollTime >= 0) {
+            long interval = now - mLastScrollTime;
+            if (interval > SCROLL_SAMPLE_TIMEOUT) {
+                mVelocity = 0;
+            } else if (interval > 0) {
+                float velocity = (float) dy / interval;
+                mVelocity += VELOCITY_SMOOTHING * (velocity - mVelocity);
+            }
+        }
+        mLastScrollTime = now;
+    }
+
+    /**
+     * 滑动停止，速度清零
+     */
+    public void onScrollIdle() {
+        mVelocity = 0;
+        mLastScrollTime = -1;
+    }
+
+    /**
+     * 开始加载更多
+     * @param now 当前时间，单位ms
+     */
+    public void onLoadStarted(long now) {
+        mLoadStartTime = now;
+    }
+
+    /**
+     * 加载更多完成，记录本次耗时
+     * @param now 当前时间，单位ms
+     */
+    public void onLoadFinished(long now) {
+        if (mLoadStartTime < 0) {
+            return;
+        }
+        long latency = now - mLoadStartTime;
+        mLoadStartTime = -1;
+        if (latency < 0) {
+            return;
+        }
+        if (mHasLatencySample) {
+            mLatency += LATENCY_SMOOTHING * (latency - mLatency);
+        } else {
+            mLatency = latency;
+            mHasLatencySample = true;
+        }
+    }
+
+    /**
+     * 加载更多失败，失败的耗时不计入加载耗时
+     */
+    public void onLoadFailed() {
+        mLoadStartTime = -1;
+    }
+
+    /**
+     * 当前的预加载距离
+     * @param defaultMaxDistance 没有设置最大距离时使用的最大距离，单位px
+     * @return 单位px
+     */
+    public int getPrefetchDistance(int defaultMaxDistance) {
+        int maxDistance = mMaxDistance > 0 ? mMaxDistance : defaultMaxDistance;
+        float velocity = Math.max(0, mVelocity);
+        int distance = (int) (velocity * mLatency * mSafetyFactor);
+        if (maxDistance > 0 && distance > maxDistance) {
+            distance = maxDistance;
+        }
+        return Math.max(mMinDistance, distance);
+    }
+
+    /**
+     * 平滑后的滑动速度，单位px/ms
+     */
+    public float getVelocity() {
+        return mVelocity;
+    }
+
+    /**
+     * 平滑后的加载耗时，单位ms
+     */
+    public long getLatency() {
+        return (long) mLatency;
+    }
+}
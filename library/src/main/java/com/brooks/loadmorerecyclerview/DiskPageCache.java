@@ -0,0 +1,235 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 把列表最前面的几页数据保存到文件中，冷启动时先显示上一次的数据，不需要等第一页的网络请求返回
+ * <p>
+ * 通过{@link PagedLoader#setPageCache(DiskPageCache)}使用，读写都在PagedLoader的后台线程中进行。
+ * 第一页先写到临时文件，再重命名替换旧文件，写到一半时进程被杀也不会丢失旧的缓存；之后的页只在文件末尾追加。
+ * 文件开头是文件头，之后每一页是一条记录，记录中保存长度和CRC32校验，
+ * 追加到一半时进程被杀导致的不完整记录在读取时直接丢弃；读取时把整个文件映射到内存，不需要逐块复制
+ * @param <T> 数据类型
+ */
+public class DiskPageCache<T> {
+
+    private static final String TAG = "DiskPageCache";
+
+    /**
+     * 文件头的标识
+     */
+    private static final int MAGIC = 0x4C4D5043;
+
+    /**
+     * 文件格式的版本，格式变化时修改
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * 文件头的长度：标识、格式版本、数据版本
+     */
+    private static final int HEADER_SIZE = 12;
+
+    /**
+     * 每条记录开头的长度：数据长度、CRC32
+     */
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private final File mFile;
+
+    private final ItemSerializer<T> mSerializer;
+
+    /**
+     * 数据的版本，和文件中的不一致时丢弃旧的缓存
+     */
+    private final int mVersion;
+
+    /**
+     * 最多保存的页数
+     */
+    private final int mMaxPages;
+
+    /**
+     * 文件中已经写入的页数，-1表示还没有写过第一页，不知道文件中的情况，这时不能追加
+     */
+    private int mPageCount = -1;
+
+    /**
+     * @param file 缓存文件，一个列表一个文件
+     * @param serializer 数据的读写
+     * @param version 数据的版本，数据格式变化时修改，旧的缓存会被丢弃
+     * @param maxPages 最多保存的页数
+     */
+    public DiskPageCache(File file, ItemSerializer<T> serializer, int version, int maxPages) {
+        mFile = file;
+        mSerializer = serializer;
+        mVersion = version;
+        mMaxPages = Math.max(1, maxPages);
+    }
+
+    /**
+     * 读取缓存的所有页，按页的顺序连在一起
+     * @return 没有缓存或者缓存无效时返回空列表，最后一页不完整时只返回前面完整的页
+     */
+    public synchronized List<T> read() {
+        List<T> items = new ArrayList<T>();
+        if (mFile.length() < HEADER_SIZE) {
+            return items;
+        }
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(mFile, "r");
+            FileChannel channel = file.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || buffer.getInt() != mVersion) {
+                return items;
+            }
+            CRC32 crc = new CRC32();
+            int pageCount = 0;
+            while (pageCount < mMaxPages && buffer.remaining() >= RECORD_HEADER_SIZE) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length < 4 || length > buffer.remaining()) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                // 一页解析完整后才加入结果
+                items.addAll(readPage(payload));
+                pageCount++;
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "read page cache failed", e);
+        } catch (RuntimeException e) {
+            // 数据版本没有修改但格式变了，反序列化出错时按没有缓存处理
+            Log.w(TAG, "parse page cache failed", e);
+        } finally {
+            closeQuietly(file);
+        }
+        return items;
+    }
+
+    /**
+     * 保存一页数据
+     * <p>
+     * 第0页写入新文件后替换之前的缓存，之后的页只有紧接着上一次写入的页时才追加，超过最大页数的不保存
+     * @param index 页的序号，第一页为0
+     */
+    public synchronized void writePage(int index, List<T> items) {
+        if (index >= mMaxPages || (index > 0 && index != mPageCount)) {
+            return;
+        }
+        RandomAccessFile file = null;
+        File tempFile = new File(mFile.getPath() + ".tmp");
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            DataOutputStream payloadOut = new DataOutputStream(payload);
+            payloadOut.writeInt(items.size());
+            for (T item : items) {
+                mSerializer.write(payloadOut, item);
+            }
+            byte[] payloadBytes = payload.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(payloadBytes, 0, payloadBytes.length);
+
+            // 文件头和记录一次写入
+            ByteArrayOutputStream record = new ByteArrayOutputStream(HEADER_SIZE + RECORD_HEADER_SIZE
+                    + payloadBytes.length);
+            DataOutputStream recordOut = new DataOutputStream(record);
+            if (index == 0) {
+                recordOut.writeInt(MAGIC);
+                recordOut.writeInt(FORMAT_VERSION);
+                recordOut.writeInt(mVersion);
+            }
+            recordOut.writeInt(payloadBytes.length);
+            recordOut.writeInt((int) crc.getValue());
+            recordOut.write(payloadBytes);
+
+            File dir = mFile.getParentFile();
+            if (dir != null && !dir.exists()) {
+                dir.mkdirs();
+            }
+            if (index == 0) {
+                // 旧的缓存在新文件完整写入之前一直可用
+                tempFile.delete();
+                file = new RandomAccessFile(tempFile, "rw");
+                file.write(record.toByteArray());
+                file.close();
+                file = null;
+                if (!tempFile.renameTo(mFile)) {
+                    throw new IOException("rename " + tempFile + " failed");
+                }
+            } else {
+                file = new RandomAccessFile(mFile, "rw");
+                file.seek(file.length());
+                file.write(record.toByteArray());
+            }
+            mPageCount = index + 1;
+        } catch (IOException e) {
+            Log.w(TAG, "write page cache failed", e);
+            // 写入失败后文件的内容不确定，等下一次写第一页时重新开始
+            mPageCount = -1;
+        } finally {
+            closeQuietly(file);
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * 删除缓存文件
+     */
+    public synchronized void clear() {
+        mFile.delete();
+        mPageCount = -1;
+    }
+
+    private List<T> readPage(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int count = in.readInt();
+        List<T> items = new ArrayList<T>(Math.max(0, Math.min(count, payload.length)));
+        for (int i = 0; i < count; i++) {
+            items.add(mSerializer.read(in));
+        }
+        return items;
+    }
+
+    private static void closeQuietly(RandomAccessFile file) {
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * 数据的序列化，在后台线程中调用
+     * @param <T> 数据类型
+     */
+    public interface ItemSerializer<T> {
+
+        void write(DataOutput out, T item) throws IOException;
+
+        T read(DataInput in) throws IOException;
+    }
+}
@@ -0,0 +1,47 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * 负责创建和显示加载更多的footer（以及加载上一页的header），LoadMoreRecyclerView和McLoadMoreRecyclerView共用
+ * <p>
+ * footer的状态由列表决定，renderer只负责把状态显示出来；同一个renderer会用于创建多个footer，不要在renderer中保存某个footer的状态
+ */
+public interface FooterRenderer {
+
+    /**
+     * 状态-正在加载
+     */
+    int STATE_LOADING = 0;
+
+    /**
+     * 状态-手动加载模式下等待点击加载更多
+     */
+    int STATE_LOAD_MORE = 1;
+
+    /**
+     * 状态-没有更多数据
+     */
+    int STATE_NO_MORE = 2;
+
+    /**
+     * 状态-加载失败，等待自动重试或者点击重试，不显示加载动画
+     */
+    int STATE_ERROR = 3;
+
+    /**
+     * 创建footer，不要把View添加到parent中
+     */
+    View onCreateView(ViewGroup parent);
+
+    /**
+     * 显示footer的状态，状态没有变化时不会重复调用
+     */
+    void onBindState(View footer, int state);
+
+    /**
+     * 开始或停止加载动画，footer离开屏幕、被回收或者不在加载状态时会停止
+     */
+    void setAnimating(View footer, boolean animating);
+}
@@ -0,0 +1,64 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+
+/**
+ * footer和header的holder，不依赖具体的列表，由{@link FooterRenderer}创建和显示
+ * <p>
+ * 只在显示在屏幕上并且正在加载时播放加载动画，离开屏幕或者被回收时停止，避免一直重绘
+ */
+final class FooterViewHolder extends RecyclerView.ViewHolder {
+
+    private final FooterRenderer mRenderer;
+
+    private int mState = -1;
+
+    private boolean mAttached;
+
+    private boolean mAnimating;
+
+    FooterViewHolder(FooterRenderer renderer, ViewGroup parent) {
+        super(renderer.onCreateView(parent));
+        mRenderer = renderer;
+        // StaggeredGridLayoutManager中占满一整行
+        LayoutManagerHelper.setFullSpan(itemView, parent);
+    }
+
+    FooterRenderer getRenderer() {
+        return mRenderer;
+    }
+
+    int getState() {
+        return mState;
+    }
+
+    /**
+     * 显示新的状态
+     * @param state {@link FooterRenderer}中的状态
+     */
+    void bindState(int state) {
+        if (state != mState) {
+            mState = state;
+            mRenderer.onBindState(itemView, state);
+        }
+        updateAnimation();
+    }
+
+    boolean isAttached() {
+        return mAttached;
+    }
+
+    void setAttached(boolean attached) {
+        mAttached = attached;
+        updateAnimation();
+    }
+
+    private void updateAnimation() {
+        boolean animating = mAttached && mState == FooterRenderer.STATE_LOADING;
+        if (animating != mAnimating) {
+            mAnimating = animating;
+            mRenderer.setAnimating(itemView, animating);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * 把业务adapter的数据变化一对一地转发给包装了header和footer的adapter
+ * <p>
+ * 每个事件只加上header的偏移，不会把移动转成变化，也不会扩大变化的范围，避免多余的重新绑定
+ */
+class ForwardingDataObserver extends RecyclerView.AdapterDataObserver {
+
+    private final RecyclerView.Adapter mTarget;
+
+    ForwardingDataObserver(RecyclerView.Adapter target) {
+        mTarget = target;
+    }
+
+    /**
+     * 业务adapter中的位置在包装adapter中的偏移，即header的数量
+     */
+    protected int getPositionOffset() {
+        return 0;
+    }
+
+    @Override
+    public void onChanged() {
+        mTarget.notifyDataSetChanged();
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount) {
+        mTarget.notifyItemRangeChanged(positionStart + getPositionOffset(), itemCount);
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+        mTarget.notifyItemRangeChanged(positionStart + getPositionOffset(), itemCount, payload);
+    }
+
+    @Override
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+        mTarget.notifyItemRangeInserted(positionStart + getPositionOffset(), itemCount);
+    }
+
+    @Override
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+        mTarget.notifyItemRangeRemoved(positionStart + getPositionOffset(), itemCount);
+    }
+
+    @Override
+    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+        int offset = getPositionOffset();
+        // RecyclerView只支持一次移动一个item，多个item时按顺序逐个移动，结果和整段移动一致
+        if (fromPosition < toPosition) {
+            for (int i = itemCount - 1; i >= 0; i--) {
+                mTarget.notifyItemMoved(fromPosition + i + offset, toPosition + i + offset);
+            }
+        } else {
+            for (int i = 0; i < itemCount; i++) {
+                mTarget.notifyItemMoved(fromPosition + i + offset, toPosition + i + offset);
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.brooks.loadmorerecyclerview;
+
+/**
+ * 按2的幂分桶的耗时直方图，记录时不分配内存，适合在主线程上每次加载都记录
+ * <p>
+ * 单位由使用方决定，{@link LoadMoreMetrics}中为ms，{@link AdapterProfiler}中为us。
+ * 第0个桶记录小于1的值，第i个桶记录[2^(i-1), 2^i)的值，最后一个桶记录所有更大的值；
+ * 百分位数只能精确到桶，返回所在桶的上界
+ */
+public class LatencyHistogram {
+
+    /**
+     * 桶的数量，最后一个桶的下界为2^30
+     */
+    public static final int BUCKET_COUNT = 32;
+
+    private final long[] mBuckets = new long[BUCKET_COUNT];
+
+    private long mCount;
+
+    private long mSum;
+
+    private long mMin = Long.MAX_VALUE;
+
+    private long mMax;
+
+    /**
+     * 记录一次耗时
+     * @param value 小于0时忽略
+     */
+    public void record(long value) {
+        if (value < 0) {
+            return;
+        }
+        mBuckets[getBucketIndex(value)]++;
+        mCount++;
+        mSum += value;
+        if (value < mMin) {
+            mMin = value;
+        }
+        if (value > mMax) {
+            mMax = value;
+        }
+    }
+
+    /**
+     * 某个值所在的桶
+     */
+    static int getBucketIndex(long value) {
+        // 0 -> 0，1 -> 1，2~3 -> 2，4~7 -> 3 ...
+        int index = 64 - Long.numberOfLeadingZeros(value);
+        return Math.min(index, BUCKET_COUNT - 1);
+    }
+
+    /**
+     * 某个桶的上界（不包含），最后一个桶返回Long.MAX_VALUE
+     */
+    public static long getBucketUpperBound(int index) {
+        return index >= BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << index;
+    }
+
+    /**
+     * 某个桶中记录的次数
+     */
+    public long getBucketCount(int index) {
+        return mBuckets[index];
+    }
+
+    /**
+     * 把每个桶中记录的次数复制到out中，上报时可以复用同一个数组
+     * @param out 长度至少为{@link #BUCKET_COUNT}
+     */
+    public void copyBucketCounts(long[] out) {
+        System.arraycopy(mBuckets, 0, out, 0, BUCKET_COUNT);
+    }
+
+    public long getCount() {
+        return mCount;
+    }
+
+    public long getSum() {
+        return mSum;
+    }
+
+    /**
+     * 平均值，没有记录时返回0
+     */
+    public long getMean() {
+        return mCount > 0 ? mSum / mCount : 0;
+    }
+
+    /**
+     * 最小值，没有记录时返回0
+     */
+    public long getMin() {
+        return mCount > 0 ? mMin : 0;
+    }
+
+    public long getMax() {
+        return mMax;
+    }
+
+    /**
+     * 百分位数的近似值，返回所在桶的上界，不超过记录到的最大值
+     * @param percentile 0到100之间，例如50表示中位数，99表示P99
+     */
+    public long getPercentile(double percentile) {
+        if (mCount == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(mCount * Math.max(0, Math.min(100, percentile)) / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += mBuckets[i];
+            if (seen >= target && seen > 0) {
+                return Math.min(getBucketUpperBound(i), mMax);
+            }
+        }
+        return mMax;
+    }
+
+    /**
+     * 清空所有记录
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mBuckets[i] = 0;
+        }
+        mCount = 0;
+        mSum = 0;
+        mMin = Long.MAX_VALUE;
+        mMax = 0;
+    }
+}
@@ -0,0 +1,126 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.graphics.drawable.AnimationDrawable;
+import android.graphics.drawable.Drawable;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import com.tt.whorlviewlibrary.WhorlView;
+
+/**
+ * 通过布局文件创建footer，兼容之前的loadmore_recycler_footer_auto/manual/usepic和mc_loadmore_recycler_footer
+ * <p>
+ * 布局中可以包含以下id，都是可选的：
+ * loadmore_recycler_footer_image（帧动画）、loadmore_recycler_footer_whorl（WhorlView）、
+ * loadmore_recycler_footer_hint（点击加载更多的提示）、loadmore_recycler_footer_text（没有更多的提示）、
+ * loadmore_recycler_footer_error（加载失败的提示）
+ */
+public class LayoutFooterRenderer implements FooterRenderer {
+
+    private final int mLayoutId;
+
+    public LayoutFooterRenderer(int layoutId) {
+        mLayoutId = layoutId;
+    }
+
+    @Override
+    public View onCreateView(ViewGroup parent) {
+        View footer = LayoutInflater.from(parent.getContext()).inflate(mLayoutId, parent, false);
+        Views views = new Views(footer);
+        if (views.mImage != null && views.mImage.getBackground() == null) {
+            views.mImage.setBackgroundResource(R.drawable.loadmore_recycler_footer_anim_list);
+        }
+        footer.setTag(R.id.loadmore_recycler_footer_image, views);
+        return footer;
+    }
+
+    @Override
+    public void onBindState(View footer, int state) {
+        Views views = (Views) footer.getTag(R.id.loadmore_recycler_footer_image);
+        boolean loading = state == STATE_LOADING;
+        setVisible(views.mError, state == STATE_ERROR);
+        if (state == STATE_ERROR) {
+            setVisible(views.mHint, false);
+            setVisible(views.mWhorl, false);
+            setVisible(views.mImage, false);
+        } else if (views.mHint != null) {
+            views.mHint.setVisibility(state == STATE_LOAD_MORE ? View.VISIBLE : View.GONE);
+            // 有点击提示时，等待点击的状态不显示加载动画
+            setVisible(views.mWhorl, loading);
+            setVisible(views.mImage, loading);
+        } else {
+            setVisible(views.mWhorl, state != STATE_NO_MORE);
+            setVisible(views.mImage, state != STATE_NO_MORE);
+        }
+        setVisible(views.mText, state == STATE_NO_MORE);
+    }
+
+    @Override
+    public void setAnimating(View footer, boolean animating) {
+        Views views = (Views) footer.getTag(R.id.loadmore_recycler_footer_image);
+        if (views.mImage != null) {
+            Drawable background = views.mImage.getBackground();
+            if (background instanceof AnimationDrawable) {
+                AnimationDrawable animationDrawable = (AnimationDrawable) background;
+                if (animating && !animationDrawable.isRunning()) {
+                    animationDrawable.start();
+                } else if (!animating && animationDrawable.isRunning()) {
+                    animationDrawable.stop();
+                }
+            }
+        }
+        if (views.mWhorl != null) {
+            if (animating && !views.mWhorl.isCircling()) {
+                views.mWhorl.start();
+            } else if (!animating && views.mWhorl.isCircling()) {
+                views.mWhorl.stop();
+            }
+        }
+    }
+
+    /**
+     * 使用同一个布局的renderer是相等的，共用{@link SharedRecycledViewPool}时可以复用彼此的footer
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof LayoutFooterRenderer && ((LayoutFooterRenderer) o).mLayoutId == mLayoutId;
+    }
+
+    @Override
+    public int hashCode() {
+        return mLayoutId;
+    }
+
+    private static void setVisible(View view, boolean visible) {
+        if (view != null) {
+            view.setVisibility(visible ? View.VISIBLE : View.GONE);
+        }
+    }
+
+    /**
+     * 缓存footer中的View，绑定状态时不再查找
+     */
+    private static class Views {
+
+        private final ImageView mImage;
+
+        private final WhorlView mWhorl;
+
+        private final TextView mHint;
+
+        private final TextView mText;
+
+        private final TextView mError;
+
+        private Views(View footer) {
+            mImage = (ImageView) footer.findViewById(R.id.loadmore_recycler_footer_image);
+            mWhorl = (WhorlView) footer.findViewById(R.id.loadmore_recycler_footer_whorl);
+            mHint = (TextView) footer.findViewById(R.id.loadmore_recycler_footer_hint);
+            mText = (TextView) footer.findViewById(R.id.loadmore_recycler_footer_text);
+            mError = (TextView) footer.findViewById(R.id.loadmore_recycler_footer_error);
+        }
+    }
+}
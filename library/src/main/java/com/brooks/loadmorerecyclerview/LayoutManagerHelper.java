@@ -0,0 +1,176 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * 兼容LinearLayoutManager、GridLayoutManager和StaggeredGridLayoutManager的工具方法
+ */
+final class LayoutManagerHelper {
+
+    private LayoutManagerHelper() {
+    }
+
+    /**
+     * 最后一个可见item的位置
+     * @param layoutManager 列表的LayoutManager
+     * @return 没有可见item时返回{@link RecyclerView#NO_POSITION}
+     */
+    static int findLastVisibleItemPosition(RecyclerView.LayoutManager layoutManager) {
+        if (layoutManager instanceof LinearLayoutManager) {
+            // GridLayoutManager也是LinearLayoutManager
+            return ((LinearLayoutManager) layoutManager).findLastVisibleItemPosition();
+        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
+            int[] positions = ((StaggeredGridLayoutManager) layoutManager).findLastVisibleItemPositions(null);
+            int lastPosition = RecyclerView.NO_POSITION;
+            for (int position : positions) {
+                lastPosition = Math.max(lastPosition, position);
+            }
+            return lastPosition;
+        } else if (layoutManager != null) {
+            // 其他LayoutManager，取所有child中最大的位置
+            int lastPosition = RecyclerView.NO_POSITION;
+            for (int i = layoutManager.getChildCount() - 1; i >= 0; i--) {
+                View child = layoutManager.getChildAt(i);
+                lastPosition = Math.max(lastPosition, layoutManager.getPosition(child));
+            }
+            return lastPosition;
+        }
+        return RecyclerView.NO_POSITION;
+    }
+
+    /**
+     * 第一个可见item的位置
+     * @param layoutManager 列表的LayoutManager
+     * @return 没有可见item时返回{@link RecyclerView#NO_POSITION}
+     */
+    static int findFirstVisibleItemPosition(RecyclerView.LayoutManager layoutManager) {
+        if (layoutManager instanceof LinearLayoutManager) {
+            return ((LinearLayoutManager) layoutManager).findFirstVisibleItemPosition();
+        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
+            int[] positions = ((StaggeredGridLayoutManager) layoutManager).findFirstVisibleItemPositions(null);
+            int firstPosition = RecyclerView.NO_POSITION;
+            for (int position : positions) {
+                if (position != RecyclerView.NO_POSITION
+                        && (firstPosition == RecyclerView.NO_POSITION || position < firstPosition)) {
+                    firstPosition = position;
+                }
+            }
+            return firstPosition;
+        } else if (layoutManager != null) {
+            int firstPosition = RecyclerView.NO_POSITION;
+            for (int i = 0; i < layoutManager.getChildCount(); i++) {
+                int position = layoutManager.getPosition(layoutManager.getChildAt(i));
+                if (firstPosition == RecyclerView.NO_POSITION || position < firstPosition) {
+                    firstPosition = position;
+                }
+            }
+            return firstPosition;
+        }
+        return RecyclerView.NO_POSITION;
+    }
+
+    /**
+     * 滚动到指定位置，并让该位置的item距离列表顶部offset像素
+     * @return LayoutManager不支持时返回false
+     */
+    static boolean scrollToPositionWithOffset(RecyclerView.LayoutManager layoutManager, int position, int offset) {
+        if (layoutManager instanceof LinearLayoutManager) {
+            ((LinearLayoutManager) layoutManager).scrollToPositionWithOffset(position, offset);
+            return true;
+        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
+            ((StaggeredGridLayoutManager) layoutManager).scrollToPositionWithOffset(position, offset);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 让GridLayoutManager中的footer等item占满一整行
+     * @param layoutManager 列表的LayoutManager，不是GridLayoutManager时不做处理
+     * @param lookup 判断某个位置是否需要占满一整行
+     */
+    static void setupFullSpan(RecyclerView.LayoutManager layoutManager, FullSpanLookup lookup) {
+        // 在XML中指定layoutManager时，RecyclerView的构造方法里就会调用setLayoutManager，此时lookup还未初始化
+        if (!(layoutManager instanceof GridLayoutManager) || lookup == null) {
+            return;
+        }
+        GridLayoutManager gridLayoutManager = (GridLayoutManager) layoutManager;
+        GridLayoutManager.SpanSizeLookup origin = gridLayoutManager.getSpanSizeLookup();
+        if (origin instanceof FullSpanSizeLookup) {
+            FullSpanSizeLookup fullSpanSizeLookup = (FullSpanSizeLookup) origin;
+            if (fullSpanSizeLookup.mFullSpanLookup == lookup) {
+                return;
+            }
+            origin = fullSpanSizeLookup.mOrigin;
+        }
+        gridLayoutManager.setSpanSizeLookup(new FullSpanSizeLookup(gridLayoutManager, origin, lookup));
+    }
+
+    /**
+     * 让StaggeredGridLayoutManager中的footer等item占满一整行，在onCreateViewHolder中调用，不会额外触发布局
+     * <p>
+     * 没有通过parent创建LayoutParams的item（例如直接new RecyclerView.LayoutParams），添加到列表时会被替换成fullSpan为false的新参数，
+     * 所以先用LayoutManager转换成它自己的LayoutParams再设置
+     * @param itemView 新创建的item
+     * @param parent onCreateViewHolder中的parent
+     */
+    static void setFullSpan(View itemView, ViewGroup parent) {
+        ViewGroup.LayoutParams layoutParams = itemView.getLayoutParams();
+        RecyclerView.LayoutManager layoutManager = parent instanceof RecyclerView
+                ? ((RecyclerView) parent).getLayoutManager() : null;
+        if (layoutManager instanceof StaggeredGridLayoutManager
+                && !(layoutParams instanceof StaggeredGridLayoutManager.LayoutParams)) {
+            layoutParams = layoutParams != null ? layoutManager.generateLayoutParams(layoutParams)
+                    : layoutManager.generateDefaultLayoutParams();
+            itemView.setLayoutParams(layoutParams);
+        }
+        if (layoutParams instanceof StaggeredGridLayoutManager.LayoutParams) {
+            ((StaggeredGridLayoutManager.LayoutParams) layoutParams).setFullSpan(true);
+        }
+    }
+
+    /**
+     * 判断某个位置是否需要占满一整行
+     */
+    interface FullSpanLookup {
+        boolean isFullSpan(int position);
+
+        /**
+         * 列表中的位置对应到业务adapter中的位置，原来的SpanSizeLookup使用的是业务adapter中的位置
+         */
+        int getInnerPosition(int position);
+    }
+
+    /**
+     * 对需要占满一整行的位置返回spanCount，其他位置交给原来的SpanSizeLookup
+     */
+    private static class FullSpanSizeLookup extends GridLayoutManager.SpanSizeLookup {
+
+        private final GridLayoutManager mLayoutManager;
+
+        private final GridLayoutManager.SpanSizeLookup mOrigin;
+
+        private final FullSpanLookup mFullSpanLookup;
+
+        private FullSpanSizeLookup(GridLayoutManager layoutManager, GridLayoutManager.SpanSizeLookup origin,
+                                   FullSpanLookup fullSpanLookup) {
+            mLayoutManager = layoutManager;
+            mOrigin = origin;
+            mFullSpanLookup = fullSpanLookup;
+            setSpanIndexCacheEnabled(origin.isSpanIndexCacheEnabled());
+        }
+
+        @Override
+        public int getSpanSize(int position) {
+            if (mFullSpanLookup.isFullSpan(position)) {
+                return mLayoutManager.getSpanCount();
+            }
+            return mOrigin.getSpanSize(mFullSpanLookup.getInnerPosition(position));
+        }
+    }
+}
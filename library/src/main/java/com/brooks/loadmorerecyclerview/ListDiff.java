@@ -0,0 +1,263 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 计算两个列表之间的最少增删（Myers差分算法），得到准确的插入、移除和变化范围，只有真正变化的item才会被重新绑定
+ * <p>
+ * 计算过程不涉及View，可以在后台线程中执行，结果在主线程中通过{@link Result#dispatchUpdatesTo(RecyclerView.Adapter)}通知
+ */
+public final class ListDiff {
+
+    /**
+     * 超过这个编辑距离时放弃计算，直接整体刷新，避免两个完全不同的大列表占用过多内存
+     */
+    private static final int MAX_EDIT_DISTANCE = 2000;
+
+    private ListDiff() {
+    }
+
+    /**
+     * 判断两个item是否相同
+     */
+    public interface ItemCallback<T> {
+        /**
+         * 是否是同一个item，一般比较id
+         */
+        boolean areItemsTheSame(T oldItem, T newItem);
+
+        /**
+         * 同一个item的内容是否没有变化，没有变化时不会重新绑定
+         */
+        boolean areContentsTheSame(T oldItem, T newItem);
+    }
+
+    /**
+     * 接收差分结果
+     */
+    public interface UpdateCallback {
+        void onInserted(int position, int count);
+
+        void onRemoved(int position, int count);
+
+        void onChanged(int position, int count);
+    }
+
+    /**
+     * 计算从oldList变化到newList的最少增删
+     */
+    public static <T> Result calculate(List<T> oldList, List<T> newList, ItemCallback<T> callback) {
+        int oldSize = oldList.size();
+        int newSize = newList.size();
+        int max = oldSize + newSize;
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        // trace中第d个元素保存第d轮开始时k在[-d, d]范围内的v
+        List<int[]> trace = new ArrayList<int[]>();
+        boolean found = false;
+        for (int d = 0; d <= max && d <= MAX_EDIT_DISTANCE; d++) {
+            trace.add(Arrays.copyOfRange(v, offset - d, offset + d + 1));
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+                    x = v[offset + k + 1];
+                } else {
+                    x = v[offset + k - 1] + 1;
+                }
+                int y = x - k;
+                while (x < oldSize && y < newSize && callback.areItemsTheSame(oldList.get(x), newList.get(y))) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= oldSize && y >= newSize) {
+                    found = true;
+                    break;
+                }
+            }
+            if (found) {
+                break;
+            }
+        }
+        Result result = new Result();
+        if (!found) {
+            result.mDataSetChanged = true;
+            return result;
+        }
+        // 从末尾往前回溯，得到的操作按位置从后往前排列，依次执行时前面的位置不会受影响
+        int x = oldSize;
+        int y = newSize;
+        for (int d = trace.size() - 1; d >= 0; d--) {
+            int[] vd = trace.get(d);
+            int k = x - y;
+            if (d == 0) {
+                while (x > 0 && y > 0) {
+                    x--;
+                    y--;
+                    result.addMatch(x, callback.areContentsTheSame(oldList.get(x), newList.get(y)));
+                }
+                break;
+            }
+            int prevK;
+            if (k == -d || (k != d && vd[k - 1 + d] < vd[k + 1 + d])) {
+                prevK = k + 1;
+            } else {
+                prevK = k - 1;
+            }
+            int prevX = vd[prevK + d];
+            int prevY = prevX - prevK;
+            int midX = prevK == k + 1 ? prevX : prevX + 1;
+            while (x > midX) {
+                x--;
+                y--;
+                result.addMatch(x, callback.areContentsTheSame(oldList.get(x), newList.get(y)));
+            }
+            if (prevK == k + 1) {
+                result.addOperation(Result.OP_INSERT, prevX);
+            } else {
+                result.addOperation(Result.OP_REMOVE, prevX);
+            }
+            x = prevX;
+            y = prevY;
+        }
+        result.flush();
+        return result;
+    }
+
+    /**
+     * 差分结果
+     */
+    public static class Result {
+
+        private static final int OP_INSERT = 1;
+
+        private static final int OP_REMOVE = 2;
+
+        private static final int OP_CHANGE = 3;
+
+        /**
+         * 每三个int表示一个操作：类型、位置、数量
+         */
+        private int[] mOperations = new int[24];
+
+        private int mOperationCount;
+
+        /**
+         * 编辑距离过大，只能整体刷新
+         */
+        private boolean mDataSetChanged;
+
+        private int mPendingType;
+
+        private int mPendingPosition;
+
+        private int mPendingCount;
+
+        private Result() {
+        }
+
+        /**
+         * 记录一对相同的item，内容变化时记录为变化
+         */
+        private void addMatch(int position, boolean contentsTheSame) {
+            if (contentsTheSame) {
+                flush();
+            } else {
+                addOperation(OP_CHANGE, position);
+            }
+        }
+
+        /**
+         * 记录一个操作，和上一个相邻的同类操作合并成一个范围
+         */
+        private void addOperation(int type, int position) {
+            if (mPendingType == type) {
+                if (type == OP_INSERT && position == mPendingPosition) {
+                    mPendingCount++;
+                    return;
+                } else if (type != OP_INSERT && position == mPendingPosition - 1) {
+                    mPendingPosition = position;
+                    mPendingCount++;
+                    return;
+                }
+            }
+            flush();
+            mPendingType = type;
+            mPendingPosition = position;
+            mPendingCount = 1;
+        }
+
+        private void flush() {
+            if (mPendingType == 0) {
+                return;
+            }
+            if (mOperationCount * 3 + 3 > mOperations.length) {
+                mOperations = Arrays.copyOf(mOperations, mOperations.length * 2);
+            }
+            int index = mOperationCount * 3;
+            mOperations[index] = mPendingType;
+            mOperations[index + 1] = mPendingPosition;
+            mOperations[index + 2] = mPendingCount;
+            mOperationCount++;
+            mPendingType = 0;
+        }
+
+        /**
+         * 是否没有任何变化
+         */
+        public boolean isEmpty() {
+            return !mDataSetChanged && mOperationCount == 0;
+        }
+
+        /**
+         * 把差分结果通知给adapter，需要在adapter的数据已经替换为新列表之后在主线程中调用
+         */
+        public void dispatchUpdatesTo(final RecyclerView.Adapter<?> adapter) {
+            if (mDataSetChanged) {
+                adapter.notifyDataSetChanged();
+                return;
+            }
+            dispatchUpdatesTo(new UpdateCallback() {
+                @Override
+                public void onInserted(int position, int count) {
+                    adapter.notifyItemRangeInserted(position, count);
+                }
+
+                @Override
+                public void onRemoved(int position, int count) {
+                    adapter.notifyItemRangeRemoved(position, count);
+                }
+
+                @Override
+                public void onChanged(int position, int count) {
+                    adapter.notifyItemRangeChanged(position, count);
+                }
+            });
+        }
+
+        /**
+         * 把差分结果通知给callback，编辑距离过大时只能使用{@link #dispatchUpdatesTo(RecyclerView.Adapter)}
+         */
+        public void dispatchUpdatesTo(UpdateCallback callback) {
+            if (mDataSetChanged) {
+                throw new IllegalStateException("diff is too large, use dispatchUpdatesTo(Adapter)");
+            }
+            for (int i = 0; i < mOperationCount; i++) {
+                int type = mOperations[i * 3];
+                int position = mOperations[i * 3 + 1];
+                int count = mOperations[i * 3 + 2];
+                if (type == OP_INSERT) {
+                    callback.onInserted(position, count);
+                } else if (type == OP_REMOVE) {
+                    callback.onRemoved(position, count);
+                } else {
+                    callback.onChanged(position, count);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.brooks.loadmorerecyclerview;
+
+/**
+ * 汇总加载更多的统计数据，耗时记录在{@link LatencyHistogram}中，记录时不分配内存
+ * <p>
+ * 同一个对象可以设置给多个列表汇总在一起；只能在主线程中使用，上报之后可以调用{@link #reset()}重新开始统计
+ */
+public class LoadMoreMetrics implements LoadMoreMetricsListener {
+
+    /**
+     * 从触发到加载完成的耗时
+     */
+    private final LatencyHistogram mLoadLatency = new LatencyHistogram();
+
+    /**
+     * footer每次显示加载中的时长
+     */
+    private final LatencyHistogram mFooterVisibleDuration = new LatencyHistogram();
+
+    private int mTriggerCount;
+
+    private int mDuplicateTriggerCount;
+
+    private int mSuppressedTriggerCount;
+
+    private int mPageCount;
+
+    private int mItemCount;
+
+    private int mFailureCount;
+
+    @Override
+    public void onLoadTriggered() {
+        mTriggerCount++;
+    }
+
+    @Override
+    public void onDuplicateTrigger() {
+        mDuplicateTriggerCount++;
+    }
+
+    @Override
+    public void onTriggerSuppressed() {
+        mSuppressedTriggerCount++;
+    }
+
+    @Override
+    public void onPageLoaded(int itemCount, long latency) {
+        mPageCount++;
+        mItemCount += itemCount;
+        mLoadLatency.record(latency);
+    }
+
+    @Override
+    public void onLoadFailed(long latency) {
+        mFailureCount++;
+    }
+
+    @Override
+    public void onFooterVisible(long duration) {
+        mFooterVisibleDuration.record(duration);
+    }
+
+    /**
+     * 从触发到加载完成的耗时，单位ms
+     */
+    public LatencyHistogram getLoadLatency() {
+        return mLoadLatency;
+    }
+
+    /**
+     * footer每次显示加载中的时长，单位ms，记录次数就是用户看到加载中的次数
+     */
+    public LatencyHistogram getFooterVisibleDuration() {
+        return mFooterVisibleDuration;
+    }
+
+    /**
+     * 触发加载的次数
+     */
+    public int getTriggerCount() {
+        return mTriggerCount;
+    }
+
+    /**
+     * 正在加载时再次到达加载位置的次数
+     */
+    public int getDuplicateTriggerCount() {
+        return mDuplicateTriggerCount;
+    }
+
+    /**
+     * 失败后等待重试期间到达加载位置的次数
+     */
+    public int getSuppressedTriggerCount() {
+        return mSuppressedTriggerCount;
+    }
+
+    /**
+     * 加载完成的页数
+     */
+    public int getPageCount() {
+        return mPageCount;
+    }
+
+    /**
+     * 加载完成的数据总数
+     */
+    public int getItemCount() {
+        return mItemCount;
+    }
+
+    /**
+     * 加载失败的次数
+     */
+    public int getFailureCount() {
+        return mFailureCount;
+    }
+
+    /**
+     * 清空所有统计
+     */
+    public void reset() {
+        mLoadLatency.reset();
+        mFooterVisibleDuration.reset();
+        mTriggerCount = 0;
+        mDuplicateTriggerCount = 0;
+        mSuppressedTriggerCount = 0;
+        mPageCount = 0;
+        mItemCount = 0;
+        mFailureCount = 0;
+    }
+}
@@ -0,0 +1,43 @@
+package com.brooks.loadmorerecyclerview;
+
+/**
+ * 加载更多的统计回调，LoadMoreRecyclerView和McLoadMoreRecyclerView共用
+ * <p>
+ * 所有回调都在主线程中调用，实现中不要做耗时操作；可以直接使用{@link LoadMoreMetrics}汇总
+ */
+public interface LoadMoreMetricsListener {
+
+    /**
+     * 触发了一次加载更多，包括自动加载、手动点击和失败后重试
+     */
+    void onLoadTriggered();
+
+    /**
+     * 到达了加载的位置，但上一次加载还没有完成，没有重复触发
+     */
+    void onDuplicateTrigger();
+
+    /**
+     * 到达了加载的位置，但上一次加载失败后还在等待重试，没有触发
+     */
+    void onTriggerSuppressed();
+
+    /**
+     * 新的一页数据已经添加到列表中
+     * @param itemCount 新添加的数据数量
+     * @param latency 从触发到加载完成的耗时，单位ms，不是由列表触发的加载为-1
+     */
+    void onPageLoaded(int itemCount, long latency);
+
+    /**
+     * 加载失败
+     * @param latency 从触发到失败的耗时，单位ms，不是由列表触发的加载为-1
+     */
+    void onLoadFailed(long latency);
+
+    /**
+     * 正在加载的footer离开屏幕，或者变成点击加载、失败重试等不是在等待加载的状态
+     * @param duration footer显示加载中的时长，单位ms
+     */
+    void onFooterVisible(long duration);
+}
@@ -1,17 +1,16 @@
 package com.brooks.loadmorerecyclerview;
 
 import android.content.Context;
-import android.graphics.drawable.AnimationDrawable;
-import android.support.v7.widget.LinearLayoutManager;
+import android.os.Bundle;
+import android.os.Parcelable;
+import android.os.SystemClock;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
-import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ImageView;
-import android.widget.TextView;
 
-import com.tt.whorlviewlibrary.WhorlView;
+import java.util.ArrayList;
+import java.util.List;
 
 public class LoadMoreRecyclerView extends RecyclerView {
 
@@ -26,14 +25,29 @@ public class LoadMoreRecyclerView extends RecyclerView {
     public static final int LOAD_TYPE_MANUAL = 2;
 
     /**
-     * item类型-询问加载更多的LoadMoreView
+     * item类型-询问加载更多的LoadMoreView，使用业务adapter不会用到的值，不和业务的item类型冲突
      */
-    private final static int ITEM_VIEW_TYPE_FOOTER = 2;
+    private final static int ITEM_VIEW_TYPE_FOOTER = Integer.MIN_VALUE + 1;
 
     /**
-     * item类型-普通ListViewItem
+     * item类型-加载上一页的LoadPreviousView
      */
-    private final static int ITEM_VIEW_TYPE_LIST = 3;
+    private final static int ITEM_VIEW_TYPE_HEADER = Integer.MIN_VALUE + 2;
+
+    /**
+     * footer的stable id，业务adapter打开stable id时使用
+     */
+    private final static long ITEM_ID_FOOTER = Long.MIN_VALUE + 1;
+
+    /**
+     * header的stable id
+     */
+    private final static long ITEM_ID_HEADER = Long.MIN_VALUE + 2;
+
+    /**
+     * 占位模式下停止绑定item超过这个时间才回调可见范围，快速滑动经过的位置不会加载，单位ms
+     */
+    private final static long PLACEHOLDER_DEBOUNCE = 100;
 
     /**
      * 是否允许加载更多
@@ -50,11 +64,41 @@ public class LoadMoreRecyclerView extends RecyclerView {
      */
     private boolean mIsLoadingMore;
 
+    /**
+     * 加载的代数，setAdapter或者取消加载时加1，之前发起的加载结果会被丢弃
+     */
+    private volatile int mLoadGeneration;
+
     /**
      * 自定义实现了头部和底部加载更多的adapter
      */
     private AutoLoadAdapter mAutoLoadAdapter;
 
+    /**
+     * 业务adapter，重新setAdapter或者detach时需要从它上面移除监听
+     */
+    private Adapter mInnerAdapter;
+
+    /**
+     * 注册在业务adapter上，把业务adapter的通知转发给包装adapter
+     */
+    private AdapterDataObserver mDataObserver;
+
+    /**
+     * mDataObserver当前是否注册在业务adapter上
+     */
+    private boolean mDataObserverRegistered;
+
+    /**
+     * 列表在界面上时才把holder的显示和隐藏通知给{@link SharedRecycledViewPool}，离开界面时仍然留在列表中的holder不算作正在使用
+     */
+    private boolean mReportAttachedViews;
+
+    /**
+     * 业务adapter中已经通知过列表的数据数量，和当前数据数量的差值就是业务新添加但还没有通知的数据
+     */
+    private int mNotifiedItemCount;
+
     /**
      * 上一次加载更多的位置
      */
@@ -71,14 +115,190 @@ public class LoadMoreRecyclerView extends RecyclerView {
     private boolean mPictureAnim;
 
     /**
-     * 加载更多提示文本
+     * 自定义的footer，为null时按mPictureAnim和mLoadType使用对应的布局文件
+     */
+    private FooterRenderer mFooterRenderer;
+
+    /**
+     * footer和header的item类型，共用{@link SharedRecycledViewPool}时由pool按renderer分配，INVALID_TYPE表示还没有计算
+     */
+    private int mFooterViewType = INVALID_TYPE;
+
+    private int mHeaderViewType = INVALID_TYPE;
+
+    /**
+     * 预加载的item数量，距离footer还剩多少个item时就开始加载更多，默认为0即footer出现时才加载
+     */
+    private int mPrefetchItemCount;
+
+    /**
+     * 预加载的像素距离，距离列表底部还剩多少像素时就开始加载更多，默认为0即不按像素距离预加载
+     */
+    private int mPrefetchDistance;
+
+    /**
+     * GridLayoutManager中让footer占满一整行
+     */
+    private final LayoutManagerHelper.FullSpanLookup mFullSpanLookup = new LayoutManagerHelper.FullSpanLookup() {
+        @Override
+        public boolean isFullSpan(int position) {
+            return (mEnableAutoLoadMore && position == mAutoLoadAdapter.getItemCount() - 1)
+                    || (mEnableLoadPrevious && position == 0);
+        }
+
+        @Override
+        public int getInnerPosition(int position) {
+            return position - getHeaderCount();
+        }
+    };
+
+    /**
+     * 检查是否需要加载更多
+     */
+    private final Runnable mCheckLoadMoreRunnable = new Runnable() {
+        @Override
+        public void run() {
+            trimPages();
+            checkLoadMore();
+            checkLoadPrevious();
+        }
+    };
+
+    /**
+     * 自适应预加载策略，为null时只使用固定的预加载阈值
+     */
+    private AdaptivePrefetchPolicy mPrefetchPolicy;
+
+    /**
+     * 是否允许加载上一页，允许时列表顶部会显示header
+     */
+    private boolean mEnableLoadPrevious;
+
+    /**
+     * 标记是否正在加载上一页
+     */
+    private boolean mIsLoadingPrevious;
+
+    /**
+     * 加载上一页的监听
+     */
+    private LoadPreviousListener mLoadPreviousListener;
+
+    /**
+     * 分页窗口模式下最多保留的页数，0表示不移除任何页
+     */
+    private int mMaxPages;
+
+    /**
+     * 分页窗口模式下每一页的数据数量
+     */
+    private final PageWindow mPageWindow = new PageWindow();
+
+    /**
+     * 分页窗口模式下移除页的监听
+     */
+    private PageEvictListener mPageEvictListener;
+
+    /**
+     * 加载更多失败后的自动重试策略，默认为null，只能点击footer重试
+     */
+    private RetryPolicy mRetryPolicy;
+
+    /**
+     * 上一次加载更多是否失败，失败后滑动不再触发加载，只能等待自动重试或者点击footer重试
+     */
+    private boolean mLoadMoreFailed;
+
+    /**
+     * 连续失败的次数，加载成功后清零
+     */
+    private int mFailureCount;
+
+    /**
+     * 最近一次加载更多失败的原因
+     */
+    private Throwable mLoadMoreError;
+
+    /**
+     * 失败后自动重试
+     */
+    private final Runnable mRetryRunnable = new Runnable() {
+        @Override
+        public void run() {
+            retryLoadMore();
+        }
+    };
+
+    /**
+     * 加载更多的统计回调，为null时不统计
+     */
+    private LoadMoreMetricsListener mMetricsListener;
+
+    /**
+     * 本次加载更多触发的时间，-1表示当前的加载不是由列表触发的
+     */
+    private long mLoadStartTime = -1;
+
+    /**
+     * footer出现在屏幕上的时间，-1表示footer不在屏幕上
+     */
+    private long mFooterShownTime = -1;
+
+    /**
+     * 按item类型统计创建和绑定耗时，为null时不统计
+     */
+    private AdapterProfiler mProfiler;
+
+    /**
+     * 当前是否在用mProfiler统计帧耗时
+     */
+    private boolean mFrameMonitoring;
+
+    /**
+     * 空闲时预先创建holder，为null表示没有在进行
+     */
+    private ViewHolderWarmUp mWarmUp;
+
+    /**
+     * 保存和恢复业务翻页位置的监听
+     */
+    private PagingStateListener mPagingStateListener;
+
+    /**
+     * 恢复状态后还没有滚动到的位置，等对应的数据加载出来后再滚动，为null表示没有
      */
-    private TextView mHintText;
+    private LoadMoreSavedState mPendingAnchor;
 
     /**
-     * 加载更多图案
+     * 占位模式下可见范围的监听，为null表示不是占位模式
      */
-    private WhorlView mWhorlView;
+    private PlaceholderListener mPlaceholderListener;
+
+    /**
+     * 最后一次绑定业务item的时间，快速滑动期间一直在绑定，停下来之后才回调可见范围
+     */
+    private long mLastBindTime;
+
+    /**
+     * mVisibleRangeRunnable是否已经post
+     */
+    private boolean mVisibleRangePending;
+
+    /**
+     * 绑定停止一段时间后回调可见范围
+     */
+    private final Runnable mVisibleRangeRunnable = new Runnable() {
+        @Override
+        public void run() {
+            long wait = mLastBindTime + PLACEHOLDER_DEBOUNCE - SystemClock.uptimeMillis();
+            if (wait > 0) {
+                postDelayed(this, wait);
+                return;
+            }
+            mVisibleRangePending = false;
+            dispatchVisibleRange();
+        }
+    };
 
     public LoadMoreRecyclerView(Context context) {
         super(context);
@@ -100,225 +320,1371 @@ public class LoadMoreRecyclerView extends RecyclerView {
             @Override
             public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
                 super.onScrollStateChanged(recyclerView, newState);
+                if (newState == SCROLL_STATE_DRAGGING) {
+                    // 用户已经开始滑动，不再恢复之前的滚动位置
+                    mPendingAnchor = null;
+                } else if (newState == SCROLL_STATE_IDLE) {
+                    if (mPrefetchPolicy != null) {
+                        mPrefetchPolicy.onScrollIdle();
+                    }
+                    dispatchVisibleRange();
+                    trimPages();
+                    // 兜底检查，正常情况下由footer、header或阈值位置的item attach时触发加载
+                    checkLoadMore();
+                    checkLoadPrevious();
+                }
             }
 
             @Override
             public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
                 super.onScrolled(recyclerView, dx, dy);
-                if (mEnableAutoLoadMore && !mIsLoadingMore && dy >= 0 && mListener != null) {
-                    int lastVisPos = ((LinearLayoutManager) getLayoutManager()).findLastVisibleItemPosition();
-                    if (lastVisPos + 1 == mAutoLoadAdapter.getItemCount() && mLoadType == LOAD_TYPE_AUTO) {
-                        mIsLoadingMore = true;
-                        mLastPosition = lastVisPos;
-                        mListener.onLoadMore();
-                    }
+                if (mPrefetchPolicy != null) {
+                    mPrefetchPolicy.onScrolled(dy, SystemClock.uptimeMillis());
+                }
+                // 按item数量的预加载在item attach时触发，这里只处理按像素距离的预加载，不再每帧查找最后一个可见item
+                if (dy > 0 && canAutoLoadMore() && reachPrefetchDistance()) {
+                    loadMore();
+                } else if (dy < 0 && canLoadPrevious() && reachPreviousPrefetchDistance()) {
+                    loadPrevious();
                 }
             }
         });
     }
 
     /**
-     * 设置是否支持自动加载更多
-     * @param autoLoadMoreEnable
+     * 当前是否可以自动加载更多
      */
-    public void setLoadMoreEnable(boolean autoLoadMoreEnable) {
-        mEnableAutoLoadMore = autoLoadMoreEnable;
+    private boolean canAutoLoadMore() {
+        return mEnableAutoLoadMore && !mIsLoadingMore && !mLoadMoreFailed && mListener != null
+                && mLoadType == LOAD_TYPE_AUTO && mAutoLoadAdapter != null;
     }
 
     /**
-     * 设置将加载方式，是自动加载还是手动加载
+     * 完整检查一次是否需要加载更多，会查找最后一个可见item，不在每帧的滑动回调中调用
      */
-    public void setLoadType(int loadType) {
-        mLoadType = loadType;
+    private void checkLoadMore() {
+        if (canAutoLoadMore()) {
+            int lastVisPos = LayoutManagerHelper.findLastVisibleItemPosition(getLayoutManager());
+            if (reachPrefetchItemCount(lastVisPos) || reachPrefetchDistance()) {
+                loadMore();
+            }
+        } else if (mMetricsListener != null && isAutoLoadMoreBlocked()) {
+            if (reachPrefetchItemCount(LayoutManagerHelper.findLastVisibleItemPosition(getLayoutManager()))) {
+                dispatchBlockedTrigger();
+            }
+        }
     }
 
     /**
-     * 设置正在加载更多
-     * @param loadingMore
+     * 自动加载更多是否因为正在加载或者失败后等待重试而暂时不能触发
      */
-    public void setLoadingMore(boolean loadingMore) {
-        mIsLoadingMore = loadingMore;
+    private boolean isAutoLoadMoreBlocked() {
+        return mEnableAutoLoadMore && (mIsLoadingMore || mLoadMoreFailed) && mListener != null
+                && mLoadType == LOAD_TYPE_AUTO && mAutoLoadAdapter != null;
     }
 
-    @Override
-    public void setAdapter(Adapter adapter) {
-        if (adapter != null) {
-            mAutoLoadAdapter = new AutoLoadAdapter(adapter);
-            adapter.registerAdapterDataObserver(new AdapterDataObserver() {
-                @Override
-                public void onChanged() {
-                    mAutoLoadAdapter.notifyDataSetChanged();
-                }
-
-                @Override
-                public void onItemRangeChanged(int positionStart, int itemCount) {
-                    mAutoLoadAdapter.notifyItemRangeChanged(positionStart, itemCount);
-                }
-
-                @Override
-                public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
-                    mAutoLoadAdapter.notifyItemRangeChanged(positionStart, itemCount, payload);
-                }
-
-                @Override
-                public void onItemRangeInserted(int positionStart, int itemCount) {
-                    mAutoLoadAdapter.notifyItemRangeInserted(positionStart, itemCount);
-                }
-
-                @Override
-                public void onItemRangeRemoved(int positionStart, int itemCount) {
-                    mAutoLoadAdapter.notifyItemRangeRemoved(positionStart, itemCount);
-                }
+    /**
+     * 在下一帧检查是否需要加载更多，多次调用会合并为一次
+     */
+    private void postCheckLoadMore() {
+        removeCallbacks(mCheckLoadMoreRunnable);
+        post(mCheckLoadMoreRunnable);
+    }
 
-                @Override
-                public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
-                    mAutoLoadAdapter.notifyItemRangeChanged(fromPosition, toPosition, itemCount);
-                }
-            });
+    /**
+     * 开始加载更多
+     */
+    private void loadMore() {
+        mIsLoadingMore = true;
+        mLastPosition = mAutoLoadAdapter.getItemCount() - 1;
+        if (mPrefetchPolicy != null) {
+            mPrefetchPolicy.onLoadStarted(SystemClock.uptimeMillis());
         }
-        super.swapAdapter(mAutoLoadAdapter, true);
+        dispatchLoadTriggered();
+        updateFrameMonitor();
+        mListener.onLoadMore();
     }
 
     /**
-     * 设置加载更多的监听
-     * @param listener
+     * 某个位置是否已经到了按item数量预加载的阈值
+     * @param position item的位置
      */
-    public void setLoadMoreListener(LoadMoreListener listener) {
-        mListener = listener;
+    private boolean reachPrefetchItemCount(int position) {
+        int footerPosition = mAutoLoadAdapter.getItemCount() - 1;
+        return position != NO_POSITION && position + mPrefetchItemCount >= footerPosition;
     }
 
     /**
-     * 通知更多数据已经加载完毕
-     * @param hasMore 是否还有更多
+     * 是否已经到了按像素距离预加载的阈值
      */
-    public void notifyMoreFinish(boolean hasMore) {
-        setLoadMoreEnable(hasMore);
-        if (mLoadType == LOAD_TYPE_AUTO) {
-            getAdapter().notifyItemRemoved(mLastPosition);
-        } else {
-            getAdapter().notifyItemChanged(mLastPosition + 1);
-            // 每次加载完成之后添加了Data数据，用notifyItemRemoved来刷新列表展示，而不是用notifyDataSetChanged来刷新列表
-            // getAdapter().notifyDataSetChanged();
+    private boolean reachPrefetchDistance() {
+        int prefetchDistance = mPrefetchDistance;
+        if (mPrefetchPolicy != null) {
+            // 默认最多提前三屏
+            prefetchDistance = Math.max(prefetchDistance, mPrefetchPolicy.getPrefetchDistance(getHeight() * 3));
         }
-        mIsLoadingMore = false;
+        if (prefetchDistance > 0) {
+            int remainDistance = computeVerticalScrollRange() - computeVerticalScrollOffset()
+                    - computeVerticalScrollExtent();
+            return remainDistance <= prefetchDistance;
+        }
+        return false;
     }
 
     /**
-     * 设置是否使用图片动画
-     * @param usePictureAnim
+     * 当前是否可以加载上一页
      */
-    public void setUsePictureAnim(boolean usePictureAnim) {
-        this.mPictureAnim = usePictureAnim;
+    private boolean canLoadPrevious() {
+        return mEnableLoadPrevious && !mIsLoadingPrevious && mLoadPreviousListener != null
+                && mAutoLoadAdapter != null;
     }
 
     /**
-     * 处理回调，使loadmore显示和whorlView隐藏
+     * 完整检查一次是否需要加载上一页
      */
-    public void handleCallback() {
-        mWhorlView.setVisibility(GONE);
-        mHintText.setVisibility(VISIBLE);
+    private void checkLoadPrevious() {
+        if (canLoadPrevious()) {
+            int firstVisPos = LayoutManagerHelper.findFirstVisibleItemPosition(getLayoutManager());
+            if (reachPreviousPrefetchItemCount(firstVisPos) || reachPreviousPrefetchDistance()) {
+                loadPrevious();
+            }
+        }
     }
 
     /**
-     * 加载更多监听器
+     * 开始加载上一页
      */
-    public interface LoadMoreListener {
-        /**
-         * 加载更多
-         */
-        void onLoadMore();
+    private void loadPrevious() {
+        mIsLoadingPrevious = true;
+        mLoadPreviousListener.onLoadPrevious();
     }
 
     /**
-     * 自动加载的适配器
+     * 某个位置是否已经到了加载上一页的item数量阈值，header的位置固定为0
+     * @param position item的位置
      */
-    public class AutoLoadAdapter extends Adapter<ViewHolder> {
+    private boolean reachPreviousPrefetchItemCount(int position) {
+        return position != NO_POSITION && position <= mPrefetchItemCount;
+    }
 
-        private Adapter mInternalAdapter;
+    /**
+     * 是否已经到了加载上一页的像素距离阈值
+     */
+    private boolean reachPreviousPrefetchDistance() {
+        return mPrefetchDistance > 0 && computeVerticalScrollOffset() <= mPrefetchDistance;
+    }
 
-        public AutoLoadAdapter(Adapter adapter) {
-            mInternalAdapter = adapter;
+    /**
+     * 分页窗口模式下，移除超出最大页数并且已经完全离开屏幕的页
+     * <p>
+     * 顶部的页被移除后会打开加载上一页，底部的页被移除后会打开加载更多，用户滑回去时通过对应的监听重新加载
+     */
+    private void trimPages() {
+        if (mMaxPages <= 0 || mPageEvictListener == null || mAutoLoadAdapter == null
+                || mPageWindow.getPageCount() <= mMaxPages) {
+            return;
         }
-
-        @Override
-        public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
-            if (viewType == ITEM_VIEW_TYPE_FOOTER) {
-                if (mPictureAnim) {
-                    return new FooterViewHolder(LayoutInflater.from(parent.getContext())
-                            .inflate(R.layout.loadmore_recycler_footer_usepic, parent, false));
-                } else if (mLoadType == LOAD_TYPE_AUTO)
-                    return new FooterViewHolder(LayoutInflater.from(parent.getContext())
-                            .inflate(R.layout.loadmore_recycler_footer_auto, parent, false));
-                else {
-                    return new FooterViewHolder(LayoutInflater.from(parent.getContext())
-                            .inflate(R.layout.loadmore_recycler_footer_manual, parent, false));
-                }
-            } else {
-                return mInternalAdapter.onCreateViewHolder(parent, viewType);
+        // 使用adapter position，即使还有未完成布局的数据变化也是准确的
+        int firstPosition = NO_POSITION;
+        int lastPosition = NO_POSITION;
+        for (int i = 0; i < getChildCount(); i++) {
+            int position = getChildViewHolder(getChildAt(i)).getAdapterPosition();
+            if (position == NO_POSITION) {
+                continue;
             }
+            if (firstPosition == NO_POSITION || position < firstPosition) {
+                firstPosition = position;
+            }
+            lastPosition = Math.max(lastPosition, position);
         }
-
-        @Override
-        public int getItemCount() {
-            int count = mInternalAdapter.getItemCount();
-            return mEnableAutoLoadMore ? ++count : count;
+        if (firstPosition == NO_POSITION) {
+            return;
         }
-
-        @Override
-        public void onBindViewHolder(ViewHolder holder, int position) {
-            int type = getItemViewType(position);
-            if (type != ITEM_VIEW_TYPE_FOOTER) {
-                mInternalAdapter.onBindViewHolder(holder, position);
+        // 额外保留预加载的距离，避免刚移除的页马上又被加载回来；没有对应的加载监听时移除的页无法再加载回来，不移除这一侧的页
+        while (mPageWindow.getPageCount() > mMaxPages && !mIsLoadingPrevious && mLoadPreviousListener != null
+                && firstPosition - getHeaderCount() >= mPageWindow.getFirstPageSize() + mPrefetchItemCount) {
+            int headerCount = getHeaderCount();
+            int size = mPageWindow.removeFirstPage();
+            mPageEvictListener.onEvictFirstPage(size);
+            mNotifiedItemCount -= size;
+            getAdapter().notifyItemRangeRemoved(headerCount, size);
+            firstPosition -= size;
+            lastPosition -= size;
+            if (!mEnableLoadPrevious) {
+                mEnableLoadPrevious = true;
+                getAdapter().notifyItemInserted(0);
+                firstPosition++;
+                lastPosition++;
             }
         }
-
-        @Override
-        public int getItemViewType(int position) {
-            int footerPosition = getItemCount() - 1;
-            if (footerPosition == position && mEnableAutoLoadMore) {
-                return ITEM_VIEW_TYPE_FOOTER;
-            } else {
-                return ITEM_VIEW_TYPE_LIST;
+        while (mPageWindow.getPageCount() > mMaxPages && !mIsLoadingMore && mListener != null
+                && lastPosition - getHeaderCount() + mPrefetchItemCount
+                < mPageWindow.getItemCount() - mPageWindow.getLastPageSize()) {
+            int size = mPageWindow.removeLastPage();
+            mPageEvictListener.onEvictLastPage(size);
+            mNotifiedItemCount -= size;
+            int positionStart = getHeaderCount() + mPageWindow.getItemCount();
+            getAdapter().notifyItemRangeRemoved(positionStart, size);
+            if (!mEnableAutoLoadMore) {
+                mEnableAutoLoadMore = true;
+                getAdapter().notifyItemInserted(positionStart);
             }
         }
+    }
 
-        /**
-         * 自动加载更多布局holder
-         */
-        class FooterViewHolder extends ViewHolder {
-
-            private FooterViewHolder(View itemView) {
-                super(itemView);
-                if (mPictureAnim) {
-                    // 使用图片动画
-                    ImageView image = (ImageView) itemView.findViewById(R.id.loadmore_recycler_footer_image);
-                    image.setBackgroundResource(R.drawable.loadmore_recycler_footer_anim_list);
-                    AnimationDrawable animationDrawable = (AnimationDrawable) image.getBackground();
-                    animationDrawable.start();
-                } else {
-                    if (mLoadType == LOAD_TYPE_AUTO) {
-                        // 不使用图片动画自动加载更多
-                        WhorlView whorlView = (WhorlView) itemView.findViewById(R.id.loadmore_recycler_footer_whorl);
-                        whorlView.start();
-                    } else {
-                        // 不使用图片动画手动加载更多
-                        mWhorlView = (WhorlView) itemView.findViewById(R.id.loadmore_recycler_footer_whorl);
-                        mWhorlView.start();
-                        mHintText = (TextView) itemView.findViewById(R.id.loadmore_recycler_footer_hint);
-                        mHintText.setOnClickListener(new OnClickListener() {
-                            @Override
-                            public void onClick(View v) {
-                                if (!mIsLoadingMore) {
-                                    mIsLoadingMore = true;
-                                    mWhorlView.setVisibility(VISIBLE);
-                                    mHintText.setVisibility(GONE);
-                                    mListener.onLoadMore();
-                                }
-                            }
-                        });
-                    }
-                }
+    /**
+     * 业务adapter的数据被整体替换后，重新按一页开始记录
+     */
+    void resetPageWindow() {
+        mPageWindow.reset(mAutoLoadAdapter != null ? mAutoLoadAdapter.getInnerItemCount() : 0);
+    }
+
+    /**
+     * header的数量，允许加载上一页时为1
+     */
+    private int getHeaderCount() {
+        return mEnableLoadPrevious ? 1 : 0;
+    }
+
+    /**
+     * 设置是否支持自动加载更多
+     * @param autoLoadMoreEnable
+     */
+    public void setLoadMoreEnable(boolean autoLoadMoreEnable) {
+        mEnableAutoLoadMore = autoLoadMoreEnable;
+    }
+
+    /**
+     * 设置是否支持加载上一页，需要在setAdapter之前或者数据没有变化时调用，加载完成后使用{@link #notifyPreviousFinish(int, boolean)}
+     * @param loadPreviousEnable
+     */
+    public void setLoadPreviousEnable(boolean loadPreviousEnable) {
+        mEnableLoadPrevious = loadPreviousEnable;
+    }
+
+    /**
+     * 设置正在加载上一页
+     * @param loadingPrevious
+     */
+    public void setLoadingPrevious(boolean loadingPrevious) {
+        mIsLoadingPrevious = loadingPrevious;
+    }
+
+    /**
+     * 设置加载上一页的监听
+     * @param listener
+     */
+    public void setLoadPreviousListener(LoadPreviousListener listener) {
+        mLoadPreviousListener = listener;
+    }
+
+    /**
+     * 打开分页窗口模式，列表中最多保留maxPages页数据，超出时移除离屏幕较远的页，保证一直滑动时内存不会持续增长
+     * <p>
+     * 需要配合{@link #notifyMoreFinish(boolean)}和{@link #notifyPreviousFinish(int, boolean)}使用，每次调用视为加载了一页。
+     * 被移除的页在用户滑回去时会通过{@link LoadMoreListener}和{@link LoadPreviousListener}重新加载，
+     * 只有设置了对应的监听时才会移除那一侧的页，例如只能向后加载的列表不会移除前面的页。
+     * @param maxPages 最多保留的页数，0表示关闭
+     * @param listener 移除页的监听，业务需要在回调中移除对应的数据
+     */
+    public void setMaxPages(int maxPages, PageEvictListener listener) {
+        mMaxPages = Math.max(0, maxPages);
+        mPageEvictListener = listener;
+        if (mAutoLoadAdapter != null && mPageWindow.getPageCount() == 0) {
+            mPageWindow.reset(mAutoLoadAdapter.getInnerItemCount());
+        }
+    }
+
+    /**
+     * 设置将加载方式，是自动加载还是手动加载
+     */
+    public void setLoadType(int loadType) {
+        mLoadType = loadType;
+        invalidateFooterViewTypes();
+    }
+
+    /**
+     * 设置预加载的item数量，距离footer还剩itemCount个item时就触发加载更多，只对自动加载有效
+     * @param itemCount 默认为0，即footer出现时才加载
+     */
+    public void setPrefetchItemCount(int itemCount) {
+        mPrefetchItemCount = Math.max(0, itemCount);
+    }
+
+    /**
+     * 设置预加载的像素距离，距离列表底部还剩distance像素时就触发加载更多，只对自动加载有效
+     * @param distance 单位px，默认为0即不按像素距离预加载
+     */
+    public void setPrefetchDistance(int distance) {
+        mPrefetchDistance = Math.max(0, distance);
+    }
+
+    /**
+     * 设置自适应预加载策略，根据滑动速度和加载耗时动态调整预加载距离，只对自动加载有效
+     * @param policy 为null时关闭自适应预加载
+     */
+    public void setPrefetchPolicy(AdaptivePrefetchPolicy policy) {
+        mPrefetchPolicy = policy;
+    }
+
+    /**
+     * 设置正在加载更多
+     * @param loadingMore
+     */
+    public void setLoadingMore(boolean loadingMore) {
+        mIsLoadingMore = loadingMore;
+        updateLoadingAnimations();
+    }
+
+    /**
+     * 当前加载的代数，在onLoadMore中记录下来，加载完成时传给{@link #notifyMoreFinish(int, boolean)}
+     */
+    public int getLoadGeneration() {
+        return mLoadGeneration;
+    }
+
+    /**
+     * 某一代的加载结果是否仍然有效，无效时业务不应该再把数据添加到adapter中
+     * @param generation 发起加载时{@link #getLoadGeneration()}的值
+     */
+    public boolean isCurrentLoadGeneration(int generation) {
+        return generation == mLoadGeneration;
+    }
+
+    /**
+     * 取消所有正在进行的加载，之前发起的加载结果都会被{@link #notifyMoreFinish(int, boolean)}忽略，setAdapter时会自动调用
+     */
+    public void cancelLoads() {
+        mLoadGeneration++;
+        mIsLoadingMore = false;
+        mIsLoadingPrevious = false;
+        mLoadStartTime = -1;
+        clearLoadMoreFailure();
+        removeCallbacks(mCheckLoadMoreRunnable);
+        updateLoadingAnimations();
+    }
+
+    @Override
+    public void setAdapter(Adapter adapter) {
+        cancelLoads();
+        cancelWarmUp();
+        // 移除旧的业务adapter上的监听，否则旧的包装adapter会一直被引用并继续收到通知
+        unregisterDataObserver();
+        mInnerAdapter = adapter;
+        mDataObserver = null;
+        mAutoLoadAdapter = null;
+        if (adapter != null) {
+            mAutoLoadAdapter = new AutoLoadAdapter(adapter);
+            mDataObserver = new ForwardingDataObserver(mAutoLoadAdapter) {
+                @Override
+                protected int getPositionOffset() {
+                    return getHeaderCount();
+                }
+
+                @Override
+                public void onChanged() {
+                    mNotifiedItemCount = mAutoLoadAdapter.getInnerItemCount();
+                    super.onChanged();
+                    applyPendingAnchor();
+                }
+
+                @Override
+                public void onItemRangeInserted(int positionStart, int itemCount) {
+                    mNotifiedItemCount += itemCount;
+                    super.onItemRangeInserted(positionStart, itemCount);
+                    applyPendingAnchor();
+                }
+
+                @Override
+                public void onItemRangeRemoved(int positionStart, int itemCount) {
+                    mNotifiedItemCount -= itemCount;
+                    super.onItemRangeRemoved(positionStart, itemCount);
+                }
+            };
+            registerDataObserver();
+        }
+        super.swapAdapter(mAutoLoadAdapter, true);
+        mNotifiedItemCount = adapter != null ? adapter.getItemCount() : 0;
+        mPageWindow.reset(mNotifiedItemCount);
+        LayoutManagerHelper.setupFullSpan(getLayoutManager(), mFullSpanLookup);
+        applyPendingAnchor();
+    }
+
+    /**
+     * 设置RecycledViewPool，使用{@link SharedRecycledViewPool}时可以和其他列表共用holder，需要在setAdapter之前调用
+     */
+    @Override
+    public void setRecycledViewPool(RecycledViewPool pool) {
+        super.setRecycledViewPool(pool);
+        invalidateFooterViewTypes();
+    }
+
+    @Override
+    public void setLayoutManager(LayoutManager layout) {
+        super.setLayoutManager(layout);
+        LayoutManagerHelper.setupFullSpan(layout, mFullSpanLookup);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mReportAttachedViews = true;
+        SharedRecycledViewPool sharedPool = getSharedPool();
+        if (sharedPool != null) {
+            sharedPool.onListAttachStateChanged(this, true);
+        }
+        if (mDataObserver != null && !mDataObserverRegistered) {
+            registerDataObserver();
+            // detach期间业务adapter的通知都没有收到，整体刷新一次
+            int itemCount = mInnerAdapter.getItemCount();
+            if (itemCount != mNotifiedItemCount) {
+                // 数量变了才无法知道每一页的边界；ViewPager切换等只是离开界面时保留分页窗口，否则回来后不会再移除页
+                mNotifiedItemCount = itemCount;
+                mPageWindow.reset(itemCount);
+            }
+            mAutoLoadAdapter.notifyDataSetChanged();
+        }
+        scheduleRetry();
+        updateFrameMonitor();
+        if (mAutoLoadAdapter != null) {
+            for (int i = 0; i < mAutoLoadAdapter.mAttachedFooters.size(); i++) {
+                updateFooterShown(mAutoLoadAdapter.mAttachedFooters.get(i));
+            }
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        // setRecycleChildrenOnDetach时super中已经回收了屏幕上的holder，剩下的在这里减掉
+        SharedRecycledViewPool sharedPool = getSharedPool();
+        if (sharedPool != null) {
+            sharedPool.onListAttachStateChanged(this, false);
+        }
+        mReportAttachedViews = false;
+        removeCallbacks(mCheckLoadMoreRunnable);
+        removeCallbacks(mRetryRunnable);
+        removeCallbacks(mVisibleRangeRunnable);
+        mVisibleRangePending = false;
+        cancelWarmUp();
+        // 离开界面时footer的detach回调不会调用，这里结束footer的显示时长
+        dispatchFooterHidden();
+        stopFrameMonitor();
+        // 列表已经不在界面上，不再监听业务adapter，避免业务adapter比列表活得久时引用整个列表
+        unregisterDataObserver();
+    }
+
+    /**
+     * 使用的pool不是{@link SharedRecycledViewPool}时返回null
+     */
+    private SharedRecycledViewPool getSharedPool() {
+        RecycledViewPool pool = getRecycledViewPool();
+        return pool instanceof SharedRecycledViewPool ? (SharedRecycledViewPool) pool : null;
+    }
+
+    private void registerDataObserver() {
+        if (mInnerAdapter != null && mDataObserver != null && !mDataObserverRegistered) {
+            mInnerAdapter.registerAdapterDataObserver(mDataObserver);
+            mDataObserverRegistered = true;
+        }
+    }
+
+    private void unregisterDataObserver() {
+        if (mInnerAdapter != null && mDataObserver != null && mDataObserverRegistered) {
+            mInnerAdapter.unregisterAdapterDataObserver(mDataObserver);
+            mDataObserverRegistered = false;
+        }
+    }
+
+    /**
+     * 在主线程空闲时预先创建footer和每种item类型countPerType个holder放入RecycledViewPool，
+     * 第一次出现footer或者新的一页数据出现时不需要在那一帧inflate布局
+     * <p>
+     * 需要在setAdapter、setLoadType和setFooterRenderer之后调用，重新setAdapter或者列表离开界面时停止
+     * @param countPerType 每种item类型创建的数量，一般为一屏能显示的数量
+     * @param viewTypes 业务adapter的item类型
+     */
+    public void warmUpViewHolders(int countPerType, int... viewTypes) {
+        cancelWarmUp();
+        if (mAutoLoadAdapter == null) {
+            return;
+        }
+        int[] types = new int[viewTypes.length + 2];
+        int[] counts = new int[types.length];
+        types[0] = getFooterViewType(false);
+        counts[0] = mEnableAutoLoadMore ? 1 : 0;
+        types[1] = getFooterViewType(true);
+        counts[1] = mEnableLoadPrevious ? 1 : 0;
+        for (int i = 0; i < viewTypes.length; i++) {
+            types[i + 2] = mAutoLoadAdapter.checkInnerViewType(viewTypes[i]);
+            counts[i + 2] = countPerType;
+        }
+        mWarmUp = new ViewHolderWarmUp(this, mAutoLoadAdapter, types, counts);
+        mWarmUp.start();
+    }
+
+    private void cancelWarmUp() {
+        if (mWarmUp != null) {
+            mWarmUp.cancel();
+            mWarmUp = null;
+        }
+    }
+
+    /**
+     * 设置按item类型统计创建和绑定耗时的工具，加载更多期间同时统计掉帧
+     * @param profiler 为null时关闭统计
+     */
+    public void setAdapterProfiler(AdapterProfiler profiler) {
+        stopFrameMonitor();
+        mProfiler = profiler;
+        updateFrameMonitor();
+    }
+
+    /**
+     * 正在加载更多并且显示在界面上时统计帧耗时
+     */
+    private void updateFrameMonitor() {
+        if (mProfiler != null && mIsLoadingMore && getWindowToken() != null) {
+            if (!mFrameMonitoring) {
+                mFrameMonitoring = true;
+                mProfiler.startFrameMonitor();
+            }
+        } else {
+            stopFrameMonitor();
+        }
+    }
+
+    private void stopFrameMonitor() {
+        if (mFrameMonitoring) {
+            mFrameMonitoring = false;
+            mProfiler.stopFrameMonitor();
+        }
+    }
+
+    /**
+     * 设置加载更多的监听
+     * @param listener
+     */
+    public void setLoadMoreListener(LoadMoreListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * 通知更多数据已经加载完毕，如果加载已经被取消（例如下拉刷新时重新setAdapter），忽略这次结果
+     * @param generation 发起加载时{@link #getLoadGeneration()}的值
+     * @param hasMore 是否还有更多
+     */
+    public void notifyMoreFinish(int generation, boolean hasMore) {
+        if (isCurrentLoadGeneration(generation)) {
+            notifyMoreFinish(hasMore);
+        }
+    }
+
+    /**
+     * 通知更多数据已经加载完毕
+     * <p>
+     * 业务把新的一页数据添加到adapter数据的末尾（不要调用adapter的notify方法）之后调用，
+     * 这里根据数据数量的变化计算出准确的插入范围，只插入新的数据，不会重新绑定已有的item
+     * @param hasMore 是否还有更多
+     */
+    public void notifyMoreFinish(boolean hasMore) {
+        int itemCount = mAutoLoadAdapter.getInnerItemCount() - mNotifiedItemCount;
+        if (itemCount < 0) {
+            // 业务移除了数据却没有通知，无法计算范围，只能整体刷新
+            if (mPrefetchPolicy != null) {
+                mPrefetchPolicy.onLoadFinished(SystemClock.uptimeMillis());
+            }
+            mNotifiedItemCount = mAutoLoadAdapter.getInnerItemCount();
+            mPageWindow.reset(mNotifiedItemCount);
+            setLoadMoreEnable(hasMore);
+            getAdapter().notifyDataSetChanged();
+            applyPendingAnchor();
+            mIsLoadingMore = false;
+            clearLoadMoreFailure();
+            if (mMetricsListener != null) {
+                mMetricsListener.onPageLoaded(0, takeLoadLatency());
+            }
+            updateLoadingAnimations();
+            return;
+        }
+        notifyPageAppended(itemCount, hasMore);
+    }
+
+    /**
+     * 通知新的一页数据已经添加到了adapter数据的末尾，按准确的范围通知插入，并根据hasMore添加或移除footer
+     * @param itemCount 添加到末尾且还没有通知过的数据数量
+     * @param hasMore 是否还有更多
+     */
+    public void notifyPageAppended(int itemCount, boolean hasMore) {
+        appendPage(itemCount, hasMore, true);
+    }
+
+    /**
+     * 没有加载到新的一页，只按hasMore添加或移除footer，例如刷新替换数据之后或者已经没有下一页时，不计入页的统计
+     */
+    void notifyHasMore(boolean hasMore) {
+        appendPage(0, hasMore, false);
+    }
+
+    /**
+     * @param pageLoaded 是否真的加载了一页，为false时不通知onPageLoaded
+     */
+    private void appendPage(int itemCount, boolean hasMore, boolean pageLoaded) {
+        if (mPrefetchPolicy != null) {
+            mPrefetchPolicy.onLoadFinished(SystemClock.uptimeMillis());
+        }
+        boolean hadFooter = mEnableAutoLoadMore;
+        int positionStart = getHeaderCount() + mNotifiedItemCount;
+        mNotifiedItemCount += itemCount;
+        mPageWindow.appendPage(itemCount);
+        if (itemCount > 0) {
+            getAdapter().notifyItemRangeInserted(positionStart, itemCount);
+            applyPendingAnchor();
+        }
+        mEnableAutoLoadMore = hasMore;
+        if (hadFooter && !hasMore) {
+            getAdapter().notifyItemRemoved(positionStart + itemCount);
+        } else if (!hadFooter && hasMore) {
+            getAdapter().notifyItemInserted(positionStart + itemCount);
+        }
+        mIsLoadingMore = false;
+        clearLoadMoreFailure();
+        long latency = takeLoadLatency();
+        if (mMetricsListener != null && pageLoaded) {
+            mMetricsListener.onPageLoaded(itemCount, latency);
+        }
+        updateLoadingAnimations();
+        postCheckLoadMore();
+    }
+
+    /**
+     * 通知加载更多失败，如果加载已经被取消，忽略这次结果
+     * @param generation 发起加载时{@link #getLoadGeneration()}的值
+     * @param error 失败的原因
+     */
+    public void notifyMoreFailed(int generation, Throwable error) {
+        if (isCurrentLoadGeneration(generation)) {
+            notifyMoreFailed(error);
+        }
+    }
+
+    /**
+     * 通知加载更多失败，footer显示加载失败，设置了{@link RetryPolicy}时按策略延迟后自动重试，用户也可以点击footer立即重试
+     * <p>
+     * 失败后滑动列表不会再触发加载，避免服务端故障时每滑动一下就发出一次请求；加载成功或者cancelLoads后恢复
+     * @param error 失败的原因
+     */
+    public void notifyMoreFailed(Throwable error) {
+        if (mPrefetchPolicy != null) {
+            mPrefetchPolicy.onLoadFailed();
+        }
+        mIsLoadingMore = false;
+        mLoadMoreFailed = true;
+        mLoadMoreError = error;
+        mFailureCount++;
+        if (mMetricsListener != null) {
+            mMetricsListener.onLoadFailed(takeLoadLatency());
+        }
+        updateLoadingAnimations();
+        scheduleRetry();
+    }
+
+    /**
+     * 上一次加载更多是否失败，并且还没有重试
+     */
+    public boolean isLoadMoreFailed() {
+        return mLoadMoreFailed;
+    }
+
+    /**
+     * 最近一次加载更多失败的原因，加载成功后为null
+     */
+    public Throwable getLoadMoreError() {
+        return mLoadMoreError;
+    }
+
+    /**
+     * 加载更多失败后立即重试，没有失败时不做任何事
+     */
+    public void retryLoadMore() {
+        removeCallbacks(mRetryRunnable);
+        if (!mLoadMoreFailed || mIsLoadingMore || !mEnableAutoLoadMore || mListener == null
+                || mAutoLoadAdapter == null) {
+            return;
+        }
+        mLoadMoreFailed = false;
+        loadMore();
+        updateLoadingAnimations();
+    }
+
+    /**
+     * 设置加载更多失败后的自动重试策略，手动加载模式下不会自动重试
+     * @param policy 默认为null，即不自动重试，只能点击footer重试；传入new RetryPolicy()使用默认的重试间隔
+     */
+    public void setRetryPolicy(RetryPolicy policy) {
+        mRetryPolicy = policy;
+    }
+
+    /**
+     * 打开占位模式：业务adapter一开始就返回数据总数，还没有加载的位置绑定占位，一般配合{@link PositionalLoader}使用
+     * <p>
+     * 列表停止绑定item一段时间后（包括滑动停止、scrollToPosition之后）回调当前的可见范围，业务只加载可见范围内缺少的页，
+     * 快速滑动经过的位置不会加载。占位模式下不使用加载更多的footer
+     * @param listener 为null时关闭占位模式
+     */
+    public void setPlaceholderListener(PlaceholderListener listener) {
+        mPlaceholderListener = listener;
+        if (listener == null) {
+            removeCallbacks(mVisibleRangeRunnable);
+            mVisibleRangePending = false;
+        }
+    }
+
+    /**
+     * 占位模式下绑定了业务item，推迟回调可见范围
+     */
+    private void onInnerItemBound() {
+        mLastBindTime = SystemClock.uptimeMillis();
+        if (!mVisibleRangePending) {
+            // 每次绑定只记录时间，不重复post，快速滑动时不会产生大量消息
+            mVisibleRangePending = true;
+            postDelayed(mVisibleRangeRunnable, PLACEHOLDER_DEBOUNCE);
+        }
+    }
+
+    /**
+     * 回调当前可见的业务数据范围
+     */
+    private void dispatchVisibleRange() {
+        if (mPlaceholderListener == null || mAutoLoadAdapter == null) {
+            return;
+        }
+        int itemCount = mAutoLoadAdapter.getInnerItemCount();
+        int firstPosition = LayoutManagerHelper.findFirstVisibleItemPosition(getLayoutManager());
+        int lastPosition = LayoutManagerHelper.findLastVisibleItemPosition(getLayoutManager());
+        if (itemCount == 0 || firstPosition == NO_POSITION || lastPosition == NO_POSITION) {
+            return;
+        }
+        int headerCount = getHeaderCount();
+        firstPosition = Math.max(0, Math.min(firstPosition - headerCount, itemCount - 1));
+        lastPosition = Math.max(firstPosition, Math.min(lastPosition - headerCount, itemCount - 1));
+        mPlaceholderListener.onVisibleRangeChanged(firstPosition, lastPosition);
+    }
+
+    /**
+     * 设置保存和恢复业务翻页位置的监听，进程被杀后恢复时从原来的页继续加载
+     * @param listener 为null时不保存翻页位置
+     */
+    public void setPagingStateListener(PagingStateListener listener) {
+        mPagingStateListener = listener;
+    }
+
+    /**
+     * 保存加载更多的开关、加载方式、业务的翻页位置和第一个可见item的stable id及偏移
+     */
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        LoadMoreSavedState state = new LoadMoreSavedState(super.onSaveInstanceState());
+        state.mHasMore = mEnableAutoLoadMore;
+        state.mLoadPreviousEnabled = mEnableLoadPrevious;
+        state.mLoadType = mLoadType;
+        state.mLastPosition = mLastPosition;
+        if (mPagingStateListener != null) {
+            state.mCursor = new Bundle();
+            mPagingStateListener.onSavePagingState(state.mCursor);
+        }
+        if (mPendingAnchor != null) {
+            // 上一次恢复的位置还没有加载出来，继续保存原来的位置
+            state.copyAnchor(mPendingAnchor);
+        } else {
+            saveScrollAnchor(state);
+        }
+        return state;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof LoadMoreSavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        LoadMoreSavedState savedState = (LoadMoreSavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+        boolean countChanged = mEnableAutoLoadMore != savedState.mHasMore
+                || mEnableLoadPrevious != savedState.mLoadPreviousEnabled;
+        mEnableAutoLoadMore = savedState.mHasMore;
+        mEnableLoadPrevious = savedState.mLoadPreviousEnabled;
+        mLastPosition = savedState.mLastPosition;
+        if (mLoadType != savedState.mLoadType) {
+            setLoadType(savedState.mLoadType);
+            countChanged = true;
+        }
+        if (countChanged && mAutoLoadAdapter != null) {
+            // footer和header的数量或类型变了，整体刷新一次
+            mAutoLoadAdapter.notifyDataSetChanged();
+        }
+        if (mPagingStateListener != null && savedState.mCursor != null) {
+            mPagingStateListener.onRestorePagingState(savedState.mCursor);
+        }
+        if (savedState.mAnchorPosition != NO_POSITION) {
+            mPendingAnchor = savedState;
+            applyPendingAnchor();
+        }
+    }
+
+    /**
+     * 记录第一个可见item的位置、stable id和顶部的偏移
+     */
+    private void saveScrollAnchor(LoadMoreSavedState state) {
+        int position = LayoutManagerHelper.findFirstVisibleItemPosition(getLayoutManager());
+        int innerPosition = position - getHeaderCount();
+        if (position == NO_POSITION || mAutoLoadAdapter == null || innerPosition < 0
+                || innerPosition >= mAutoLoadAdapter.getInnerItemCount()) {
+            return;
+        }
+        ViewHolder holder = findViewHolderForAdapterPosition(position);
+        if (holder == null) {
+            return;
+        }
+        state.mAnchorPosition = innerPosition;
+        state.mAnchorId = mInnerAdapter.hasStableIds() ? mInnerAdapter.getItemId(innerPosition) : NO_ID;
+        state.mAnchorOffset = getLayoutManager().getDecoratedTop(holder.itemView) - getPaddingTop();
+    }
+
+    /**
+     * 恢复的滚动位置对应的数据已经加载出来时滚动过去
+     */
+    private void applyPendingAnchor() {
+        if (mPendingAnchor == null || mAutoLoadAdapter == null) {
+            return;
+        }
+        int position = mPendingAnchor.findAnchorPosition(mInnerAdapter, mNotifiedItemCount);
+        if (position == NO_POSITION) {
+            return;
+        }
+        int offset = mPendingAnchor.mAnchorOffset;
+        mPendingAnchor = null;
+        LayoutManagerHelper.scrollToPositionWithOffset(getLayoutManager(), position + getHeaderCount(), offset);
+    }
+
+    /**
+     * 设置加载更多的统计回调，可以使用{@link LoadMoreMetrics}汇总
+     * @param listener 为null时不统计
+     */
+    public void setMetricsListener(LoadMoreMetricsListener listener) {
+        mMetricsListener = listener;
+        mLoadStartTime = -1;
+        mFooterShownTime = -1;
+    }
+
+    /**
+     * 触发了一次加载更多，记录开始时间
+     */
+    private void dispatchLoadTriggered() {
+        if (mMetricsListener != null) {
+            mLoadStartTime = SystemClock.uptimeMillis();
+            mMetricsListener.onLoadTriggered();
+        }
+    }
+
+    /**
+     * 到达了加载的位置但没有触发，区分是正在加载还是失败后等待重试
+     */
+    private void dispatchBlockedTrigger() {
+        if (mMetricsListener != null) {
+            if (mIsLoadingMore) {
+                mMetricsListener.onDuplicateTrigger();
+            } else if (mLoadMoreFailed) {
+                mMetricsListener.onTriggerSuppressed();
+            }
+        }
+    }
+
+    /**
+     * 本次加载的耗时，取出后清空开始时间
+     * @return 单位ms，不是由列表触发的加载返回-1
+     */
+    private long takeLoadLatency() {
+        long latency = mLoadStartTime >= 0 ? SystemClock.uptimeMillis() - mLoadStartTime : -1;
+        mLoadStartTime = -1;
+        return latency;
+    }
+
+    /**
+     * footer在屏幕上并且正在加载时开始计时，显示点击加载更多或者失败重试时用户不是在等待加载，结束计时
+     */
+    private void updateFooterShown(FooterViewHolder holder) {
+        if (!holder.isAttached() || holder.getItemViewType() != getFooterViewType(false)) {
+            return;
+        }
+        if (holder.getState() == FooterRenderer.STATE_LOADING) {
+            dispatchFooterShown();
+        } else {
+            dispatchFooterHidden();
+        }
+    }
+
+    private void dispatchFooterShown() {
+        if (mMetricsListener != null && mFooterShownTime < 0) {
+            mFooterShownTime = SystemClock.uptimeMillis();
+        }
+    }
+
+    private void dispatchFooterHidden() {
+        if (mFooterShownTime >= 0) {
+            if (mMetricsListener != null) {
+                mMetricsListener.onFooterVisible(SystemClock.uptimeMillis() - mFooterShownTime);
+            }
+            mFooterShownTime = -1;
+        }
+    }
+
+    /**
+     * 按连续失败的次数安排下一次自动重试，超过最大次数后不再重试
+     */
+    private void scheduleRetry() {
+        removeCallbacks(mRetryRunnable);
+        if (mLoadMoreFailed && mRetryPolicy != null && mLoadType == LOAD_TYPE_AUTO) {
+            long delay = mRetryPolicy.getRetryDelay(mFailureCount);
+            if (delay >= 0) {
+                postDelayed(mRetryRunnable, delay);
+            }
+        }
+    }
+
+    private void clearLoadMoreFailure() {
+        mLoadMoreFailed = false;
+        mLoadMoreError = null;
+        mFailureCount = 0;
+        removeCallbacks(mRetryRunnable);
+    }
+
+    /**
+     * 通知上一页数据已经加载完毕
+     * <p>
+     * 业务需要先把上一页的数据插入到adapter数据的最前面（不要调用adapter的notify方法），再调用此方法。
+     * 这里会用notifyItemRangeInserted通知插入，并修正滚动位置，保证当前看到的内容不跳动，不会触发整个列表重新布局。
+     * @param itemCount 插入到最前面的数据数量
+     * @param hasPrevious 是否还有上一页
+     */
+    public void notifyPreviousFinish(int itemCount, boolean hasPrevious) {
+        int oldHeaderCount = getHeaderCount();
+        // 记录当前第一个可见的数据item及其距离顶部的偏移
+        int anchorPosition = NO_POSITION;
+        int anchorOffset = 0;
+        LayoutManager layoutManager = getLayoutManager();
+        if (layoutManager != null) {
+            for (int i = 0; i < layoutManager.getChildCount(); i++) {
+                View child = layoutManager.getChildAt(i);
+                int position = layoutManager.getPosition(child);
+                if (position >= oldHeaderCount && (anchorPosition == NO_POSITION || position < anchorPosition)) {
+                    anchorPosition = position;
+                    anchorOffset = layoutManager.getDecoratedTop(child) - getPaddingTop();
+                }
+            }
+        }
+        mEnableLoadPrevious = hasPrevious;
+        mNotifiedItemCount += itemCount;
+        mPageWindow.prependPage(itemCount);
+        if (itemCount > 0) {
+            getAdapter().notifyItemRangeInserted(oldHeaderCount, itemCount);
+        }
+        if (oldHeaderCount == 1 && !hasPrevious) {
+            getAdapter().notifyItemRemoved(0);
+        } else if (oldHeaderCount == 0 && hasPrevious) {
+            getAdapter().notifyItemInserted(0);
+        }
+        if (anchorPosition != NO_POSITION) {
+            // header在顶部时，LayoutManager会以header为锚点把新插入的数据显示出来，这里把锚点修正为原来可见的数据item
+            int newAnchorPosition = anchorPosition - oldHeaderCount + getHeaderCount() + itemCount;
+            LayoutManagerHelper.scrollToPositionWithOffset(layoutManager, newAnchorPosition, anchorOffset);
+        }
+        mIsLoadingPrevious = false;
+        postCheckLoadMore();
+    }
+
+    /**
+     * 设置是否使用图片动画
+     * @param usePictureAnim
+     */
+    public void setUsePictureAnim(boolean usePictureAnim) {
+        this.mPictureAnim = usePictureAnim;
+        invalidateFooterViewTypes();
+    }
+
+    /**
+     * 设置自定义的footer，同时用于加载上一页的header，需要在setAdapter之前调用
+     * @param renderer 为null时使用默认的布局文件，见{@link #setUsePictureAnim(boolean)}
+     */
+    public void setFooterRenderer(FooterRenderer renderer) {
+        mFooterRenderer = renderer;
+        invalidateFooterViewTypes();
+    }
+
+    /**
+     * 处理回调，使loadmore显示和whorlView隐藏
+     * <p>
+     * 加载完成时footer的状态已经自动更新，保留这个方法只是为了兼容
+     */
+    public void handleCallback() {
+        updateLoadingAnimations();
+    }
+
+    /**
+     * 加载状态变化后，更新屏幕上header和footer的状态和加载动画
+     */
+    private void updateLoadingAnimations() {
+        if (mAutoLoadAdapter != null) {
+            for (int i = mAutoLoadAdapter.mAttachedFooters.size() - 1; i >= 0; i--) {
+                FooterViewHolder holder = mAutoLoadAdapter.mAttachedFooters.get(i);
+                holder.bindState(mAutoLoadAdapter.getFooterState(holder));
+                updateFooterShown(holder);
+            }
+        }
+        updateFrameMonitor();
+    }
+
+    /**
+     * 没有自定义footer时，按是否使用图片动画和加载类型选择布局文件
+     */
+    private FooterRenderer createFooterRenderer(boolean header) {
+        if (mFooterRenderer != null) {
+            return mFooterRenderer;
+        } else if (mPictureAnim) {
+            return new LayoutFooterRenderer(R.layout.loadmore_recycler_footer_usepic);
+        } else if (header || mLoadType == LOAD_TYPE_AUTO) {
+            return new LayoutFooterRenderer(R.layout.loadmore_recycler_footer_auto);
+        } else {
+            return new LayoutFooterRenderer(R.layout.loadmore_recycler_footer_manual);
+        }
+    }
+
+    /**
+     * footer或header的item类型，共用{@link SharedRecycledViewPool}时同一个renderer在各个列表中使用同一个类型
+     */
+    private int getFooterViewType(boolean header) {
+        if (mFooterViewType == INVALID_TYPE) {
+            RecycledViewPool pool = getRecycledViewPool();
+            if (pool instanceof SharedRecycledViewPool) {
+                SharedRecycledViewPool sharedPool = (SharedRecycledViewPool) pool;
+                mFooterViewType = sharedPool.getFooterViewType(createFooterRenderer(false), false);
+                mHeaderViewType = sharedPool.getFooterViewType(createFooterRenderer(true), true);
+            } else {
+                mFooterViewType = ITEM_VIEW_TYPE_FOOTER;
+                mHeaderViewType = ITEM_VIEW_TYPE_HEADER;
+            }
+        }
+        return header ? mHeaderViewType : mFooterViewType;
+    }
+
+    /**
+     * footer的样式或者RecycledViewPool变化后重新计算footer的item类型
+     */
+    private void invalidateFooterViewTypes() {
+        mFooterViewType = INVALID_TYPE;
+        mHeaderViewType = INVALID_TYPE;
+    }
+
+    /**
+     * 是否是手动加载更多，且还没有点击footer
+     */
+    private boolean isWaitingForClick() {
+        return mLoadType == LOAD_TYPE_MANUAL && !mIsLoadingMore;
+    }
+
+    /**
+     * 加载更多监听器
+     */
+    public interface LoadMoreListener {
+        /**
+         * 加载更多
+         */
+        void onLoadMore();
+    }
+
+    /**
+     * 加载上一页监听器
+     */
+    public interface LoadPreviousListener {
+        /**
+         * 加载上一页
+         */
+        void onLoadPrevious();
+    }
+
+    /**
+     * 占位模式下可见范围的监听
+     */
+    public interface PlaceholderListener {
+        /**
+         * 列表停下来之后可见的数据范围，需要加载其中还没有加载的数据，可能重复回调同一个范围
+         * @param firstPosition 第一个可见的数据位置，不包括header
+         * @param lastPosition 最后一个可见的数据位置
+         */
+        void onVisibleRangeChanged(int firstPosition, int lastPosition);
+    }
+
+    /**
+     * 分页窗口模式下移除页的监听
+     */
+    public interface PageEvictListener {
+        /**
+         * 移除最前面的一页，业务需要从数据的最前面移除itemCount条数据（不要调用adapter的notify方法）
+         * @param itemCount 这一页的数据数量
+         */
+        void onEvictFirstPage(int itemCount);
+
+        /**
+         * 移除最后面的一页，业务需要从数据的最后面移除itemCount条数据（不要调用adapter的notify方法）
+         * @param itemCount 这一页的数据数量
+         */
+        void onEvictLastPage(int itemCount);
+    }
+
+    /**
+     * 自动加载的适配器
+     */
+    public class AutoLoadAdapter extends Adapter<ViewHolder> {
+
+        private Adapter mInternalAdapter;
+
+        /**
+         * 显示在屏幕上的header和footer，加载状态变化时更新它们的状态
+         */
+        private final List<FooterViewHolder> mAttachedFooters = new ArrayList<FooterViewHolder>(2);
+
+        /**
+         * 手动加载更多时点击footer，footer可能来自共用pool的其他列表，每次绑定时重新设置
+         */
+        private final OnClickListener mFooterClickListener = new OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                if (mLoadMoreFailed) {
+                    retryLoadMore();
+                } else if (isWaitingForClick() && mEnableAutoLoadMore && mListener != null) {
+                    mIsLoadingMore = true;
+                    updateLoadingAnimations();
+                    dispatchLoadTriggered();
+                    mListener.onLoadMore();
+                } else {
+                    dispatchBlockedTrigger();
+                }
+            }
+        };
+
+        public AutoLoadAdapter(Adapter adapter) {
+            mInternalAdapter = adapter;
+            // 业务adapter需要在setAdapter之前调用setHasStableIds
+            super.setHasStableIds(adapter.hasStableIds());
+        }
+
+        @Override
+        public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            if (mProfiler == null) {
+                return createHolder(parent, viewType);
+            }
+            long start = System.nanoTime();
+            ViewHolder holder = createHolder(parent, viewType);
+            mProfiler.recordCreate(viewType, System.nanoTime() - start);
+            return holder;
+        }
+
+        private ViewHolder createHolder(ViewGroup parent, int viewType) {
+            if (viewType == getFooterViewType(true)) {
+                return new FooterViewHolder(createFooterRenderer(true), parent);
+            } else if (viewType == getFooterViewType(false)) {
+                return new FooterViewHolder(createFooterRenderer(false), parent);
+            } else {
+                return mInternalAdapter.onCreateViewHolder(parent, viewType);
+            }
+        }
+
+        /**
+         * 业务adapter的数据数量，不包括header和footer
+         */
+        public int getInnerItemCount() {
+            return mInternalAdapter.getItemCount();
+        }
+
+        @Override
+        public int getItemCount() {
+            int count = mInternalAdapter.getItemCount() + getHeaderCount();
+            return mEnableAutoLoadMore ? ++count : count;
+        }
+
+        @Override
+        public void onBindViewHolder(ViewHolder holder, int position) {
+            if (holder instanceof FooterViewHolder) {
+                FooterViewHolder footer = (FooterViewHolder) holder;
+                if (holder.getItemViewType() == getFooterViewType(false)) {
+                    // 手动加载更多或者失败后重试
+                    holder.itemView.setOnClickListener(mFooterClickListener);
+                }
+                footer.bindState(getFooterState(footer));
+                updateFooterShown(footer);
+            } else {
+                mInternalAdapter.onBindViewHolder(holder, position - getHeaderCount());
+                if (mPlaceholderListener != null) {
+                    onInnerItemBound();
+                }
+            }
+        }
+
+        /**
+         * header总是在加载，footer在加载失败后显示重试，手动加载模式下点击之前显示点击加载更多
+         */
+        private int getFooterState(FooterViewHolder holder) {
+            if (holder.getItemViewType() == getFooterViewType(false)) {
+                if (mLoadMoreFailed) {
+                    return FooterRenderer.STATE_ERROR;
+                } else if (isWaitingForClick()) {
+                    return FooterRenderer.STATE_LOAD_MORE;
+                }
+            }
+            return FooterRenderer.STATE_LOADING;
+        }
+
+        @Override
+        public void onBindViewHolder(ViewHolder holder, int position, List<Object> payloads) {
+            if (mProfiler == null) {
+                bindHolder(holder, position, payloads);
+                return;
+            }
+            long start = System.nanoTime();
+            bindHolder(holder, position, payloads);
+            mProfiler.recordBind(holder, System.nanoTime() - start);
+        }
+
+        private void bindHolder(ViewHolder holder, int position, List<Object> payloads) {
+            if (isLoadMoreHolder(holder)) {
+                onBindViewHolder(holder, position);
+            } else {
+                // 完整绑定和带payload的局部刷新都交给业务adapter三个参数的方法，没有重写时默认转给两个参数的方法
+                mInternalAdapter.onBindViewHolder(holder, position - getHeaderCount(), payloads);
+                if (mPlaceholderListener != null && payloads.isEmpty()) {
+                    onInnerItemBound();
+                }
+            }
+        }
+
+        @Override
+        public long getItemId(int position) {
+            if (position == 0 && mEnableLoadPrevious) {
+                return ITEM_ID_HEADER;
+            } else if (position == getItemCount() - 1 && mEnableAutoLoadMore) {
+                return ITEM_ID_FOOTER;
+            }
+            return mInternalAdapter.getItemId(position - getHeaderCount());
+        }
+
+        @Override
+        public void onViewAttachedToWindow(ViewHolder holder) {
+            SharedRecycledViewPool sharedPool = getSharedPool();
+            if (sharedPool != null && mReportAttachedViews) {
+                sharedPool.onViewAttached(holder);
+            }
+            if (holder instanceof FooterViewHolder) {
+                FooterViewHolder footer = (FooterViewHolder) holder;
+                if (!footer.isAttached()) {
+                    mAttachedFooters.add(footer);
+                }
+                footer.setAttached(true);
+                updateFooterShown(footer);
+            } else {
+                mInternalAdapter.onViewAttachedToWindow(holder);
+            }
+            // footer或者预加载阈值位置的item出现时触发加载更多，代替每帧在onScrolled中检查
+            int position = holder.getLayoutPosition();
+            if ((canAutoLoadMore() && reachPrefetchItemCount(position))
+                    || (canLoadPrevious() && reachPreviousPrefetchItemCount(position))) {
+                postCheckLoadMore();
+            } else if (mMetricsListener != null && isAutoLoadMoreBlocked() && reachPrefetchItemCount(position)) {
+                dispatchBlockedTrigger();
+            }
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(ViewHolder holder) {
+            SharedRecycledViewPool sharedPool = getSharedPool();
+            if (sharedPool != null && mReportAttachedViews) {
+                sharedPool.onViewDetached(holder);
+            }
+            if (holder instanceof FooterViewHolder) {
+                detachFooter((FooterViewHolder) holder);
+            } else {
+                mInternalAdapter.onViewDetachedFromWindow(holder);
+            }
+        }
+
+        @Override
+        public void onViewRecycled(ViewHolder holder) {
+            if (mProfiler != null) {
+                mProfiler.onViewRecycled(holder);
+            }
+            if (holder instanceof FooterViewHolder) {
+                detachFooter((FooterViewHolder) holder);
+            } else {
+                mInternalAdapter.onViewRecycled(holder);
+            }
+        }
+
+        @Override
+        public boolean onFailedToRecycleView(ViewHolder holder) {
+            if (!isLoadMoreHolder(holder)) {
+                return mInternalAdapter.onFailedToRecycleView(holder);
+            }
+            return super.onFailedToRecycleView(holder);
+        }
+
+        @Override
+        public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+            mInternalAdapter.onAttachedToRecyclerView(recyclerView);
+        }
+
+        @Override
+        public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+            mInternalAdapter.onDetachedFromRecyclerView(recyclerView);
+        }
+
+        /**
+         * 是否是列表自己的header或footer，这些holder的回调不交给业务adapter
+         */
+        private boolean isLoadMoreHolder(ViewHolder holder) {
+            return holder instanceof FooterViewHolder;
+        }
+
+        private void detachFooter(FooterViewHolder holder) {
+            // 只有正在加载的footer开始过计时
+            if (holder.isAttached() && holder.getItemViewType() == getFooterViewType(false)
+                    && holder.getState() == FooterRenderer.STATE_LOADING) {
+                dispatchFooterHidden();
+            }
+            mAttachedFooters.remove(holder);
+            holder.setAttached(false);
+        }
+
+        @Override
+        public int getItemViewType(int position) {
+            int footerPosition = getItemCount() - 1;
+            if (position == 0 && mEnableLoadPrevious) {
+                return getFooterViewType(true);
+            } else if (footerPosition == position && mEnableAutoLoadMore) {
+                return getFooterViewType(false);
+            } else {
+                // 业务adapter的item类型原样返回，每种类型在RecycledViewPool中有各自的缓存
+                return checkInnerViewType(mInternalAdapter.getItemViewType(position - getHeaderCount()));
+            }
+        }
+
+        /**
+         * 业务adapter不能使用header和footer保留的item类型
+         */
+        private int checkInnerViewType(int viewType) {
+            if (viewType == ITEM_VIEW_TYPE_FOOTER || viewType == ITEM_VIEW_TYPE_HEADER
+                    || SharedRecycledViewPool.isFooterViewType(viewType)) {
+                throw new IllegalStateException("view type " + viewType + " is reserved for the header and footer");
             }
+            return viewType;
         }
     }
 }
@@ -0,0 +1,134 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.v7.widget.RecyclerView;
+import android.view.AbsSavedState;
+
+/**
+ * LoadMoreRecyclerView和McLoadMoreRecyclerView保存的状态：加载更多的开关、加载方式、翻页位置和滚动位置
+ * <p>
+ * 滚动位置记录第一个可见item的stable id和距离列表顶部的像素，恢复后数据重新加载时按id找到原来的item，
+ * 前面插入了新数据也能回到原来的位置；业务adapter没有stable id时按位置恢复
+ */
+public class LoadMoreSavedState extends AbsSavedState {
+
+    /**
+     * 是否还有更多
+     */
+    boolean mHasMore;
+
+    /**
+     * 是否允许加载上一页
+     */
+    boolean mLoadPreviousEnabled;
+
+    int mLoadType;
+
+    int mLastPosition;
+
+    /**
+     * 业务保存的翻页位置，没有设置{@link PagingStateListener}时为null
+     */
+    Bundle mCursor;
+
+    /**
+     * 第一个可见item在业务adapter中的位置，{@link RecyclerView#NO_POSITION}表示没有滚动位置
+     */
+    int mAnchorPosition = RecyclerView.NO_POSITION;
+
+    /**
+     * 第一个可见item的stable id，没有stable id时为{@link RecyclerView#NO_ID}
+     */
+    long mAnchorId = RecyclerView.NO_ID;
+
+    /**
+     * 第一个可见item顶部距离列表顶部的像素
+     */
+    int mAnchorOffset;
+
+    LoadMoreSavedState(Parcelable superState) {
+        super(superState != null ? superState : EMPTY_STATE);
+    }
+
+    private LoadMoreSavedState(Parcelable superState, Parcel source, ClassLoader loader) {
+        this(superState);
+        mHasMore = source.readByte() != 0;
+        mLoadPreviousEnabled = source.readByte() != 0;
+        mLoadType = source.readInt();
+        mLastPosition = source.readInt();
+        mCursor = source.readBundle(loader);
+        mAnchorPosition = source.readInt();
+        mAnchorId = source.readLong();
+        mAnchorOffset = source.readInt();
+    }
+
+    /**
+     * 复制滚动位置
+     */
+    void copyAnchor(LoadMoreSavedState other) {
+        mAnchorPosition = other.mAnchorPosition;
+        mAnchorId = other.mAnchorId;
+        mAnchorOffset = other.mAnchorOffset;
+    }
+
+    /**
+     * 在业务adapter中查找保存的滚动位置
+     * @param itemCount 业务adapter中已经通知过列表的数据数量
+     * @return 还没有加载到对应的item时返回{@link RecyclerView#NO_POSITION}
+     */
+    int findAnchorPosition(RecyclerView.Adapter adapter, int itemCount) {
+        if (mAnchorId != RecyclerView.NO_ID && adapter.hasStableIds()) {
+            // 一般就在原来的位置附近，先从原来的位置开始向后找
+            for (int i = Math.max(0, Math.min(mAnchorPosition, itemCount)); i < itemCount; i++) {
+                if (adapter.getItemId(i) == mAnchorId) {
+                    return i;
+                }
+            }
+            for (int i = Math.min(mAnchorPosition, itemCount) - 1; i >= 0; i--) {
+                if (adapter.getItemId(i) == mAnchorId) {
+                    return i;
+                }
+            }
+            return RecyclerView.NO_POSITION;
+        }
+        return mAnchorPosition < itemCount ? mAnchorPosition : RecyclerView.NO_POSITION;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        super.writeToParcel(dest, flags);
+        dest.writeByte((byte) (mHasMore ? 1 : 0));
+        dest.writeByte((byte) (mLoadPreviousEnabled ? 1 : 0));
+        dest.writeInt(mLoadType);
+        dest.writeInt(mLastPosition);
+        dest.writeBundle(mCursor);
+        dest.writeInt(mAnchorPosition);
+        dest.writeLong(mAnchorId);
+        dest.writeInt(mAnchorOffset);
+    }
+
+    public static final Parcelable.Creator<LoadMoreSavedState> CREATOR
+            = new Parcelable.ClassLoaderCreator<LoadMoreSavedState>() {
+        @Override
+        public LoadMoreSavedState createFromParcel(Parcel source, ClassLoader loader) {
+            // AbsSavedState(Parcel)用系统的ClassLoader读取父类状态，找不到support库中RecyclerView的SavedState，这里自己读取
+            if (loader == null) {
+                loader = LoadMoreSavedState.class.getClassLoader();
+            }
+            Parcelable superState = source.readParcelable(loader);
+            return new LoadMoreSavedState(superState, source, loader);
+        }
+
+        @Override
+        public LoadMoreSavedState createFromParcel(Parcel source) {
+            return createFromParcel(source, null);
+        }
+
+        @Override
+        public LoadMoreSavedState[] newArray(int size) {
+            return new LoadMoreSavedState[size];
+        }
+    };
+}
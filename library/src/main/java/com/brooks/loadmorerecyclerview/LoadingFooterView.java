@@ -0,0 +1,183 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.os.SystemClock;
+import android.util.AttributeSet;
+import android.view.View;
+
+/**
+ * 直接在Canvas上绘制旋转的圆弧和提示文字的footer，只有一个View，不需要inflate布局
+ * <p>
+ * 只在{@link #setAnimating(boolean)}为true并且显示在屏幕上时才会逐帧重绘
+ */
+public class LoadingFooterView extends View {
+
+    /**
+     * 圆弧转一圈的时间，单位ms
+     */
+    private static final long ROTATE_DURATION = 1000;
+
+    /**
+     * 圆弧的角度
+     */
+    private static final float SWEEP_ANGLE = 270;
+
+    private final Paint mSpinnerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private final RectF mSpinnerBounds = new RectF();
+
+    /**
+     * 默认高度，单位px
+     */
+    private int mDefaultHeight;
+
+    /**
+     * 圆弧的直径，单位px
+     */
+    private int mSpinnerSize;
+
+    /**
+     * 圆弧和文字之间的距离，单位px
+     */
+    private int mSpacing;
+
+    private CharSequence mText;
+
+    private boolean mSpinnerVisible = true;
+
+    private boolean mAnimating;
+
+    /**
+     * 开始旋转的时间
+     */
+    private long mAnimationStartTime;
+
+    public LoadingFooterView(Context context) {
+        super(context);
+        init();
+    }
+
+    public LoadingFooterView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init();
+    }
+
+    private void init() {
+        float density = getResources().getDisplayMetrics().density;
+        mDefaultHeight = (int) (60 * density);
+        mSpinnerSize = (int) (24 * density);
+        mSpacing = (int) (8 * density);
+        mSpinnerPaint.setStyle(Paint.Style.STROKE);
+        mSpinnerPaint.setStrokeCap(Paint.Cap.ROUND);
+        mSpinnerPaint.setStrokeWidth(3 * density);
+        mSpinnerPaint.setColor(0xFF5677FC);
+        mTextPaint.setTextSize(14 * getResources().getDisplayMetrics().scaledDensity);
+        mTextPaint.setColor(0xFF888888);
+    }
+
+    /**
+     * 设置提示文字，为null时只显示圆弧
+     */
+    public void setText(CharSequence text) {
+        mText = text;
+        invalidate();
+    }
+
+    /**
+     * 设置是否显示圆弧
+     */
+    public void setSpinnerVisible(boolean visible) {
+        mSpinnerVisible = visible;
+        invalidate();
+    }
+
+    public void setSpinnerColor(int color) {
+        mSpinnerPaint.setColor(color);
+        invalidate();
+    }
+
+    public void setTextColor(int color) {
+        mTextPaint.setColor(color);
+        invalidate();
+    }
+
+    /**
+     * 设置文字大小
+     * @param textSize 单位px
+     */
+    public void setTextSize(float textSize) {
+        mTextPaint.setTextSize(textSize);
+        invalidate();
+    }
+
+    /**
+     * 设置默认高度，宽度总是占满父布局
+     * @param height 单位px
+     */
+    public void setDefaultHeight(int height) {
+        mDefaultHeight = height;
+        requestLayout();
+    }
+
+    /**
+     * 开始或停止旋转
+     */
+    public void setAnimating(boolean animating) {
+        if (mAnimating == animating) {
+            return;
+        }
+        mAnimating = animating;
+        if (animating) {
+            mAnimationStartTime = SystemClock.uptimeMillis();
+        }
+        invalidate();
+    }
+
+    public boolean isAnimating() {
+        return mAnimating;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        setMeasuredDimension(getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec),
+                resolveSize(mDefaultHeight, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        boolean drawSpinner = mSpinnerVisible;
+        float textWidth = mText != null ? mTextPaint.measureText(mText, 0, mText.length()) : 0;
+        float contentWidth = textWidth;
+        if (drawSpinner) {
+            contentWidth += mSpinnerSize + (mText != null ? mSpacing : 0);
+        }
+        float left = (getWidth() - contentWidth) / 2;
+        float centerY = getHeight() / 2f;
+        if (drawSpinner) {
+            float inset = mSpinnerPaint.getStrokeWidth() / 2;
+            mSpinnerBounds.set(left + inset, centerY - mSpinnerSize / 2f + inset,
+                    left + mSpinnerSize - inset, centerY + mSpinnerSize / 2f - inset);
+            float startAngle = 0;
+            if (mAnimating) {
+                long elapsed = (SystemClock.uptimeMillis() - mAnimationStartTime) % ROTATE_DURATION;
+                startAngle = 360f * elapsed / ROTATE_DURATION;
+            }
+            canvas.drawArc(mSpinnerBounds, startAngle, SWEEP_ANGLE, false, mSpinnerPaint);
+            left += mSpinnerSize + mSpacing;
+        }
+        if (mText != null) {
+            // 文字垂直居中
+            float baseline = centerY - (mTextPaint.descent() + mTextPaint.ascent()) / 2;
+            canvas.drawText(mText, 0, mText.length(), left, baseline, mTextPaint);
+        }
+        if (mAnimating && drawSpinner) {
+            // 离开屏幕后不会再调用onDraw，重绘自然停止
+            postInvalidateOnAnimation();
+        }
+    }
+}
@@ -1,15 +1,15 @@
 package com.brooks.loadmorerecyclerview;
 
 import android.content.Context;
-import android.graphics.drawable.AnimationDrawable;
-import android.support.v7.widget.LinearLayoutManager;
+import android.os.Bundle;
+import android.os.Parcelable;
+import android.os.SystemClock;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
-import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ImageView;
-import android.widget.TextView;
+
+import java.util.List;
 
 /**
  * 滑动到底部自动加载更多
@@ -26,21 +26,166 @@ public class McLoadMoreRecyclerView extends RecyclerView {
      */
     private boolean mIsLoadingMore;
 
+    /**
+     * 加载的代数，setAdapter或者取消加载时加1，之前发起的加载结果会被丢弃
+     */
+    private volatile int mLoadGeneration;
+
     /**
      * 自定义实现了头部和底部加载更多的adapter
      */
     private AutoLoadAdapter mAutoLoadAdapter;
 
+    /**
+     * 业务adapter，重新setAdapter或者detach时需要从它上面移除监听
+     */
+    private Adapter mInnerAdapter;
+
+    /**
+     * 注册在业务adapter上，把业务adapter的通知转发给包装adapter
+     */
+    private AdapterDataObserver mDataObserver;
+
+    /**
+     * mDataObserver当前是否注册在业务adapter上
+     */
+    private boolean mDataObserverRegistered;
+
+    /**
+     * 列表在界面上时才把holder的显示和隐藏通知给{@link SharedRecycledViewPool}，离开界面时仍然留在列表中的holder不算作正在使用
+     */
+    private boolean mReportAttachedViews;
+
+    /**
+     * 业务adapter中已经通知过列表的数据数量，和当前数据数量的差值就是业务新添加但还没有通知的数据
+     */
+    private int mNotifiedItemCount;
+
     /**
      * 上一次加载更多的位置
      */
     private int mLastPosition;
 
+    /**
+     * 自定义的footer，为null时使用mc_loadmore_recycler_footer布局
+     */
+    private FooterRenderer mFooterRenderer;
+
+    /**
+     * footer的item类型，共用{@link SharedRecycledViewPool}时由pool按renderer分配，INVALID_TYPE表示还没有计算
+     */
+    private int mFooterViewType = INVALID_TYPE;
+
     /**
      * 加载更多的监听-业务需要实现加载数据
      */
     private LoadMoreListener mListener;
 
+    /**
+     * 预加载的item数量，距离footer还剩多少个item时就开始加载更多，默认为0即footer出现时才加载
+     */
+    private int mPrefetchItemCount;
+
+    /**
+     * 预加载的像素距离，距离列表底部还剩多少像素时就开始加载更多，默认为0即不按像素距离预加载
+     */
+    private int mPrefetchDistance;
+
+    /**
+     * 加载更多失败后的自动重试策略，默认为null，只能点击footer重试
+     */
+    private RetryPolicy mRetryPolicy;
+
+    /**
+     * 上一次加载更多是否失败，失败后滑动不再触发加载，只能等待自动重试或者点击footer重试
+     */
+    private boolean mLoadMoreFailed;
+
+    /**
+     * 连续失败的次数，加载成功后清零
+     */
+    private int mFailureCount;
+
+    /**
+     * 最近一次加载更多失败的原因
+     */
+    private Throwable mLoadMoreError;
+
+    /**
+     * 失败后自动重试
+     */
+    private final Runnable mRetryRunnable = new Runnable() {
+        @Override
+        public void run() {
+            retryLoadMore();
+        }
+    };
+
+    /**
+     * 加载更多的统计回调，为null时不统计
+     */
+    private LoadMoreMetricsListener mMetricsListener;
+
+    /**
+     * 本次加载更多触发的时间，-1表示当前的加载不是由列表触发的
+     */
+    private long mLoadStartTime = -1;
+
+    /**
+     * footer出现在屏幕上的时间，-1表示footer不在屏幕上
+     */
+    private long mFooterShownTime = -1;
+
+    /**
+     * 按item类型统计创建和绑定耗时，为null时不统计
+     */
+    private AdapterProfiler mProfiler;
+
+    /**
+     * 当前是否在用mProfiler统计帧耗时
+     */
+    private boolean mFrameMonitoring;
+
+    /**
+     * 空闲时预先创建holder，为null表示没有在进行
+     */
+    private ViewHolderWarmUp mWarmUp;
+
+    /**
+     * 保存和恢复业务翻页位置的监听
+     */
+    private PagingStateListener mPagingStateListener;
+
+    /**
+     * 恢复状态后还没有滚动到的位置，等对应的数据加载出来后再滚动，为null表示没有
+     */
+    private LoadMoreSavedState mPendingAnchor;
+
+    /**
+     * GridLayoutManager中让footer占满一整行
+     */
+    private final LayoutManagerHelper.FullSpanLookup mFullSpanLookup = new LayoutManagerHelper.FullSpanLookup() {
+        @Override
+        public boolean isFullSpan(int position) {
+            return position == mAutoLoadAdapter.getItemCount() - 1;
+        }
+
+        @Override
+        public int getInnerPosition(int position) {
+            return position;
+        }
+    };
+
+    /**
+     * 检查是否需要加载更多
+     */
+    private final Runnable mCheckLoadMoreRunnable = new Runnable() {
+        @Override
+        public void run() {
+            checkLoadMore();
+        }
+    };
+
     public McLoadMoreRecyclerView(Context context) {
         super(context);
         init();
@@ -61,25 +206,98 @@ public class McLoadMoreRecyclerView extends RecyclerView {
             @Override
             public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
                 super.onScrollStateChanged(recyclerView, newState);
+                if (newState == SCROLL_STATE_DRAGGING) {
+                    // 用户已经开始滑动，不再恢复之前的滚动位置
+                    mPendingAnchor = null;
+                } else if (newState == SCROLL_STATE_IDLE) {
+                    // 兜底检查，正常情况下由footer或阈值位置的item attach时触发加载更多
+                    checkLoadMore();
+                }
             }
 
             @Override
             public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
                 super.onScrolled(recyclerView, dx, dy);
-                if (mHasMore && !mIsLoadingMore && dy >= 0) {
-                    int lastVisPos = ((LinearLayoutManager) getLayoutManager()).findLastVisibleItemPosition();
-                    if (lastVisPos + 1 == mAutoLoadAdapter.getItemCount()) {
-                        mIsLoadingMore = true;
-                        mLastPosition = lastVisPos;
-                        if (mListener != null) {
-                            mListener.onLoadMore(mLastPosition - 1);
-                        }
-                    }
+                // 按item数量的预加载在item attach时触发，这里只处理按像素距离的预加载，不再每帧查找最后一个可见item
+                if (dy > 0 && canAutoLoadMore() && reachPrefetchDistance()) {
+                    loadMore();
                 }
             }
         });
     }
 
+    /**
+     * 当前是否可以自动加载更多
+     */
+    private boolean canAutoLoadMore() {
+        return mHasMore && !mIsLoadingMore && !mLoadMoreFailed && mAutoLoadAdapter != null;
+    }
+
+    /**
+     * 完整检查一次是否需要加载更多，会查找最后一个可见item，不在每帧的滑动回调中调用
+     */
+    private void checkLoadMore() {
+        if (canAutoLoadMore()) {
+            int lastVisPos = LayoutManagerHelper.findLastVisibleItemPosition(getLayoutManager());
+            if (reachPrefetchItemCount(lastVisPos) || reachPrefetchDistance()) {
+                loadMore();
+            }
+        } else if (mMetricsListener != null && isAutoLoadMoreBlocked()) {
+            if (reachPrefetchItemCount(LayoutManagerHelper.findLastVisibleItemPosition(getLayoutManager()))) {
+                dispatchBlockedTrigger();
+            }
+        }
+    }
+
+    /**
+     * 自动加载更多是否因为正在加载或者失败后等待重试而暂时不能触发
+     */
+    private boolean isAutoLoadMoreBlocked() {
+        return mHasMore && (mIsLoadingMore || mLoadMoreFailed) && mAutoLoadAdapter != null;
+    }
+
+    /**
+     * 在下一帧检查是否需要加载更多，多次调用会合并为一次
+     */
+    private void postCheckLoadMore() {
+        removeCallbacks(mCheckLoadMoreRunnable);
+        post(mCheckLoadMoreRunnable);
+    }
+
+    /**
+     * 开始加载更多
+     */
+    private void loadMore() {
+        mIsLoadingMore = true;
+        updateFrameMonitor();
+        mLastPosition = mAutoLoadAdapter.getItemCount() - 1;
+        if (mListener != null) {
+            dispatchLoadTriggered();
+            mListener.onLoadMore(mLastPosition - 1);
+        }
+    }
+
+    /**
+     * 某个位置是否已经到了按item数量预加载的阈值
+     * @param position item的位置
+     */
+    private boolean reachPrefetchItemCount(int position) {
+        int footerPosition = mAutoLoadAdapter.getItemCount() - 1;
+        return position != NO_POSITION && position + mPrefetchItemCount >= footerPosition;
+    }
+
+    /**
+     * 是否已经到了按像素距离预加载的阈值
+     */
+    private boolean reachPrefetchDistance() {
+        if (mPrefetchDistance > 0) {
+            int remainDistance = computeVerticalScrollRange() - computeVerticalScrollOffset()
+                    - computeVerticalScrollExtent();
+            return remainDistance <= mPrefetchDistance;
+        }
+        return false;
+    }
+
     /**
      * 设置是否支持自动加载更多
      * @param autoLoadMoreEnable
@@ -88,61 +306,579 @@ public class McLoadMoreRecyclerView extends RecyclerView {
         mHasMore = autoLoadMoreEnable;
     }
 
+    /**
+     * 设置预加载的item数量，距离footer还剩itemCount个item时就触发加载更多
+     * @param itemCount 默认为0，即footer出现时才加载
+     */
+    public void setPrefetchItemCount(int itemCount) {
+        mPrefetchItemCount = Math.max(0, itemCount);
+    }
+
+    /**
+     * 设置预加载的像素距离，距离列表底部还剩distance像素时就触发加载更多
+     * @param distance 单位px，默认为0即不按像素距离预加载
+     */
+    public void setPrefetchDistance(int distance) {
+        mPrefetchDistance = Math.max(0, distance);
+    }
+
     /**
      * 设置正在加载更多
      * @param loadingMore
      */
     public void setLoadingMore(boolean loadingMore) {
         mIsLoadingMore = loadingMore;
+        updateFrameMonitor();
+    }
+
+    /**
+     * 当前加载的代数，在onLoadMore中记录下来，加载完成时传给{@link #notifyMoreFinish(int, boolean)}
+     */
+    public int getLoadGeneration() {
+        return mLoadGeneration;
+    }
+
+    /**
+     * 某一代的加载结果是否仍然有效，无效时业务不应该再把数据添加到adapter中
+     * @param generation 发起加载时{@link #getLoadGeneration()}的值
+     */
+    public boolean isCurrentLoadGeneration(int generation) {
+        return generation == mLoadGeneration;
+    }
+
+    /**
+     * 取消所有正在进行的加载，之前发起的加载结果都会被{@link #notifyMoreFinish(int, boolean)}忽略，setAdapter时会自动调用
+     */
+    public void cancelLoads() {
+        mLoadGeneration++;
+        mIsLoadingMore = false;
+        updateFrameMonitor();
+        mLoadStartTime = -1;
+        clearLoadMoreFailure();
+        removeCallbacks(mCheckLoadMoreRunnable);
     }
 
     @Override
     public void setAdapter(Adapter adapter) {
+        cancelLoads();
+        cancelWarmUp();
+        // 移除旧的业务adapter上的监听，否则旧的包装adapter会一直被引用并继续收到通知
+        unregisterDataObserver();
+        mInnerAdapter = adapter;
+        mDataObserver = null;
+        mAutoLoadAdapter = null;
         if (adapter != null) {
             mAutoLoadAdapter = new AutoLoadAdapter(adapter);
-            adapter.registerAdapterDataObserver(new AdapterDataObserver() {
+            mDataObserver = new ForwardingDataObserver(mAutoLoadAdapter) {
                 @Override
                 public void onChanged() {
-                    mAutoLoadAdapter.notifyDataSetChanged();
-                }
-
-                @Override
-                public void onItemRangeChanged(int positionStart, int itemCount) {
-                    mAutoLoadAdapter.notifyItemRangeChanged(positionStart, itemCount);
-                }
-
-                @Override
-                public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
-                    mAutoLoadAdapter.notifyItemRangeChanged(positionStart, itemCount, payload);
+                    mNotifiedItemCount = mAutoLoadAdapter.getInnerItemCount();
+                    super.onChanged();
+                    applyPendingAnchor();
                 }
 
                 @Override
                 public void onItemRangeInserted(int positionStart, int itemCount) {
-                    mAutoLoadAdapter.notifyItemRangeInserted(positionStart, itemCount);
+                    mNotifiedItemCount += itemCount;
+                    super.onItemRangeInserted(positionStart, itemCount);
+                    applyPendingAnchor();
                 }
 
                 @Override
                 public void onItemRangeRemoved(int positionStart, int itemCount) {
-                    mAutoLoadAdapter.notifyItemRangeRemoved(positionStart, itemCount);
-                }
-
-                @Override
-                public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
-                    mAutoLoadAdapter.notifyItemRangeChanged(fromPosition, toPosition, itemCount);
+                    mNotifiedItemCount -= itemCount;
+                    super.onItemRangeRemoved(positionStart, itemCount);
                 }
-            });
+            };
+            registerDataObserver();
         }
         super.swapAdapter(mAutoLoadAdapter, true);
+        mNotifiedItemCount = adapter != null ? adapter.getItemCount() : 0;
+        LayoutManagerHelper.setupFullSpan(getLayoutManager(), mFullSpanLookup);
+        applyPendingAnchor();
+    }
+
+    /**
+     * 设置RecycledViewPool，使用{@link SharedRecycledViewPool}时可以和其他列表共用holder，需要在setAdapter之前调用
+     */
+    @Override
+    public void setRecycledViewPool(RecycledViewPool pool) {
+        super.setRecycledViewPool(pool);
+        mFooterViewType = INVALID_TYPE;
+    }
+
+    @Override
+    public void setLayoutManager(LayoutManager layout) {
+        super.setLayoutManager(layout);
+        LayoutManagerHelper.setupFullSpan(layout, mFullSpanLookup);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mReportAttachedViews = true;
+        SharedRecycledViewPool sharedPool = getSharedPool();
+        if (sharedPool != null) {
+            sharedPool.onListAttachStateChanged(this, true);
+        }
+        if (mDataObserver != null && !mDataObserverRegistered) {
+            registerDataObserver();
+            // detach期间业务adapter的通知都没有收到，整体刷新一次
+            mNotifiedItemCount = mInnerAdapter.getItemCount();
+            mAutoLoadAdapter.notifyDataSetChanged();
+        }
+        scheduleRetry();
+        updateFrameMonitor();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        // setRecycleChildrenOnDetach时super中已经回收了屏幕上的holder，剩下的在这里减掉
+        SharedRecycledViewPool sharedPool = getSharedPool();
+        if (sharedPool != null) {
+            sharedPool.onListAttachStateChanged(this, false);
+        }
+        mReportAttachedViews = false;
+        removeCallbacks(mCheckLoadMoreRunnable);
+        removeCallbacks(mRetryRunnable);
+        cancelWarmUp();
+        // 离开界面时footer的detach回调不会调用，这里结束footer的显示时长
+        dispatchFooterHidden();
+        stopFrameMonitor();
+        // 列表已经不在界面上，不再监听业务adapter，避免业务adapter比列表活得久时引用整个列表
+        unregisterDataObserver();
+    }
+
+    /**
+     * 使用的pool不是{@link SharedRecycledViewPool}时返回null
+     */
+    private SharedRecycledViewPool getSharedPool() {
+        RecycledViewPool pool = getRecycledViewPool();
+        return pool instanceof SharedRecycledViewPool ? (SharedRecycledViewPool) pool : null;
+    }
+
+    private void registerDataObserver() {
+        if (mInnerAdapter != null && mDataObserver != null && !mDataObserverRegistered) {
+            mInnerAdapter.registerAdapterDataObserver(mDataObserver);
+            mDataObserverRegistered = true;
+        }
+    }
+
+    private void unregisterDataObserver() {
+        if (mInnerAdapter != null && mDataObserver != null && mDataObserverRegistered) {
+            mInnerAdapter.unregisterAdapterDataObserver(mDataObserver);
+            mDataObserverRegistered = false;
+        }
+    }
+
+    /**
+     * 通知更多数据已经加载完毕，如果加载已经被取消（例如下拉刷新时重新setAdapter），忽略这次结果
+     * @param generation 发起加载时{@link #getLoadGeneration()}的值
+     * @param hasMore 是否还有更多
+     */
+    public void notifyMoreFinish(int generation, boolean hasMore) {
+        if (isCurrentLoadGeneration(generation)) {
+            notifyMoreFinish(hasMore);
+        }
     }
 
     /**
      * 通知更多数据已经加载完毕
+     * <p>
+     * 业务把新的一页数据添加到adapter数据的末尾（不要调用adapter的notify方法）之后调用，
+     * 这里根据数据数量的变化计算出准确的插入范围，只插入新的数据，不会重新绑定已有的item
      * @param hasMore 是否还有更多
      */
     public void notifyMoreFinish(boolean hasMore) {
+        int itemCount = mAutoLoadAdapter.getInnerItemCount() - mNotifiedItemCount;
+        if (itemCount < 0) {
+            // 业务移除了数据却没有通知，无法计算范围，只能整体刷新
+            mNotifiedItemCount = mAutoLoadAdapter.getInnerItemCount();
+            setLoadMoreEnable(hasMore);
+            getAdapter().notifyDataSetChanged();
+            applyPendingAnchor();
+            mIsLoadingMore = false;
+            updateFrameMonitor();
+            clearLoadMoreFailure();
+            if (mMetricsListener != null) {
+                mMetricsListener.onPageLoaded(0, takeLoadLatency());
+            }
+            return;
+        }
+        notifyPageAppended(itemCount, hasMore);
+    }
+
+    /**
+     * 通知新的一页数据已经添加到了adapter数据的末尾，按准确的范围通知插入，footer的提示有变化时只刷新footer
+     * @param itemCount 添加到末尾且还没有通知过的数据数量
+     * @param hasMore 是否还有更多
+     */
+    public void notifyPageAppended(int itemCount, boolean hasMore) {
+        boolean hadMore = mHasMore;
+        boolean wasFailed = mLoadMoreFailed;
+        clearLoadMoreFailure();
+        int positionStart = mNotifiedItemCount;
+        mNotifiedItemCount += itemCount;
         setLoadMoreEnable(hasMore);
-        getAdapter().notifyItemRemoved(mLastPosition);
+        if (itemCount > 0) {
+            getAdapter().notifyItemRangeInserted(positionStart, itemCount);
+            applyPendingAnchor();
+        }
+        if (hadMore != hasMore || wasFailed) {
+            getAdapter().notifyItemChanged(positionStart + itemCount);
+        }
         mIsLoadingMore = false;
+        updateFrameMonitor();
+        if (mMetricsListener != null) {
+            mMetricsListener.onPageLoaded(itemCount, takeLoadLatency());
+        }
+        // 新的一页数据较少时footer可能一直可见，不会再次attach，这里补一次检查
+        postCheckLoadMore();
+    }
+
+    /**
+     * 通知加载更多失败，如果加载已经被取消，忽略这次结果
+     * @param generation 发起加载时{@link #getLoadGeneration()}的值
+     * @param error 失败的原因
+     */
+    public void notifyMoreFailed(int generation, Throwable error) {
+        if (isCurrentLoadGeneration(generation)) {
+            notifyMoreFailed(error);
+        }
+    }
+
+    /**
+     * 通知加载更多失败，footer显示加载失败，设置了{@link RetryPolicy}时按策略延迟后自动重试，用户也可以点击footer立即重试
+     * <p>
+     * 失败后滑动列表不会再触发加载，避免服务端故障时每滑动一下就发出一次请求；加载成功或者cancelLoads后恢复
+     * @param error 失败的原因
+     */
+    public void notifyMoreFailed(Throwable error) {
+        mIsLoadingMore = false;
+        updateFrameMonitor();
+        mLoadMoreFailed = true;
+        mLoadMoreError = error;
+        mFailureCount++;
+        if (mMetricsListener != null) {
+            mMetricsListener.onLoadFailed(takeLoadLatency());
+        }
+        notifyFooterChanged();
+        scheduleRetry();
+    }
+
+    /**
+     * 上一次加载更多是否失败，并且还没有重试
+     */
+    public boolean isLoadMoreFailed() {
+        return mLoadMoreFailed;
+    }
+
+    /**
+     * 最近一次加载更多失败的原因，加载成功后为null
+     */
+    public Throwable getLoadMoreError() {
+        return mLoadMoreError;
+    }
+
+    /**
+     * 加载更多失败后立即重试，没有失败时不做任何事
+     */
+    public void retryLoadMore() {
+        removeCallbacks(mRetryRunnable);
+        if (!mLoadMoreFailed || mIsLoadingMore || !mHasMore || mAutoLoadAdapter == null) {
+            return;
+        }
+        mLoadMoreFailed = false;
+        notifyFooterChanged();
+        loadMore();
+    }
+
+    /**
+     * 设置加载更多失败后的自动重试策略
+     * @param policy 默认为null，即不自动重试，只能点击footer重试；传入new RetryPolicy()使用默认的重试间隔
+     */
+    public void setRetryPolicy(RetryPolicy policy) {
+        mRetryPolicy = policy;
+    }
+
+    /**
+     * 设置保存和恢复业务翻页位置的监听，进程被杀后恢复时从原来的页继续加载
+     * @param listener 为null时不保存翻页位置
+     */
+    public void setPagingStateListener(PagingStateListener listener) {
+        mPagingStateListener = listener;
+    }
+
+    /**
+     * 保存是否还有更多、业务的翻页位置和第一个可见item的stable id及偏移
+     */
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        LoadMoreSavedState state = new LoadMoreSavedState(super.onSaveInstanceState());
+        state.mHasMore = mHasMore;
+        // 只支持自动加载，没有header
+        state.mLoadType = LoadMoreRecyclerView.LOAD_TYPE_AUTO;
+        state.mLastPosition = mLastPosition;
+        if (mPagingStateListener != null) {
+            state.mCursor = new Bundle();
+            mPagingStateListener.onSavePagingState(state.mCursor);
+        }
+        if (mPendingAnchor != null) {
+            // 上一次恢复的位置还没有加载出来，继续保存原来的位置
+            state.copyAnchor(mPendingAnchor);
+        } else {
+            saveScrollAnchor(state);
+        }
+        return state;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof LoadMoreSavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        LoadMoreSavedState savedState = (LoadMoreSavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+        if (mHasMore != savedState.mHasMore) {
+            mHasMore = savedState.mHasMore;
+            notifyFooterChanged();
+        }
+        mLastPosition = savedState.mLastPosition;
+        if (mPagingStateListener != null && savedState.mCursor != null) {
+            mPagingStateListener.onRestorePagingState(savedState.mCursor);
+        }
+        if (savedState.mAnchorPosition != NO_POSITION) {
+            mPendingAnchor = savedState;
+            applyPendingAnchor();
+        }
+    }
+
+    /**
+     * 记录第一个可见item的位置、stable id和顶部的偏移
+     */
+    private void saveScrollAnchor(LoadMoreSavedState state) {
+        int position = LayoutManagerHelper.findFirstVisibleItemPosition(getLayoutManager());
+        if (position == NO_POSITION || mAutoLoadAdapter == null
+                || position >= mAutoLoadAdapter.getInnerItemCount()) {
+            return;
+        }
+        ViewHolder holder = findViewHolderForAdapterPosition(position);
+        if (holder == null) {
+            return;
+        }
+        state.mAnchorPosition = position;
+        state.mAnchorId = mInnerAdapter.hasStableIds() ? mInnerAdapter.getItemId(position) : NO_ID;
+        state.mAnchorOffset = getLayoutManager().getDecoratedTop(holder.itemView) - getPaddingTop();
+    }
+
+    /**
+     * 恢复的滚动位置对应的数据已经加载出来时滚动过去
+     */
+    private void applyPendingAnchor() {
+        if (mPendingAnchor == null || mAutoLoadAdapter == null) {
+            return;
+        }
+        int position = mPendingAnchor.findAnchorPosition(mInnerAdapter, mNotifiedItemCount);
+        if (position == NO_POSITION) {
+            return;
+        }
+        int offset = mPendingAnchor.mAnchorOffset;
+        mPendingAnchor = null;
+        LayoutManagerHelper.scrollToPositionWithOffset(getLayoutManager(), position, offset);
+    }
+
+    /**
+     * 设置加载更多的统计回调，可以使用{@link LoadMoreMetrics}汇总
+     * @param listener 为null时不统计
+     */
+    public void setMetricsListener(LoadMoreMetricsListener listener) {
+        mMetricsListener = listener;
+        mLoadStartTime = -1;
+        mFooterShownTime = -1;
+    }
+
+    /**
+     * 触发了一次加载更多，记录开始时间
+     */
+    private void dispatchLoadTriggered() {
+        if (mMetricsListener != null) {
+            mLoadStartTime = SystemClock.uptimeMillis();
+            mMetricsListener.onLoadTriggered();
+        }
+    }
+
+    /**
+     * 到达了加载的位置但没有触发，区分是正在加载还是失败后等待重试
+     */
+    private void dispatchBlockedTrigger() {
+        if (mMetricsListener != null) {
+            if (mIsLoadingMore) {
+                mMetricsListener.onDuplicateTrigger();
+            } else if (mLoadMoreFailed) {
+                mMetricsListener.onTriggerSuppressed();
+            }
+        }
+    }
+
+    /**
+     * 本次加载的耗时，取出后清空开始时间
+     * @return 单位ms，不是由列表触发的加载返回-1
+     */
+    private long takeLoadLatency() {
+        long latency = mLoadStartTime >= 0 ? SystemClock.uptimeMillis() - mLoadStartTime : -1;
+        mLoadStartTime = -1;
+        return latency;
+    }
+
+    /**
+     * footer在屏幕上并且正在加载时开始计时，显示失败重试或者没有更多时用户不是在等待加载，结束计时
+     */
+    private void updateFooterShown(FooterViewHolder holder) {
+        if (!holder.isAttached()) {
+            return;
+        }
+        if (holder.getState() == FooterRenderer.STATE_LOADING) {
+            dispatchFooterShown();
+        } else {
+            dispatchFooterHidden();
+        }
+    }
+
+    private void dispatchFooterShown() {
+        if (mMetricsListener != null && mFooterShownTime < 0) {
+            mFooterShownTime = SystemClock.uptimeMillis();
+        }
+    }
+
+    private void dispatchFooterHidden() {
+        if (mFooterShownTime >= 0) {
+            if (mMetricsListener != null) {
+                mMetricsListener.onFooterVisible(SystemClock.uptimeMillis() - mFooterShownTime);
+            }
+            mFooterShownTime = -1;
+        }
+    }
+
+    /**
+     * 按连续失败的次数安排下一次自动重试，超过最大次数后不再重试
+     */
+    private void scheduleRetry() {
+        removeCallbacks(mRetryRunnable);
+        if (mLoadMoreFailed && mRetryPolicy != null) {
+            long delay = mRetryPolicy.getRetryDelay(mFailureCount);
+            if (delay >= 0) {
+                postDelayed(mRetryRunnable, delay);
+            }
+        }
+    }
+
+    private void clearLoadMoreFailure() {
+        mLoadMoreFailed = false;
+        mLoadMoreError = null;
+        mFailureCount = 0;
+        removeCallbacks(mRetryRunnable);
+    }
+
+    /**
+     * footer的状态变化后只刷新footer
+     */
+    private void notifyFooterChanged() {
+        if (mAutoLoadAdapter != null) {
+            mAutoLoadAdapter.notifyItemChanged(mAutoLoadAdapter.getItemCount() - 1);
+        }
+    }
+
+    /**
+     * 设置自定义的footer，需要在setAdapter之前调用
+     * @param renderer 为null时使用默认的布局文件
+     */
+    public void setFooterRenderer(FooterRenderer renderer) {
+        mFooterRenderer = renderer;
+        mFooterViewType = INVALID_TYPE;
+    }
+
+    private FooterRenderer createFooterRenderer() {
+        return mFooterRenderer != null ? mFooterRenderer : new LayoutFooterRenderer(R.layout.mc_loadmore_recycler_footer);
+    }
+
+    /**
+     * footer的item类型，共用{@link SharedRecycledViewPool}时同一个renderer在各个列表中使用同一个类型
+     */
+    private int getFooterViewType() {
+        if (mFooterViewType == INVALID_TYPE) {
+            RecycledViewPool pool = getRecycledViewPool();
+            if (pool instanceof SharedRecycledViewPool) {
+                mFooterViewType = ((SharedRecycledViewPool) pool).getFooterViewType(createFooterRenderer(), false);
+            } else {
+                mFooterViewType = AutoLoadAdapter.ITEM_VIEW_TYPE_FOOTER;
+            }
+        }
+        return mFooterViewType;
+    }
+
+    /**
+     * 在主线程空闲时预先创建footer和每种item类型countPerType个holder放入RecycledViewPool，
+     * 第一次出现footer或者新的一页数据出现时不需要在那一帧inflate布局
+     * <p>
+     * 需要在setAdapter和setFooterRenderer之后调用，重新setAdapter或者列表离开界面时停止
+     * @param countPerType 每种item类型创建的数量，一般为一屏能显示的数量
+     * @param viewTypes 业务adapter的item类型
+     */
+    public void warmUpViewHolders(int countPerType, int... viewTypes) {
+        cancelWarmUp();
+        if (mAutoLoadAdapter == null) {
+            return;
+        }
+        int[] types = new int[viewTypes.length + 1];
+        int[] counts = new int[types.length];
+        types[0] = getFooterViewType();
+        counts[0] = 1;
+        for (int i = 0; i < viewTypes.length; i++) {
+            types[i + 1] = mAutoLoadAdapter.checkInnerViewType(viewTypes[i]);
+            counts[i + 1] = countPerType;
+        }
+        mWarmUp = new ViewHolderWarmUp(this, mAutoLoadAdapter, types, counts);
+        mWarmUp.start();
+    }
+
+    private void cancelWarmUp() {
+        if (mWarmUp != null) {
+            mWarmUp.cancel();
+            mWarmUp = null;
+        }
+    }
+
+    /**
+     * 设置按item类型统计创建和绑定耗时的工具，加载更多期间同时统计掉帧
+     * @param profiler 为null时关闭统计
+     */
+    public void setAdapterProfiler(AdapterProfiler profiler) {
+        stopFrameMonitor();
+        mProfiler = profiler;
+        updateFrameMonitor();
+    }
+
+    /**
+     * 正在加载更多并且显示在界面上时统计帧耗时
+     */
+    private void updateFrameMonitor() {
+        if (mProfiler != null && mIsLoadingMore && getWindowToken() != null) {
+            if (!mFrameMonitoring) {
+                mFrameMonitoring = true;
+                mProfiler.startFrameMonitor();
+            }
+        } else {
+            stopFrameMonitor();
+        }
+    }
+
+    private void stopFrameMonitor() {
+        if (mFrameMonitoring) {
+            mFrameMonitoring = false;
+            mProfiler.stopFrameMonitor();
+        }
     }
 
     /**
@@ -169,31 +905,59 @@ public class McLoadMoreRecyclerView extends RecyclerView {
     public class AutoLoadAdapter extends Adapter<ViewHolder> {
 
         /**
-         * item类型-询问加载更多的LoadMoreView
+         * item类型-询问加载更多的LoadMoreView，使用业务adapter不会用到的值，不和业务的item类型冲突
          */
-        private final static int ITEM_VIEW_TYPE_FOOTER = 2;
+        private final static int ITEM_VIEW_TYPE_FOOTER = Integer.MIN_VALUE + 1;
 
         /**
-         * item类型-普通ListViewItem
+         * footer的stable id，业务adapter打开stable id时使用
          */
-        private final static int ITEM_VIEW_TYPE_LIST = 3;
+        private final static long ITEM_ID_FOOTER = Long.MIN_VALUE + 1;
 
         private Adapter mInternalAdapter;
 
+        /**
+         * 加载失败后点击footer重试，footer可能来自共用pool的其他列表，每次绑定时重新设置
+         */
+        private final OnClickListener mFooterClickListener = new OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                retryLoadMore();
+            }
+        };
+
         public AutoLoadAdapter(Adapter adapter) {
             mInternalAdapter = adapter;
+            // 业务adapter需要在setAdapter之前调用setHasStableIds
+            super.setHasStableIds(adapter.hasStableIds());
         }
 
         @Override
         public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
-            if (viewType == ITEM_VIEW_TYPE_FOOTER) {
-                return new FooterViewHolder(LayoutInflater.from(parent.getContext())
-                        .inflate(R.layout.mc_loadmore_recycler_footer, parent, false));
+            if (mProfiler == null) {
+                return createHolder(parent, viewType);
+            }
+            long start = System.nanoTime();
+            ViewHolder holder = createHolder(parent, viewType);
+            mProfiler.recordCreate(viewType, System.nanoTime() - start);
+            return holder;
+        }
+
+        private ViewHolder createHolder(ViewGroup parent, int viewType) {
+            if (viewType == getFooterViewType()) {
+                return new FooterViewHolder(createFooterRenderer(), parent);
             } else {
                 return mInternalAdapter.onCreateViewHolder(parent, viewType);
             }
         }
 
+        /**
+         * 业务adapter中的数据数量
+         */
+        public int getInnerItemCount() {
+            return mInternalAdapter.getItemCount();
+        }
+
         @Override
         public int getItemCount() {
             int count = mInternalAdapter.getItemCount();
@@ -202,56 +966,143 @@ public class McLoadMoreRecyclerView extends RecyclerView {
 
         @Override
         public void onBindViewHolder(ViewHolder holder, int position) {
-            int type = getItemViewType(position);
-            if (type != ITEM_VIEW_TYPE_FOOTER) {
+            if (holder instanceof FooterViewHolder) {
+                holder.itemView.setOnClickListener(mFooterClickListener);
+                FooterViewHolder footer = (FooterViewHolder) holder;
+                footer.bindState(!mHasMore ? FooterRenderer.STATE_NO_MORE
+                        : mLoadMoreFailed ? FooterRenderer.STATE_ERROR : FooterRenderer.STATE_LOADING);
+                updateFooterShown(footer);
+            } else {
                 mInternalAdapter.onBindViewHolder(holder, position);
+            }
+        }
+
+        @Override
+        public void onBindViewHolder(ViewHolder holder, int position, List<Object> payloads) {
+            if (mProfiler == null) {
+                bindHolder(holder, position, payloads);
+                return;
+            }
+            long start = System.nanoTime();
+            bindHolder(holder, position, payloads);
+            mProfiler.recordBind(holder, System.nanoTime() - start);
+        }
+
+        private void bindHolder(ViewHolder holder, int position, List<Object> payloads) {
+            if (isLoadMoreHolder(holder)) {
+                onBindViewHolder(holder, position);
             } else {
-                FooterViewHolder mHolder = (FooterViewHolder) holder;
-                mHolder.showHasNoMoreHint();
+                // 完整绑定和带payload的局部刷新都交给业务adapter三个参数的方法，没有重写时默认转给两个参数的方法
+                mInternalAdapter.onBindViewHolder(holder, position, payloads);
             }
         }
 
         @Override
-        public int getItemViewType(int position) {
-            if (position == (getItemCount() - 1)) {
-                return ITEM_VIEW_TYPE_FOOTER;
+        public long getItemId(int position) {
+            if (position == getItemCount() - 1) {
+                return ITEM_ID_FOOTER;
+            }
+            return mInternalAdapter.getItemId(position);
+        }
+
+        @Override
+        public void onViewAttachedToWindow(ViewHolder holder) {
+            SharedRecycledViewPool sharedPool = getSharedPool();
+            if (sharedPool != null && mReportAttachedViews) {
+                sharedPool.onViewAttached(holder);
+            }
+            if (holder instanceof FooterViewHolder) {
+                FooterViewHolder footer = (FooterViewHolder) holder;
+                footer.setAttached(true);
+                updateFooterShown(footer);
+            } else {
+                mInternalAdapter.onViewAttachedToWindow(holder);
+            }
+            // footer或者预加载阈值位置的item出现时触发加载更多，代替每帧在onScrolled中检查
+            int position = holder.getLayoutPosition();
+            if (canAutoLoadMore() && reachPrefetchItemCount(position)) {
+                postCheckLoadMore();
+            } else if (mMetricsListener != null && isAutoLoadMoreBlocked() && reachPrefetchItemCount(position)) {
+                dispatchBlockedTrigger();
+            }
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(ViewHolder holder) {
+            SharedRecycledViewPool sharedPool = getSharedPool();
+            if (sharedPool != null && mReportAttachedViews) {
+                sharedPool.onViewDetached(holder);
+            }
+            if (holder instanceof FooterViewHolder) {
+                detachFooter((FooterViewHolder) holder);
+            } else {
+                mInternalAdapter.onViewDetachedFromWindow(holder);
+            }
+        }
+
+        @Override
+        public void onViewRecycled(ViewHolder holder) {
+            if (mProfiler != null) {
+                mProfiler.onViewRecycled(holder);
+            }
+            if (holder instanceof FooterViewHolder) {
+                detachFooter((FooterViewHolder) holder);
             } else {
-                return ITEM_VIEW_TYPE_LIST;
+                mInternalAdapter.onViewRecycled(holder);
+            }
+        }
+
+        @Override
+        public boolean onFailedToRecycleView(ViewHolder holder) {
+            if (!isLoadMoreHolder(holder)) {
+                return mInternalAdapter.onFailedToRecycleView(holder);
             }
+            return super.onFailedToRecycleView(holder);
+        }
+
+        @Override
+        public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+            mInternalAdapter.onAttachedToRecyclerView(recyclerView);
+        }
+
+        @Override
+        public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+            mInternalAdapter.onDetachedFromRecyclerView(recyclerView);
         }
 
         /**
-         * 自动加载更多布局holder
+         * 是否是列表自己的header或footer，这些holder的回调不交给业务adapter
          */
-        class FooterViewHolder extends ViewHolder {
+        private boolean isLoadMoreHolder(ViewHolder holder) {
+            return holder instanceof FooterViewHolder;
+        }
 
-            private ImageView mLoadingImage;
-            private TextView mHintText;
+        private void detachFooter(FooterViewHolder holder) {
+            // 只有正在加载的footer开始过计时
+            if (holder.isAttached() && holder.getState() == FooterRenderer.STATE_LOADING) {
+                dispatchFooterHidden();
+            }
+            holder.setAttached(false);
+        }
 
-            private FooterViewHolder(View itemView) {
-                super(itemView);
-                mHintText = (TextView) itemView.findViewById(R.id.loadmore_recycler_footer_text);
-                mLoadingImage = (ImageView) itemView.findViewById(R.id.loadmore_recycler_footer_image);
-                showHasNoMoreHint();
+        @Override
+        public int getItemViewType(int position) {
+            if (position == (getItemCount() - 1)) {
+                return getFooterViewType();
+            } else {
+                // 业务adapter的item类型原样返回，每种类型在RecycledViewPool中有各自的缓存
+                return checkInnerViewType(mInternalAdapter.getItemViewType(position));
             }
+        }
 
-            private void showHasNoMoreHint() {
-                if (mHasMore) {
-                    mLoadingImage.setVisibility(VISIBLE);
-                    AnimationDrawable animationDrawable = (AnimationDrawable) mLoadingImage.getBackground();
-                    if (animationDrawable != null && !animationDrawable.isRunning()) {
-                        animationDrawable.start();
-                    }
-                    mHintText.setVisibility(GONE);
-                } else {
-                    AnimationDrawable animationDrawable = (AnimationDrawable) mLoadingImage.getBackground();
-                    if (animationDrawable != null && animationDrawable.isRunning()) {
-                        animationDrawable.stop();
-                    }
-                    mLoadingImage.setVisibility(GONE);
-                    mHintText.setVisibility(VISIBLE);
-                }
+        /**
+         * 业务adapter不能使用footer保留的item类型
+         */
+        private int checkInnerViewType(int viewType) {
+            if (viewType == ITEM_VIEW_TYPE_FOOTER || SharedRecycledViewPool.isFooterViewType(viewType)) {
+                throw new IllegalStateException("view type " + viewType + " is reserved for the footer");
             }
+            return viewType;
         }
     }
 }
@@ -0,0 +1,212 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.support.v4.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 内存中的页缓存，按列表id和页的key保存已经加载的页，多个列表共用一个按大小淘汰的LRU
+ * <p>
+ * 旋转屏幕或者返回之前的界面时，重新创建的列表通过{@link PagedLoader#setMemoryCache(MemoryPageCache, String)}
+ * 直接恢复之前加载的页和翻页位置，不需要重新请求网络。页的key需要正确实现equals和hashCode，例如页码或者游标字符串。
+ * <p>
+ * 缓存需要比Activity活得更久，一般使用{@link #getInstance(Context)}，或者由业务保存在Application中；
+ * 系统内存不足时{@link #onTrimMemory(int)}会缩小缓存。只能在主线程中使用
+ */
+public class MemoryPageCache implements ComponentCallbacks2 {
+
+    /**
+     * 默认估计每条数据占用的字节数
+     */
+    private static final int DEFAULT_ITEM_SIZE = 1024;
+
+    /**
+     * 每一页除了数据之外的固定开销
+     */
+    private static final int PAGE_OVERHEAD = 64;
+
+    private static MemoryPageCache sInstance;
+
+    private final SizeEstimator mSizeEstimator;
+
+    private final LruCache<PageId, Entry> mCache;
+
+    /**
+     * 默认的缓存，最多使用应用可用内存的1/16，第一次调用时注册到Application接收内存不足的回调
+     */
+    public static MemoryPageCache getInstance(Context context) {
+        if (sInstance == null) {
+            int maxBytes = (int) Math.min(Runtime.getRuntime().maxMemory() / 16, Integer.MAX_VALUE);
+            sInstance = new MemoryPageCache(maxBytes, null);
+            context.getApplicationContext().registerComponentCallbacks(sInstance);
+        }
+        return sInstance;
+    }
+
+    /**
+     * @param maxBytes 所有列表一共最多缓存的字节数，按sizeEstimator估算
+     * @param sizeEstimator 估算每条数据占用的字节数，为null时每条按1KB计算
+     */
+    public MemoryPageCache(int maxBytes, SizeEstimator sizeEstimator) {
+        mSizeEstimator = sizeEstimator;
+        mCache = new LruCache<PageId, Entry>(Math.max(1, maxBytes)) {
+            @Override
+            protected int sizeOf(PageId key, Entry value) {
+                return value.mSize;
+            }
+        };
+    }
+
+    /**
+     * 保存一页
+     * @param listId 列表的id
+     * @param key 加载这一页时用的key，第一页为null
+     */
+    public void put(String listId, Object key, PagedSource.Page<?, ?> page) {
+        List<Object> items = page.items != null ? new ArrayList<Object>(page.items) : new ArrayList<Object>();
+        int size = PAGE_OVERHEAD;
+        for (Object item : items) {
+            size += mSizeEstimator != null ? mSizeEstimator.estimateSize(item) : DEFAULT_ITEM_SIZE;
+        }
+        mCache.put(new PageId(listId, key),
+                new Entry(new PagedSource.Page<Object, Object>(items, page.prevKey, page.nextKey), size));
+    }
+
+    /**
+     * 获取一页
+     * @param key 加载这一页时用的key，第一页为null
+     * @return 没有缓存或者已经被淘汰时返回null
+     */
+    public PagedSource.Page<?, ?> get(String listId, Object key) {
+        Entry entry = mCache.get(new PageId(listId, key));
+        return entry != null ? entry.mPage : null;
+    }
+
+    /**
+     * 从第一页开始按nextKey依次取出连续缓存的页，遇到没有缓存的页时停止
+     * @return 没有缓存第一页时返回空列表
+     */
+    public List<PagedSource.Page<?, ?>> getPages(String listId) {
+        List<PagedSource.Page<?, ?>> pages = new ArrayList<PagedSource.Page<?, ?>>();
+        PagedSource.Page<?, ?> page = get(listId, null);
+        // 服务端返回的nextKey出现循环时停止
+        while (page != null && !pages.contains(page)) {
+            pages.add(page);
+            page = page.nextKey != null ? get(listId, page.nextKey) : null;
+        }
+        return pages;
+    }
+
+    /**
+     * 移除某个列表的所有页，例如下拉刷新之后
+     */
+    public void removeList(String listId) {
+        for (PageId id : mCache.snapshot().keySet()) {
+            if (id.mListId.equals(listId)) {
+                mCache.remove(id);
+            }
+        }
+    }
+
+    /**
+     * 清空所有缓存
+     */
+    public void clear() {
+        mCache.evictAll();
+    }
+
+    /**
+     * 当前缓存的字节数
+     */
+    public int size() {
+        return mCache.size();
+    }
+
+    public int maxSize() {
+        return mCache.maxSize();
+    }
+
+    /**
+     * 应用进入后台后系统内存紧张时缩小到一半，即将被杀时全部清空；界面隐藏时不清空，返回时还需要使用
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_MODERATE) {
+            mCache.evictAll();
+        } else if (level >= TRIM_MEMORY_BACKGROUND
+                || (level >= TRIM_MEMORY_RUNNING_LOW && level < TRIM_MEMORY_UI_HIDDEN)) {
+            mCache.trimToSize(mCache.maxSize() / 2);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        mCache.evictAll();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    /**
+     * 估算数据占用的内存
+     */
+    public interface SizeEstimator {
+
+        /**
+         * @return 一条数据大约占用的字节数
+         */
+        int estimateSize(Object item);
+    }
+
+    /**
+     * 缓存的key：列表id和页的key
+     */
+    private static class PageId {
+
+        private final String mListId;
+
+        private final Object mKey;
+
+        private PageId(String listId, Object key) {
+            mListId = listId;
+            mKey = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PageId)) {
+                return false;
+            }
+            PageId other = (PageId) o;
+            return mListId.equals(other.mListId) && (mKey == null ? other.mKey == null : mKey.equals(other.mKey));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mListId.hashCode() + (mKey != null ? mKey.hashCode() : 0);
+        }
+    }
+
+    private static class Entry {
+
+        private final PagedSource.Page<?, ?> mPage;
+
+        /**
+         * put时估算的大小，之后数据变化也不会重新计算，保证LruCache的统计前后一致
+         */
+        private final int mSize;
+
+        private Entry(PagedSource.Page<?, ?> page, int size) {
+            mPage = page;
+            mSize = size;
+        }
+    }
+}
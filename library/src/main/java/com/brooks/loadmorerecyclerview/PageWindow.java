@@ -0,0 +1,85 @@
+package com.brooks.loadmorerecyclerview;
+
+import java.util.ArrayDeque;
+
+/**
+ * 记录当前列表中保留的每一页数据的数量，用于分页窗口模式下移除离屏幕较远的页
+ */
+final class PageWindow {
+
+    /**
+     * 从第一页到最后一页每一页的数据数量
+     */
+    private final ArrayDeque<Integer> mPageSizes = new ArrayDeque<Integer>();
+
+    /**
+     * 所有页的数据总数
+     */
+    private int mItemCount;
+
+    /**
+     * 清空所有页，把当前已有的数据作为第一页
+     * @param firstPageSize 已有的数据数量
+     */
+    void reset(int firstPageSize) {
+        mPageSizes.clear();
+        mItemCount = 0;
+        appendPage(firstPageSize);
+    }
+
+    /**
+     * 在末尾添加一页
+     */
+    void appendPage(int size) {
+        if (size > 0) {
+            mPageSizes.addLast(size);
+            mItemCount += size;
+        }
+    }
+
+    /**
+     * 在最前面添加一页
+     */
+    void prependPage(int size) {
+        if (size > 0) {
+            mPageSizes.addFirst(size);
+            mItemCount += size;
+        }
+    }
+
+    /**
+     * 移除第一页
+     * @return 被移除的页的数据数量
+     */
+    int removeFirstPage() {
+        int size = mPageSizes.removeFirst();
+        mItemCount -= size;
+        return size;
+    }
+
+    /**
+     * 移除最后一页
+     * @return 被移除的页的数据数量
+     */
+    int removeLastPage() {
+        int size = mPageSizes.removeLast();
+        mItemCount -= size;
+        return size;
+    }
+
+    int getFirstPageSize() {
+        return mPageSizes.isEmpty() ? 0 : mPageSizes.peekFirst();
+    }
+
+    int getLastPageSize() {
+        return mPageSizes.isEmpty() ? 0 : mPageSizes.peekLast();
+    }
+
+    int getPageCount() {
+        return mPageSizes.size();
+    }
+
+    int getItemCount() {
+        return mItemCount;
+    }
+}
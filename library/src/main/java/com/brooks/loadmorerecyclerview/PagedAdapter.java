@@ -0,0 +1,145 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 由{@link PagedLoader}管理数据的adapter，业务只需要实现onCreateViewHolder和onBindViewHolder
+ * <p>
+ * 和demo中的做法一样，修改数据的方法都不会调用notify方法，由LoadMoreRecyclerView计算准确的范围后统一通知。
+ * 重写{@link #getItemKey(Object)}之后，服务端返回的重叠数据会被去重，只有内容真正变化的item才会重新绑定
+ * @param <T> 数据类型
+ * @param <VH> ViewHolder类型
+ */
+public abstract class PagedAdapter<T, VH extends RecyclerView.ViewHolder> extends RecyclerView.Adapter<VH>
+        implements ListDiff.ItemCallback<T> {
+
+    private static final int CHUNK_SIZE = 64;
+
+    /**
+     * 分块保存数据，加载新的一页时不会复制已有的数据，同时维护key到位置的索引，getItemKey返回null时不建立索引
+     */
+    private final PagedList<T> mItems = new PagedList<T>(CHUNK_SIZE, new PagedList.KeyProvider<T>() {
+        @Override
+        public Object getKey(T item) {
+            return getItemKey(item);
+        }
+    });
+
+    /**
+     * 获取某个位置的数据
+     * @param position 数据的位置，不包括header和footer
+     */
+    public T getItem(int position) {
+        return mItems.get(position);
+    }
+
+    @Override
+    public int getItemCount() {
+        return mItems.size();
+    }
+
+    /**
+     * 数据的唯一标识，用于去掉分页重叠的数据和刷新时的差分，可能在后台线程中调用
+     * @return 默认返回null，即不去重，差分时用equals比较
+     */
+    protected Object getItemKey(T item) {
+        return null;
+    }
+
+    @Override
+    public boolean areItemsTheSame(T oldItem, T newItem) {
+        Object oldKey = getItemKey(oldItem);
+        return oldKey != null ? oldKey.equals(getItemKey(newItem)) : oldItem.equals(newItem);
+    }
+
+    /**
+     * 同一个数据的内容是否没有变化，可能在后台线程中调用
+     */
+    @Override
+    public boolean areContentsTheSame(T oldItem, T newItem) {
+        return oldItem.equals(newItem);
+    }
+
+    /**
+     * 去掉新的一页中已经存在的数据，已经存在但内容有变化的数据直接替换并通知变化
+     * @return 真正需要插入的数据
+     */
+    List<T> mergeOverlap(List<T> items) {
+        List<T> freshItems = new ArrayList<T>(items.size());
+        Set<Object> pageKeys = new HashSet<Object>();
+        for (T item : items) {
+            Object key = getItemKey(item);
+            if (key == null) {
+                freshItems.add(item);
+                continue;
+            }
+            if (!pageKeys.add(key)) {
+                // 同一页中重复的数据
+                continue;
+            }
+            int position = mItems.indexOfKey(key);
+            if (position < 0) {
+                freshItems.add(item);
+            } else if (!areContentsTheSame(mItems.get(position), item)) {
+                mItems.set(position, item);
+                notifyItemChanged(position);
+            }
+        }
+        return freshItems;
+    }
+
+    /**
+     * 当前数据的拷贝，用于在后台线程中计算差分
+     */
+    List<T> snapshotItems() {
+        return new ArrayList<T>(mItems);
+    }
+
+    /**
+     * 在末尾添加一页数据
+     */
+    void appendItems(List<T> items) {
+        mItems.addPage(items);
+    }
+
+    /**
+     * 在最前面添加一页数据
+     */
+    void prependItems(List<T> items) {
+        mItems.addPageFirst(items);
+    }
+
+    /**
+     * 移除最前面的itemCount条数据
+     */
+    void removeFirstItems(int itemCount) {
+        mItems.removeFirst(itemCount);
+    }
+
+    /**
+     * 移除最后面的itemCount条数据
+     */
+    void removeLastItems(int itemCount) {
+        mItems.removeLast(itemCount);
+    }
+
+    /**
+     * 用新的数据替换全部数据
+     */
+    void replaceItems(List<T> items) {
+        clearItems();
+        appendItems(items);
+    }
+
+    /**
+     * 清空所有数据
+     */
+    void clearItems() {
+        mItems.clear();
+    }
+}
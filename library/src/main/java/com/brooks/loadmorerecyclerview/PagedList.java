@@ -0,0 +1,434 @@
+package com.brooks.loadmorerecyclerview;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * 按固定大小分块保存数据的列表，用于替代ArrayList.addAll不断追加分页数据
+ * <p>
+ * ArrayList在数据增长时需要重新分配并复制整个数组，列表很长时每次加载一页都会产生大块垃圾，正好在新的一页显示时触发GC。
+ * 这里的数据保存在一个个固定大小的块中，通过块表定位：追加或者在前面插入一页只会分配新的块，
+ * 按位置查找是O(1)；移除最前面或最后面的页只释放对应的块，不移动其他数据。
+ * <p>
+ * 设置{@link KeyProvider}之后会维护key到位置的索引，{@link #indexOfKey(Object)}是O(1)，
+ * 在前面插入或者移除页时不需要重建索引。只支持按页增删，不支持在中间插入或移除单条数据。只能在一个线程中使用
+ * @param <T> 数据类型
+ */
+public class PagedList<T> extends AbstractList<T> implements RandomAccess {
+
+    /**
+     * 默认每块保存的数据数量
+     */
+    private static final int DEFAULT_CHUNK_SIZE = 64;
+
+    private static final int MIN_TABLE_SIZE = 4;
+
+    private final KeyProvider<T> mKeyProvider;
+
+    private final int mChunkShift;
+
+    private final int mChunkMask;
+
+    /**
+     * 块表，没有使用的位置为null
+     */
+    private Object[][] mChunks = new Object[MIN_TABLE_SIZE][];
+
+    /**
+     * 第一条数据在块表中的槽位，槽位除以块大小就是所在的块
+     */
+    private int mHead;
+
+    private int mSize;
+
+    /**
+     * 第一条数据的序号，每条数据的序号在加入时确定，之后不会改变，索引中保存的是序号而不是位置
+     */
+    private int mFirstSeq;
+
+    /**
+     * 最近释放的一块，分页窗口模式下一边释放一边分配时重复使用
+     */
+    private Object[] mSpareChunk;
+
+    private final KeyIndex mKeyIndex;
+
+    public PagedList() {
+        this(DEFAULT_CHUNK_SIZE, null);
+    }
+
+    /**
+     * @param chunkSize 每块保存的数据数量，向上取整为2的幂，一般和每页的数量差不多
+     * @param keyProvider 获取数据的唯一标识，为null时不建立索引
+     */
+    public PagedList(int chunkSize, KeyProvider<T> keyProvider) {
+        int shift = 0;
+        while ((1 << shift) < chunkSize && shift < 30) {
+            shift++;
+        }
+        mChunkShift = shift;
+        mChunkMask = (1 << shift) - 1;
+        mKeyProvider = keyProvider;
+        mKeyIndex = keyProvider != null ? new KeyIndex() : null;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int position) {
+        checkPosition(position);
+        int slot = mHead + position;
+        return (T) mChunks[slot >> mChunkShift][slot & mChunkMask];
+    }
+
+    /**
+     * 替换某个位置的数据，同时更新索引
+     * @return 原来的数据
+     */
+    @Override
+    public T set(int position, T item) {
+        T oldItem = get(position);
+        int slot = mHead + position;
+        mChunks[slot >> mChunkShift][slot & mChunkMask] = item;
+        if (mKeyIndex != null) {
+            int seq = mFirstSeq + position;
+            unindex(oldItem, seq);
+            index(item, seq);
+        }
+        return oldItem;
+    }
+
+    /**
+     * 在末尾添加一页，只会分配新的块，已有的数据不会被复制
+     */
+    public void addPage(List<? extends T> items) {
+        int count = items.size();
+        if (count == 0) {
+            return;
+        }
+        ensureChunks(mHead + mSize, mHead + mSize + count);
+        for (int i = 0; i < count; i++) {
+            int slot = mHead + mSize + i;
+            T item = items.get(i);
+            mChunks[slot >> mChunkShift][slot & mChunkMask] = item;
+            index(item, mFirstSeq + mSize + i);
+        }
+        mSize += count;
+        modCount++;
+    }
+
+    /**
+     * 在最前面添加一页，已有数据的序号不变，索引不需要重建
+     */
+    public void addPageFirst(List<? extends T> items) {
+        int count = items.size();
+        if (count == 0) {
+            return;
+        }
+        if (mHead < count) {
+            // 前面的空间不够，把块表整体后移，只移动块的引用
+            int shiftChunks = ((count - mHead) + mChunkMask) >> mChunkShift;
+            int usedChunks = mSize > 0 ? ((mHead + mSize - 1) >> mChunkShift) + 1 : 0;
+            growTable(usedChunks + shiftChunks);
+            System.arraycopy(mChunks, 0, mChunks, shiftChunks, usedChunks);
+            Arrays.fill(mChunks, 0, shiftChunks, null);
+            mHead += shiftChunks << mChunkShift;
+        }
+        ensureChunks(mHead - count, mHead);
+        mHead -= count;
+        mFirstSeq -= count;
+        mSize += count;
+        for (int i = 0; i < count; i++) {
+            int slot = mHead + i;
+            T item = items.get(i);
+            mChunks[slot >> mChunkShift][slot & mChunkMask] = item;
+            index(item, mFirstSeq + i);
+        }
+        modCount++;
+    }
+
+    /**
+     * 移除最前面的count条数据，空出来的块被释放，其他数据不移动
+     */
+    public void removeFirst(int count) {
+        checkRemoveCount(count);
+        for (int i = 0; i < count; i++) {
+            int slot = mHead + i;
+            Object[] chunk = mChunks[slot >> mChunkShift];
+            unindex(chunk[slot & mChunkMask], mFirstSeq + i);
+            chunk[slot & mChunkMask] = null;
+        }
+        int firstChunk = mHead >> mChunkShift;
+        mHead += count;
+        mFirstSeq += count;
+        mSize -= count;
+        modCount++;
+        if (mSize == 0) {
+            releaseAll();
+            return;
+        }
+        for (int chunk = firstChunk; chunk < mHead >> mChunkShift; chunk++) {
+            releaseChunk(chunk);
+        }
+    }
+
+    /**
+     * 移除最后面的count条数据，空出来的块被释放
+     */
+    public void removeLast(int count) {
+        checkRemoveCount(count);
+        int lastChunk = (mHead + mSize - 1) >> mChunkShift;
+        for (int i = mSize - count; i < mSize; i++) {
+            int slot = mHead + i;
+            Object[] chunk = mChunks[slot >> mChunkShift];
+            unindex(chunk[slot & mChunkMask], mFirstSeq + i);
+            chunk[slot & mChunkMask] = null;
+        }
+        mSize -= count;
+        modCount++;
+        if (mSize == 0) {
+            releaseAll();
+            return;
+        }
+        for (int chunk = ((mHead + mSize - 1) >> mChunkShift) + 1; chunk <= lastChunk; chunk++) {
+            releaseChunk(chunk);
+        }
+    }
+
+    @Override
+    public void clear() {
+        if (mSize > 0) {
+            removeLast(mSize);
+        }
+    }
+
+    /**
+     * 查找key对应的数据当前的位置，key重复时返回最后加入的那条
+     * @return 没有设置KeyProvider或者没有找到时返回-1
+     */
+    public int indexOfKey(Object key) {
+        if (mKeyIndex == null || key == null) {
+            return -1;
+        }
+        int seq = mKeyIndex.get(key);
+        if (seq == KeyIndex.NOT_FOUND) {
+            return -1;
+        }
+        return seq - mFirstSeq;
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] array = new Object[mSize];
+        int copied = 0;
+        while (copied < mSize) {
+            int slot = mHead + copied;
+            int count = Math.min(mSize - copied, (mChunkMask + 1) - (slot & mChunkMask));
+            System.arraycopy(mChunks[slot >> mChunkShift], slot & mChunkMask, array, copied, count);
+            copied += count;
+        }
+        return array;
+    }
+
+    /**
+     * 保证槽位[from, to)所在的块都已经分配，块表不够时先回收前面空出来的位置，还不够再扩大
+     */
+    private void ensureChunks(int from, int to) {
+        int lastChunk = (to - 1) >> mChunkShift;
+        if (lastChunk >= mChunks.length) {
+            int firstChunk = mHead >> mChunkShift;
+            if (mSize > 0 && firstChunk > 0) {
+                // 分页窗口模式下前面的块被释放了，整体前移，块表不会一直变大
+                int usedChunks = ((mHead + mSize - 1) >> mChunkShift) - firstChunk + 1;
+                System.arraycopy(mChunks, firstChunk, mChunks, 0, usedChunks);
+                Arrays.fill(mChunks, usedChunks, firstChunk + usedChunks, null);
+                int shift = firstChunk << mChunkShift;
+                mHead -= shift;
+                from -= shift;
+                lastChunk -= firstChunk;
+            }
+            growTable(lastChunk + 1);
+        }
+        for (int chunk = from >> mChunkShift; chunk <= lastChunk; chunk++) {
+            if (mChunks[chunk] == null) {
+                if (mSpareChunk != null) {
+                    mChunks[chunk] = mSpareChunk;
+                    mSpareChunk = null;
+                } else {
+                    mChunks[chunk] = new Object[mChunkMask + 1];
+                }
+            }
+        }
+    }
+
+    private void growTable(int minLength) {
+        if (minLength > mChunks.length) {
+            mChunks = Arrays.copyOf(mChunks, Math.max(minLength, mChunks.length * 2));
+        }
+    }
+
+    private void releaseChunk(int chunk) {
+        if (mChunks[chunk] != null) {
+            // 释放前数据已经清空
+            mSpareChunk = mChunks[chunk];
+            mChunks[chunk] = null;
+        }
+    }
+
+    private void releaseAll() {
+        for (int chunk = 0; chunk < mChunks.length; chunk++) {
+            releaseChunk(chunk);
+        }
+        mHead = 0;
+        mFirstSeq = 0;
+        if (mKeyIndex != null) {
+            mKeyIndex.clear();
+        }
+    }
+
+    private void index(T item, int seq) {
+        if (mKeyIndex != null) {
+            Object key = mKeyProvider.getKey(item);
+            if (key != null) {
+                mKeyIndex.put(key, seq);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void unindex(Object item, int seq) {
+        if (mKeyIndex != null) {
+            Object key = mKeyProvider.getKey((T) item);
+            if (key != null) {
+                // key重复时索引指向后加入的数据，只有指向被移除的数据时才删除
+                mKeyIndex.remove(key, seq);
+            }
+        }
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= mSize) {
+            throw new IndexOutOfBoundsException("position " + position + ", size " + mSize);
+        }
+    }
+
+    private void checkRemoveCount(int count) {
+        if (count < 0 || count > mSize) {
+            throw new IndexOutOfBoundsException("count " + count + ", size " + mSize);
+        }
+    }
+
+    /**
+     * 获取数据的唯一标识，用于建立key到位置的索引
+     */
+    public interface KeyProvider<T> {
+
+        /**
+         * @return 数据的唯一标识，需要正确实现equals和hashCode；返回null时不建立索引
+         */
+        Object getKey(T item);
+    }
+
+    /**
+     * key到int序号的开放寻址哈希表，不需要为每条数据创建Entry和Integer
+     */
+    private static final class KeyIndex {
+
+        static final int NOT_FOUND = Integer.MIN_VALUE;
+
+        private Object[] mKeys = new Object[16];
+
+        private int[] mValues = new int[16];
+
+        private int mCount;
+
+        int get(Object key) {
+            int mask = mKeys.length - 1;
+            for (int i = hash(key) & mask; mKeys[i] != null; i = (i + 1) & mask) {
+                if (mKeys[i].equals(key)) {
+                    return mValues[i];
+                }
+            }
+            return NOT_FOUND;
+        }
+
+        void put(Object key, int value) {
+            if ((mCount + 1) * 2 > mKeys.length) {
+                resize(mKeys.length * 2);
+            }
+            int mask = mKeys.length - 1;
+            int i = hash(key) & mask;
+            while (mKeys[i] != null) {
+                if (mKeys[i].equals(key)) {
+                    mValues[i] = value;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            mKeys[i] = key;
+            mValues[i] = value;
+            mCount++;
+        }
+
+        /**
+         * key对应的值等于value时才删除
+         */
+        void remove(Object key, int value) {
+            int mask = mKeys.length - 1;
+            int i = hash(key) & mask;
+            while (mKeys[i] != null && !mKeys[i].equals(key)) {
+                i = (i + 1) & mask;
+            }
+            if (mKeys[i] == null || mValues[i] != value) {
+                return;
+            }
+            mKeys[i] = null;
+            mCount--;
+            // 后面同一串中的key前移填补空位，保证查找时不会提前遇到空位
+            for (int j = (i + 1) & mask; mKeys[j] != null; j = (j + 1) & mask) {
+                int ideal = hash(mKeys[j]) & mask;
+                boolean between = i <= j ? (i < ideal && ideal <= j) : (i < ideal || ideal <= j);
+                if (!between) {
+                    mKeys[i] = mKeys[j];
+                    mValues[i] = mValues[j];
+                    mKeys[j] = null;
+                    i = j;
+                }
+            }
+        }
+
+        void clear() {
+            if (mKeys.length > 16) {
+                mKeys = new Object[16];
+                mValues = new int[16];
+            } else {
+                Arrays.fill(mKeys, null);
+            }
+            mCount = 0;
+        }
+
+        private void resize(int capacity) {
+            Object[] oldKeys = mKeys;
+            int[] oldValues = mValues;
+            mKeys = new Object[capacity];
+            mValues = new int[capacity];
+            mCount = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(Object key) {
+            int h = key.hashCode();
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,517 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * 使用{@link PagedSource}驱动LoadMoreRecyclerView的分页加载
+ * <p>
+ * 数据源在后台线程中加载和解析，结果切回主线程后一次性插入到{@link PagedAdapter}，并通知准确的插入范围
+ * @param <Key> 页的标识
+ * @param <T> 数据类型
+ */
+public class PagedLoader<Key, T> implements LoadMoreRecyclerView.LoadMoreListener,
+        LoadMoreRecyclerView.LoadPreviousListener, LoadMoreRecyclerView.PageEvictListener {
+
+    private static final String TAG = "PagedLoader";
+
+    /**
+     * 加载方向-第一页
+     */
+    private static final int LOAD_INITIAL = 0;
+
+    /**
+     * 加载方向-下一页
+     */
+    private static final int LOAD_AFTER = 1;
+
+    /**
+     * 加载方向-上一页
+     */
+    private static final int LOAD_BEFORE = 2;
+
+    private final LoadMoreRecyclerView mRecyclerView;
+
+    private final PagedAdapter<T, ?> mAdapter;
+
+    private final PagedSource<Key, T> mSource;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * 加载数据的线程池，默认使用AsyncTask的线程池
+     */
+    private Executor mExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+
+    /**
+     * 当前列表中保留的每一页的key，分页窗口模式下移除页之后用来确定重新加载的key
+     */
+    private final ArrayDeque<PageKeys<Key>> mPages = new ArrayDeque<PageKeys<Key>>();
+
+    /**
+     * 上一页的key，为null表示没有上一页
+     */
+    private Key mPrevKey;
+
+    /**
+     * 下一页的key，为null表示没有下一页
+     */
+    private Key mNextKey;
+
+    /**
+     * 第一页是否已经加载成功，第一页失败后重试时重新加载第一页
+     */
+    private boolean mInitialLoaded;
+
+    /**
+     * 正在加载下一页（包括第一页）的代数，-1表示没有在加载，用于合并重复的加载请求
+     */
+    private int mLoadingAfterGeneration = -1;
+
+    /**
+     * 正在加载上一页的代数，-1表示没有在加载
+     */
+    private int mLoadingBeforeGeneration = -1;
+
+    /**
+     * 保存最前面几页的磁盘缓存，为null表示不使用
+     */
+    private DiskPageCache<T> mPageCache;
+
+    /**
+     * 保存已加载页的内存缓存，为null表示不使用
+     */
+    private MemoryPageCache mMemoryCache;
+
+    /**
+     * 列表在内存缓存中的id
+     */
+    private String mListId;
+
+    /**
+     * 列表中显示的是缓存的数据，第一页返回后和缓存对比，只通知真正变化的item
+     */
+    private boolean mShowingCache;
+
+    /**
+     * 从第一页开始向后加载成功的页数，用来确定写入缓存的页序号
+     */
+    private int mAppendedPageCount;
+
+    public PagedLoader(LoadMoreRecyclerView recyclerView, PagedAdapter<T, ?> adapter, PagedSource<Key, T> source) {
+        mRecyclerView = recyclerView;
+        mAdapter = adapter;
+        mSource = source;
+        mRecyclerView.setLoadMoreListener(this);
+        mRecyclerView.setLoadPreviousListener(this);
+    }
+
+    /**
+     * 设置加载数据的线程池
+     * @param executor 数据源的方法都在这里执行
+     */
+    public void setExecutor(Executor executor) {
+        mExecutor = executor;
+    }
+
+    /**
+     * 打开分页窗口模式，见{@link LoadMoreRecyclerView#setMaxPages(int, LoadMoreRecyclerView.PageEvictListener)}
+     * @param maxPages 最多保留的页数，0表示关闭
+     */
+    public void setMaxPages(int maxPages) {
+        mRecyclerView.setMaxPages(maxPages, this);
+    }
+
+    /**
+     * 设置磁盘缓存，{@link #start()}时先显示缓存的数据，再和第一页的数据对比，需要在start之前调用
+     * @param cache 为null时不使用缓存
+     */
+    public void setPageCache(DiskPageCache<T> cache) {
+        mPageCache = cache;
+    }
+
+    /**
+     * 设置内存缓存，重新创建的列表调用{@link #start()}时直接恢复之前加载的页，需要在start之前调用
+     * @param cache 为null时不使用缓存，一般使用{@link MemoryPageCache#getInstance(android.content.Context)}
+     * @param listId 列表的id，同一个列表重新创建时使用相同的id
+     */
+    public void setMemoryCache(MemoryPageCache cache, String listId) {
+        mMemoryCache = cache;
+        mListId = listId;
+    }
+
+    /**
+     * 清空数据并开始加载第一页
+     * <p>
+     * 设置了内存缓存并且缓存中有第一页时，直接恢复缓存的页和翻页位置，不请求网络；
+     * 设置了磁盘缓存时先在后台线程中读取缓存并显示，之后和刷新一样加载第一页并对比。需要重新加载时使用{@link #refresh()}
+     */
+    public void start() {
+        mAdapter.clearItems();
+        mPages.clear();
+        mPrevKey = null;
+        mNextKey = null;
+        mInitialLoaded = false;
+        mShowingCache = false;
+        mAppendedPageCount = 0;
+        mRecyclerView.setLoadPreviousEnable(false);
+        mRecyclerView.setLoadMoreEnable(true);
+        mRecyclerView.setAdapter(mAdapter);
+        // 第一页当做一次加载更多，加载期间显示footer
+        mRecyclerView.setLoadingMore(true);
+        if (restoreMemoryCache()) {
+            return;
+        }
+        if (mPageCache != null) {
+            loadCache();
+        } else {
+            load(LOAD_INITIAL, null);
+        }
+    }
+
+    @Override
+    public void onLoadMore() {
+        if (!mInitialLoaded) {
+            if (mShowingCache) {
+                loadInitialAndDiff();
+            } else {
+                load(LOAD_INITIAL, null);
+            }
+        } else if (mNextKey == null) {
+            mRecyclerView.notifyHasMore(false);
+        } else {
+            load(LOAD_AFTER, mNextKey);
+        }
+    }
+
+    @Override
+    public void onLoadPrevious() {
+        if (mPrevKey == null) {
+            mRecyclerView.notifyPreviousFinish(0, false);
+        } else {
+            load(LOAD_BEFORE, mPrevKey);
+        }
+    }
+
+    @Override
+    public void onEvictFirstPage(int itemCount) {
+        mAdapter.removeFirstItems(itemCount);
+        mPages.removeFirst();
+        mPrevKey = mPages.isEmpty() ? null : mPages.peekFirst().prevKey;
+    }
+
+    @Override
+    public void onEvictLastPage(int itemCount) {
+        mAdapter.removeLastItems(itemCount);
+        mPages.removeLast();
+        mNextKey = mPages.isEmpty() ? null : mPages.peekLast().nextKey;
+        // 滑回来时重新加载的是同一页，写入缓存时使用原来的序号
+        mAppendedPageCount = Math.max(0, mAppendedPageCount - 1);
+    }
+
+    /**
+     * 保留当前列表重新加载第一页，和当前数据对比后只通知真正变化的item，已有item不会重新绑定
+     * <p>
+     * 对比在后台线程中进行，适合下拉刷新；需要清空列表重新开始时使用{@link #start()}
+     */
+    public void refresh() {
+        mRecyclerView.cancelLoads();
+        mLoadingBeforeGeneration = -1;
+        loadInitialAndDiff();
+    }
+
+    /**
+     * 取消正在进行的加载，已经发出的请求返回后会被丢弃
+     */
+    public void cancel() {
+        mRecyclerView.cancelLoads();
+    }
+
+    /**
+     * 从内存缓存中恢复连续的页，按加载的顺序依次插入
+     * @return 缓存中没有第一页时返回false
+     */
+    @SuppressWarnings("unchecked")
+    private boolean restoreMemoryCache() {
+        if (mMemoryCache == null) {
+            return false;
+        }
+        List<PagedSource.Page<?, ?>> pages = mMemoryCache.getPages(mListId);
+        if (pages.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < pages.size(); i++) {
+            applyPage(i == 0 ? LOAD_INITIAL : LOAD_AFTER, (PagedSource.Page<Key, T>) pages.get(i));
+        }
+        return true;
+    }
+
+    /**
+     * 在后台线程中读取磁盘缓存，切回主线程显示后开始加载第一页
+     */
+    private void loadCache() {
+        final int generation = mRecyclerView.getLoadGeneration();
+        mLoadingAfterGeneration = generation;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!mRecyclerView.isCurrentLoadGeneration(generation)) {
+                    return;
+                }
+                final List<T> items = mPageCache.read();
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!mRecyclerView.isCurrentLoadGeneration(generation)) {
+                            return;
+                        }
+                        mLoadingAfterGeneration = -1;
+                        applyCache(items);
+                        if (mShowingCache) {
+                            loadInitialAndDiff();
+                        } else {
+                            load(LOAD_INITIAL, null);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 在主线程中显示缓存的数据，加载第一页期间footer仍然显示正在加载，不会触发加载更多
+     */
+    private void applyCache(List<T> items) {
+        List<T> freshItems = mAdapter.mergeOverlap(items);
+        if (freshItems.isEmpty()) {
+            return;
+        }
+        mAdapter.appendItems(freshItems);
+        mAdapter.notifyItemRangeInserted(0, freshItems.size());
+        mShowingCache = true;
+    }
+
+    /**
+     * 加载第一页并和当前列表对比，用于下拉刷新和显示缓存之后的第一页
+     */
+    private void loadInitialAndDiff() {
+        final int generation = mRecyclerView.getLoadGeneration();
+        if (mLoadingAfterGeneration == generation) {
+            return;
+        }
+        mLoadingAfterGeneration = generation;
+        final List<T> oldItems = mAdapter.snapshotItems();
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!mRecyclerView.isCurrentLoadGeneration(generation)) {
+                    return;
+                }
+                PagedSource.Page<Key, T> page = null;
+                ListDiff.Result diff = null;
+                Exception error = null;
+                try {
+                    page = mSource.loadInitial();
+                    List<T> newItems = page.items != null ? page.items : new ArrayList<T>();
+                    diff = ListDiff.calculate(oldItems, newItems, mAdapter);
+                    writeCache(generation, 0, newItems);
+                } catch (Exception e) {
+                    error = e;
+                }
+                final PagedSource.Page<Key, T> result = page;
+                final ListDiff.Result resultDiff = diff;
+                final Exception resultError = error;
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!mRecyclerView.isCurrentLoadGeneration(generation)) {
+                            return;
+                        }
+                        mLoadingAfterGeneration = -1;
+                        if (resultError != null) {
+                            onLoadFailed(LOAD_INITIAL, resultError);
+                        } else {
+                            applyRefresh(result, resultDiff);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 在后台线程中加载，结果切回主线程处理
+     * <p>
+     * 每次加载都记录当前的代数，刷新或者setAdapter之后，旧的请求不会再执行，已经返回的结果也会被丢弃；
+     * 同一方向上已经有请求在进行时，重复的触发直接合并
+     */
+    private void load(final int direction, final Key key) {
+        final int generation = mRecyclerView.getLoadGeneration();
+        if (direction == LOAD_BEFORE) {
+            if (mLoadingBeforeGeneration == generation) {
+                return;
+            }
+            mLoadingBeforeGeneration = generation;
+        } else {
+            if (mLoadingAfterGeneration == generation) {
+                return;
+            }
+            mLoadingAfterGeneration = generation;
+        }
+        final int pageIndex = direction == LOAD_AFTER ? mAppendedPageCount : 0;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!mRecyclerView.isCurrentLoadGeneration(generation)) {
+                    // 还没开始执行就已经被取消了
+                    return;
+                }
+                PagedSource.Page<Key, T> page = null;
+                Exception error = null;
+                try {
+                    if (direction == LOAD_INITIAL) {
+                        page = mSource.loadInitial();
+                    } else if (direction == LOAD_AFTER) {
+                        page = mSource.loadAfter(key);
+                    } else {
+                        page = mSource.loadBefore(key);
+                    }
+                    if (direction != LOAD_BEFORE && page.items != null) {
+                        writeCache(generation, pageIndex, page.items);
+                    }
+                } catch (Exception e) {
+                    error = e;
+                }
+                final PagedSource.Page<Key, T> result = page;
+                final Exception resultError = error;
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!mRecyclerView.isCurrentLoadGeneration(generation)) {
+                            // 过期的结果，直接丢弃
+                            return;
+                        }
+                        if (direction == LOAD_BEFORE) {
+                            mLoadingBeforeGeneration = -1;
+                        } else {
+                            mLoadingAfterGeneration = -1;
+                        }
+                        if (resultError != null) {
+                            onLoadFailed(direction, resultError);
+                        } else {
+                            if (direction != LOAD_BEFORE && mMemoryCache != null) {
+                                mMemoryCache.put(mListId, key, result);
+                            }
+                            applyPage(direction, result);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 在主线程中把一页数据插入到adapter
+     */
+    private void applyPage(int direction, PagedSource.Page<Key, T> page) {
+        // 数据源的分页可能有重叠（例如翻页期间服务端插入了新数据），已有的数据不再重复插入
+        List<T> items = page.items != null ? mAdapter.mergeOverlap(page.items) : null;
+        int itemCount = items != null ? items.size() : 0;
+        if (direction == LOAD_BEFORE) {
+            if (itemCount > 0) {
+                mAdapter.prependItems(items);
+                mPages.addFirst(new PageKeys<Key>(page.prevKey, page.nextKey));
+            }
+            mPrevKey = page.prevKey;
+            mRecyclerView.notifyPreviousFinish(itemCount, mPrevKey != null);
+        } else {
+            if (itemCount > 0) {
+                mAdapter.appendItems(items);
+                mPages.addLast(new PageKeys<Key>(page.prevKey, page.nextKey));
+            }
+            mNextKey = page.nextKey;
+            mInitialLoaded = true;
+            mAppendedPageCount = direction == LOAD_INITIAL ? 1 : mAppendedPageCount + 1;
+            mRecyclerView.notifyPageAppended(itemCount, mNextKey != null);
+            if (direction == LOAD_INITIAL && page.prevKey != null) {
+                // 从中间开始加载，打开加载上一页
+                mPrevKey = page.prevKey;
+                mRecyclerView.notifyPreviousFinish(0, true);
+            }
+        }
+    }
+
+    /**
+     * 在主线程中用刷新得到的第一页替换当前数据，只通知差分出来的变化
+     */
+    private void applyRefresh(PagedSource.Page<Key, T> page, ListDiff.Result diff) {
+        if (mMemoryCache != null) {
+            // 旧的页可能已经过期，从新的第一页重新开始缓存
+            mMemoryCache.removeList(mListId);
+            mMemoryCache.put(mListId, null, page);
+        }
+        List<T> items = page.items != null ? page.items : new ArrayList<T>();
+        mAdapter.replaceItems(items);
+        diff.dispatchUpdatesTo(mAdapter);
+        mPages.clear();
+        if (!items.isEmpty()) {
+            mPages.addLast(new PageKeys<Key>(page.prevKey, page.nextKey));
+        }
+        mNextKey = page.nextKey;
+        mPrevKey = page.prevKey;
+        mInitialLoaded = true;
+        mShowingCache = false;
+        mAppendedPageCount = 1;
+        mRecyclerView.resetPageWindow();
+        mRecyclerView.notifyHasMore(mNextKey != null);
+        mRecyclerView.notifyPreviousFinish(0, mPrevKey != null);
+    }
+
+    /**
+     * 在后台线程中把加载到的页写入磁盘缓存，过期的结果不写入
+     * @param pageIndex 从第一页开始的序号
+     */
+    private void writeCache(int generation, int pageIndex, List<T> items) {
+        if (mPageCache != null && mRecyclerView.isCurrentLoadGeneration(generation)) {
+            mPageCache.writePage(pageIndex, items);
+        }
+    }
+
+    /**
+     * 加载失败，结束加载状态
+     * <p>
+     * 第一页和下一页失败时footer显示加载失败，由列表按重试策略重试；下拉刷新失败时保留当前数据，上一页失败时等待下一次触发
+     */
+    private void onLoadFailed(int direction, Exception error) {
+        Log.w(TAG, "load page failed", error);
+        if (direction == LOAD_BEFORE) {
+            mRecyclerView.setLoadingPrevious(false);
+        } else if (direction == LOAD_AFTER || !mInitialLoaded) {
+            mRecyclerView.notifyMoreFailed(error);
+        } else {
+            mRecyclerView.setLoadingMore(false);
+        }
+    }
+
+    /**
+     * 一页的key，不持有数据，避免被移除的页无法回收
+     */
+    private static class PageKeys<Key> {
+
+        private final Key prevKey;
+
+        private final Key nextKey;
+
+        private PageKeys(Key prevKey, Key nextKey) {
+            this.prevKey = prevKey;
+            this.nextKey = nextKey;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.brooks.loadmorerecyclerview;
+
+import java.util.List;
+
+/**
+ * 分页数据源，所有方法都在{@link PagedLoader}指定的后台线程中调用，可以直接进行网络请求和数据解析
+ * @param <Key> 页的标识，例如页码或者服务端返回的游标
+ * @param <T> 数据类型
+ */
+public interface PagedSource<Key, T> {
+
+    /**
+     * 加载第一页
+     */
+    Page<Key, T> loadInitial() throws Exception;
+
+    /**
+     * 加载key对应的下一页
+     * @param key 上一次返回的{@link Page#nextKey}
+     */
+    Page<Key, T> loadAfter(Key key) throws Exception;
+
+    /**
+     * 加载key对应的上一页
+     * @param key 上一次返回的{@link Page#prevKey}
+     */
+    Page<Key, T> loadBefore(Key key) throws Exception;
+
+    /**
+     * 一页数据
+     */
+    class Page<Key, T> {
+
+        /**
+         * 这一页的数据
+         */
+        public final List<T> items;
+
+        /**
+         * 上一页的key，为null表示没有上一页
+         */
+        public final Key prevKey;
+
+        /**
+         * 下一页的key，为null表示没有下一页
+         */
+        public final Key nextKey;
+
+        public Page(List<T> items, Key prevKey, Key nextKey) {
+            this.items = items;
+            this.prevKey = prevKey;
+            this.nextKey = nextKey;
+        }
+    }
+}
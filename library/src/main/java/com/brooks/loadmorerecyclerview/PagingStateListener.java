@@ -0,0 +1,23 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.os.Bundle;
+
+/**
+ * 保存和恢复业务的翻页位置，例如页码或者服务端返回的游标，LoadMoreRecyclerView和McLoadMoreRecyclerView共用
+ * <p>
+ * 翻页位置和列表的状态一起保存，进程被杀后恢复时可以从原来的位置继续加载
+ */
+public interface PagingStateListener {
+
+    /**
+     * 列表保存状态时调用
+     * @param outState 写入翻页位置，只能保存少量数据
+     */
+    void onSavePagingState(Bundle outState);
+
+    /**
+     * 列表恢复状态时调用，在Activity.onRestoreInstanceState期间，晚于onCreate中的setAdapter
+     * @param savedState onSavePagingState中写入的数据
+     */
+    void onRestorePagingState(Bundle savedState);
+}
@@ -0,0 +1,94 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseArray;
+
+import java.util.List;
+
+/**
+ * 占位模式的adapter，由{@link PositionalLoader}管理数据，一开始就返回数据总数，数据按页保存，只有加载过的页占用内存
+ * <p>
+ * 业务在onBindViewHolder中通过{@link #getItem(int)}取数据，返回null时表示这个位置还没有加载，绑定一个轻量的占位，
+ * 例如灰色的色块，不要在占位上加载图片；数据加载出来后会通知对应的位置重新绑定
+ * @param <T> 数据类型
+ * @param <VH> ViewHolder类型
+ */
+public abstract class PlaceholderAdapter<T, VH extends RecyclerView.ViewHolder> extends RecyclerView.Adapter<VH> {
+
+    /**
+     * 页序号到这一页数据的映射
+     */
+    private final SparseArray<List<T>> mPages = new SparseArray<List<T>>();
+
+    private int mTotalCount;
+
+    private int mPageSize = 1;
+
+    /**
+     * 获取某个位置的数据
+     * @return 还没有加载时返回null
+     */
+    public T getItem(int position) {
+        List<T> page = mPages.get(position / mPageSize);
+        int index = position % mPageSize;
+        return page != null && index < page.size() ? page.get(index) : null;
+    }
+
+    /**
+     * 某个位置的数据是否已经加载
+     */
+    public boolean isLoaded(int position) {
+        return getItem(position) != null;
+    }
+
+    @Override
+    public int getItemCount() {
+        return mTotalCount;
+    }
+
+    /**
+     * 清空数据，重新设置总数和每页的数量
+     */
+    void reset(int totalCount, int pageSize) {
+        mPages.clear();
+        mTotalCount = Math.max(0, totalCount);
+        mPageSize = Math.max(1, pageSize);
+    }
+
+    int getPageSize() {
+        return mPageSize;
+    }
+
+    /**
+     * 总页数，最后一页可能不满
+     */
+    int getPageCount() {
+        return (mTotalCount + mPageSize - 1) / mPageSize;
+    }
+
+    boolean isPageLoaded(int page) {
+        return mPages.get(page) != null;
+    }
+
+    void setPage(int page, List<T> items) {
+        mPages.put(page, items);
+    }
+
+    void removePage(int page) {
+        mPages.remove(page);
+    }
+
+    /**
+     * 已经加载的页数
+     */
+    int getLoadedPageCount() {
+        return mPages.size();
+    }
+
+    /**
+     * 第index个已经加载的页的序号，按序号从小到大排列
+     */
+    int getLoadedPageAt(int index) {
+        return mPages.keyAt(index);
+    }
+}
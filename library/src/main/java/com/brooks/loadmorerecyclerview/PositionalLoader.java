@@ -0,0 +1,191 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.SparseIntArray;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * 使用{@link PositionalSource}驱动LoadMoreRecyclerView的占位模式
+ * <p>
+ * 列表一开始就显示全部数量的占位，列表停下来之后只加载可见范围及前后几页中缺少的页，
+ * 快速滑动或者scrollToPosition(5000)时直接加载落点附近的页，不会加载中间经过的页
+ * @param <T> 数据类型
+ */
+public class PositionalLoader<T> implements LoadMoreRecyclerView.PlaceholderListener {
+
+    private static final String TAG = "PositionalLoader";
+
+    private final LoadMoreRecyclerView mRecyclerView;
+
+    private final PlaceholderAdapter<T, ?> mAdapter;
+
+    private final PositionalSource<T> mSource;
+
+    private final int mPageSize;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * 加载数据的线程池，默认使用AsyncTask的线程池
+     */
+    private Executor mExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+
+    /**
+     * 可见范围前后各预加载的页数
+     */
+    private int mPrefetchPages = 1;
+
+    /**
+     * 最多保留的页数，0表示不限制
+     */
+    private int mMaxPages;
+
+    /**
+     * 正在加载的页序号到发起加载时的代数，用于合并同一页的重复请求
+     */
+    private final SparseIntArray mLoadingPages = new SparseIntArray();
+
+    /**
+     * @param pageSize 每页的数量，数据源每次加载一页
+     */
+    public PositionalLoader(LoadMoreRecyclerView recyclerView, PlaceholderAdapter<T, ?> adapter,
+                            PositionalSource<T> source, int pageSize) {
+        mRecyclerView = recyclerView;
+        mAdapter = adapter;
+        mSource = source;
+        mPageSize = Math.max(1, pageSize);
+    }
+
+    /**
+     * 设置加载数据的线程池
+     * @param executor 数据源的方法都在这里执行
+     */
+    public void setExecutor(Executor executor) {
+        mExecutor = executor;
+    }
+
+    /**
+     * 设置可见范围前后各预加载的页数
+     * @param prefetchPages 默认为1
+     */
+    public void setPrefetchPages(int prefetchPages) {
+        mPrefetchPages = Math.max(0, prefetchPages);
+    }
+
+    /**
+     * 设置最多保留的页数，超出时移除离可见范围最远的页，移除的位置重新显示占位
+     * @param maxPages 0表示不限制，默认为0
+     */
+    public void setMaxPages(int maxPages) {
+        mMaxPages = Math.max(0, maxPages);
+    }
+
+    /**
+     * 清空数据，显示totalCount个占位，列表布局之后开始加载可见的页
+     * @param totalCount 数据总数
+     */
+    public void start(int totalCount) {
+        mAdapter.reset(totalCount, mPageSize);
+        mLoadingPages.clear();
+        mRecyclerView.setLoadMoreEnable(false);
+        mRecyclerView.setPlaceholderListener(this);
+        mRecyclerView.setAdapter(mAdapter);
+    }
+
+    @Override
+    public void onVisibleRangeChanged(int firstPosition, int lastPosition) {
+        int firstVisiblePage = firstPosition / mPageSize;
+        int lastVisiblePage = lastPosition / mPageSize;
+        int firstPage = Math.max(0, firstVisiblePage - mPrefetchPages);
+        int lastPage = Math.min(mAdapter.getPageCount() - 1, lastVisiblePage + mPrefetchPages);
+        int generation = mRecyclerView.getLoadGeneration();
+        // 先加载可见的页，再加载前后预加载的页
+        for (int page = firstVisiblePage; page <= Math.min(lastVisiblePage, lastPage); page++) {
+            loadPage(page, generation);
+        }
+        for (int page = firstPage; page <= lastPage; page++) {
+            loadPage(page, generation);
+        }
+        if (mMaxPages > 0) {
+            trimPages(firstVisiblePage, lastVisiblePage);
+        }
+    }
+
+    /**
+     * 取消正在进行的加载，已经发出的请求返回后会被丢弃
+     */
+    public void cancel() {
+        mRecyclerView.cancelLoads();
+        mLoadingPages.clear();
+    }
+
+    /**
+     * 在后台线程中加载一页，已经加载或者正在加载时忽略
+     */
+    private void loadPage(final int page, final int generation) {
+        if (mAdapter.isPageLoaded(page) || mLoadingPages.get(page, -1) == generation) {
+            return;
+        }
+        mLoadingPages.put(page, generation);
+        final int startPosition = page * mPageSize;
+        final int count = Math.min(mPageSize, mAdapter.getItemCount() - startPosition);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!mRecyclerView.isCurrentLoadGeneration(generation)) {
+                    return;
+                }
+                List<T> items = null;
+                Exception error = null;
+                try {
+                    items = mSource.loadRange(startPosition, count);
+                } catch (Exception e) {
+                    error = e;
+                }
+                final List<T> result = items;
+                final Exception resultError = error;
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!mRecyclerView.isCurrentLoadGeneration(generation)) {
+                            return;
+                        }
+                        mLoadingPages.delete(page);
+                        if (resultError != null || result == null) {
+                            // 保留占位，下一次列表停下来时重新加载
+                            Log.w(TAG, "load page " + page + " failed", resultError);
+                            return;
+                        }
+                        mAdapter.setPage(page, result);
+                        mAdapter.notifyItemRangeChanged(startPosition, count);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 保留的页数超过上限时，移除离可见范围最远的页
+     */
+    private void trimPages(int firstVisiblePage, int lastVisiblePage) {
+        while (mAdapter.getLoadedPageCount() > mMaxPages) {
+            // 已加载的页按序号排列，最远的页一定是第一个或者最后一个
+            int first = mAdapter.getLoadedPageAt(0);
+            int last = mAdapter.getLoadedPageAt(mAdapter.getLoadedPageCount() - 1);
+            int page = firstVisiblePage - first >= last - lastVisiblePage ? first : last;
+            if (page >= firstVisiblePage - mPrefetchPages && page <= lastVisiblePage + mPrefetchPages) {
+                // 剩下的都在可见范围附近
+                return;
+            }
+            mAdapter.removePage(page);
+            int startPosition = page * mPageSize;
+            int count = Math.min(mPageSize, mAdapter.getItemCount() - startPosition);
+            mAdapter.notifyItemRangeChanged(startPosition, count);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.brooks.loadmorerecyclerview;
+
+import java.util.List;
+
+/**
+ * 按位置加载的数据源，用于总数已知的列表，所有方法都在{@link PositionalLoader}指定的后台线程中调用
+ * @param <T> 数据类型
+ */
+public interface PositionalSource<T> {
+
+    /**
+     * 加载从startPosition开始的count条数据
+     * @param startPosition 第一条数据的位置
+     * @param count 需要的数量，返回的数量不足时剩下的位置继续显示占位
+     */
+    List<T> loadRange(int startPosition, int count) throws Exception;
+}
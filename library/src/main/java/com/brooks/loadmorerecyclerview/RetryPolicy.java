@@ -0,0 +1,107 @@
+package com.brooks.loadmorerecyclerview;
+
+import java.util.Random;
+
+/**
+ * 加载更多失败后的自动重试策略
+ * <p>
+ * 重试间隔按指数增长，并随机减少一部分，服务端故障时大量客户端不会在同一时刻一起重试；
+ * 连续失败超过最大次数后不再自动重试，只能由用户点击footer重试
+ */
+public class RetryPolicy {
+
+    /**
+     * 第一次重试的延迟，单位ms
+     */
+    private long mInitialDelay = 1000;
+
+    /**
+     * 最大延迟，单位ms
+     */
+    private long mMaxDelay = 30000;
+
+    /**
+     * 每次失败后延迟增长的倍数
+     */
+    private float mMultiplier = 2;
+
+    /**
+     * 随机减少的比例，0表示不随机
+     */
+    private float mJitter = 0.5f;
+
+    /**
+     * 最多自动重试的次数
+     */
+    private int mMaxAttempts = 5;
+
+    private final Random mRandom = new Random();
+
+    public RetryPolicy() {
+    }
+
+    /**
+     * @param initialDelay 第一次重试的延迟，单位ms
+     * @param maxDelay 最大延迟，单位ms
+     * @param maxAttempts 最多自动重试的次数
+     */
+    public RetryPolicy(long initialDelay, long maxDelay, int maxAttempts) {
+        setInitialDelay(initialDelay);
+        setMaxDelay(maxDelay);
+        setMaxAttempts(maxAttempts);
+    }
+
+    /**
+     * 设置第一次重试的延迟
+     * @param initialDelay 单位ms，默认为1000
+     */
+    public void setInitialDelay(long initialDelay) {
+        mInitialDelay = Math.max(0, initialDelay);
+    }
+
+    /**
+     * 设置最大延迟
+     * @param maxDelay 单位ms，默认为30000
+     */
+    public void setMaxDelay(long maxDelay) {
+        mMaxDelay = Math.max(0, maxDelay);
+    }
+
+    /**
+     * 设置每次失败后延迟增长的倍数
+     * @param multiplier 不小于1，默认为2
+     */
+    public void setMultiplier(float multiplier) {
+        mMultiplier = Math.max(1, multiplier);
+    }
+
+    /**
+     * 设置随机减少的比例
+     * @param jitter 0到1之间，默认为0.5，即实际延迟在计算值的一半到全部之间
+     */
+    public void setJitter(float jitter) {
+        mJitter = Math.max(0, Math.min(1, jitter));
+    }
+
+    /**
+     * 设置最多自动重试的次数
+     * @param maxAttempts 0表示不自动重试，默认为5
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        mMaxAttempts = Math.max(0, maxAttempts);
+    }
+
+    /**
+     * 连续失败failureCount次之后，距离下一次自动重试的延迟
+     * @param failureCount 连续失败的次数，从1开始
+     * @return 单位ms，-1表示不再自动重试
+     */
+    public long getRetryDelay(int failureCount) {
+        if (failureCount < 1 || failureCount > mMaxAttempts) {
+            return -1;
+        }
+        double delay = Math.min(mInitialDelay * Math.pow(mMultiplier, failureCount - 1), mMaxDelay);
+        delay -= delay * mJitter * mRandom.nextDouble();
+        return (long) delay;
+    }
+}
@@ -0,0 +1,265 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseArray;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 多个列表共用的RecycledViewPool，例如ViewPager中使用相同item类型的几个LoadMoreRecyclerView，
+ * 切换tab时新的列表可以直接使用其他列表回收的holder
+ * <p>
+ * 每种类型的缓存数量会根据各个列表中同时显示的holder数量的峰值自动调大，不需要为每种类型手动调用setMaxRecycledViews，
+ * 显示的数量由LoadMoreRecyclerView和McLoadMoreRecyclerView在holder attach和detach时通知，其他RecyclerView的holder不计算在内；
+ * 同一个{@link FooterRenderer}创建的footer在各个列表之间也可以复用，自定义footer需要各个列表使用同一个renderer对象。
+ * <p>
+ * 列表离开界面时默认不会回收屏幕上的holder，需要配合LinearLayoutManager.setRecycleChildrenOnDetach(true)使用。
+ * 只能在主线程使用。
+ */
+public class SharedRecycledViewPool extends RecyclerView.RecycledViewPool {
+
+    /**
+     * RecycledViewPool中每种类型默认最多缓存的数量
+     */
+    private static final int DEFAULT_MAX_RECYCLED_VIEWS = 5;
+
+    /**
+     * footer使用的item类型从这里开始分配，每个renderer占用两个，分别用于footer和header
+     */
+    private static final int FIRST_FOOTER_VIEW_TYPE = Integer.MIN_VALUE + 16;
+
+    /**
+     * 最多可以分配的footer类型数量
+     */
+    private static final int MAX_FOOTER_VIEW_TYPES = 1024;
+
+    /**
+     * 每种item类型的统计
+     */
+    private final SparseArray<TypeStats> mTypeStats = new SparseArray<TypeStats>();
+
+    /**
+     * 每个renderer分配到的footer类型
+     */
+    private final Map<FooterRenderer, Integer> mFooterViewTypes = new HashMap<FooterRenderer, Integer>();
+
+    /**
+     * 自动调整时每种类型最多缓存的数量
+     */
+    private int mMaxPoolSizeLimit = 30;
+
+    /**
+     * 从pool中没有取到holder的次数，每次RecyclerView都会新建一个holder
+     */
+    private int mCreateCount;
+
+    /**
+     * 从pool中取到holder的次数
+     */
+    private int mReuseCount;
+
+    /**
+     * 设置自动调整时每种类型最多缓存的数量，避免某个列表一次显示了很多item后pool一直占用很多内存
+     * @param limit 默认为30
+     */
+    public void setMaxPoolSizeLimit(int limit) {
+        mMaxPoolSizeLimit = Math.max(1, limit);
+    }
+
+    /**
+     * 设置某种类型至少缓存的数量，峰值超过这个数量时仍然会自动调大
+     */
+    @Override
+    public void setMaxRecycledViews(int viewType, int max) {
+        TypeStats stats = getTypeStats(viewType);
+        stats.mMinSize = max;
+        updateMaxSize(viewType, stats);
+    }
+
+    @Override
+    public RecyclerView.ViewHolder getRecycledView(int viewType) {
+        RecyclerView.ViewHolder holder = super.getRecycledView(viewType);
+        TypeStats stats = getTypeStats(viewType);
+        if (holder != null) {
+            stats.mPooledCount--;
+            mReuseCount++;
+        } else {
+            stats.mCreateCount++;
+            mCreateCount++;
+        }
+        return holder;
+    }
+
+    @Override
+    public void putRecycledView(RecyclerView.ViewHolder holder) {
+        TypeStats stats = getTypeStats(holder.getItemViewType());
+        // 超过缓存数量时父类会直接丢弃
+        if (stats.mPooledCount < stats.mMaxSize) {
+            stats.mPooledCount++;
+        }
+        super.putRecycledView(holder);
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        for (int i = 0; i < mTypeStats.size(); i++) {
+            mTypeStats.valueAt(i).mPooledCount = 0;
+        }
+    }
+
+    /**
+     * 所有类型新建holder的总次数，可以用来衡量共用pool的效果
+     */
+    public int getCreateCount() {
+        return mCreateCount;
+    }
+
+    /**
+     * 某种类型新建holder的次数
+     */
+    public int getCreateCount(int viewType) {
+        TypeStats stats = mTypeStats.get(viewType);
+        return stats != null ? stats.mCreateCount : 0;
+    }
+
+    /**
+     * 所有类型从pool中复用holder的总次数
+     */
+    public int getReuseCount() {
+        return mReuseCount;
+    }
+
+    /**
+     * 某种类型当前最多缓存的数量
+     */
+    public int getMaxRecycledViews(int viewType) {
+        TypeStats stats = mTypeStats.get(viewType);
+        return stats != null ? stats.mMaxSize : DEFAULT_MAX_RECYCLED_VIEWS;
+    }
+
+    /**
+     * 清空统计的次数，峰值和缓存数量保留
+     */
+    public void resetCounts() {
+        mCreateCount = 0;
+        mReuseCount = 0;
+        for (int i = 0; i < mTypeStats.size(); i++) {
+            mTypeStats.valueAt(i).mCreateCount = 0;
+        }
+    }
+
+    /**
+     * 列表中显示了一个holder
+     * <p>
+     * 正在使用的数量只按列表中显示的holder计算，被丢弃、留在列表的view cache中的holder在detach时已经减掉，
+     * 不会因为从pool中取出后没有放回而一直增加
+     */
+    void onViewAttached(RecyclerView.ViewHolder holder) {
+        int viewType = holder.getItemViewType();
+        TypeStats stats = getTypeStats(viewType);
+        stats.mInUseCount++;
+        if (stats.mInUseCount > stats.mPeakInUseCount) {
+            stats.mPeakInUseCount = stats.mInUseCount;
+            updateMaxSize(viewType, stats);
+        }
+    }
+
+    /**
+     * 列表中的一个holder不再显示
+     */
+    void onViewDetached(RecyclerView.ViewHolder holder) {
+        TypeStats stats = getTypeStats(holder.getItemViewType());
+        if (stats.mInUseCount > 0) {
+            stats.mInUseCount--;
+        }
+    }
+
+    /**
+     * 列表进入或离开界面，离开界面时没有回收的holder不再算作正在使用，回到界面时重新计算
+     */
+    void onListAttachStateChanged(RecyclerView list, boolean attached) {
+        for (int i = 0; i < list.getChildCount(); i++) {
+            RecyclerView.ViewHolder holder = list.getChildViewHolder(list.getChildAt(i));
+            if (attached) {
+                onViewAttached(holder);
+            } else {
+                onViewDetached(holder);
+            }
+        }
+    }
+
+    /**
+     * 获取renderer对应的footer类型，同一个renderer（按equals比较）在所有共用这个pool的列表中使用同一个类型
+     * @param header 是否用于加载上一页的header
+     */
+    int getFooterViewType(FooterRenderer renderer, boolean header) {
+        Integer viewType = mFooterViewTypes.get(renderer);
+        if (viewType == null) {
+            if (mFooterViewTypes.size() >= MAX_FOOTER_VIEW_TYPES) {
+                throw new IllegalStateException("too many footer renderers share the pool");
+            }
+            viewType = FIRST_FOOTER_VIEW_TYPE + mFooterViewTypes.size() * 2;
+            mFooterViewTypes.put(renderer, viewType);
+        }
+        return header ? viewType + 1 : viewType;
+    }
+
+    /**
+     * 是否是分配给footer的item类型，业务adapter不能使用这些类型
+     */
+    static boolean isFooterViewType(int viewType) {
+        return viewType >= FIRST_FOOTER_VIEW_TYPE && viewType < FIRST_FOOTER_VIEW_TYPE + MAX_FOOTER_VIEW_TYPES * 2;
+    }
+
+    private TypeStats getTypeStats(int viewType) {
+        TypeStats stats = mTypeStats.get(viewType);
+        if (stats == null) {
+            stats = new TypeStats();
+            mTypeStats.put(viewType, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * 缓存数量取峰值和至少缓存的数量中较大的一个，峰值部分不超过mMaxPoolSizeLimit
+     */
+    private void updateMaxSize(int viewType, TypeStats stats) {
+        int maxSize = Math.max(stats.mMinSize, Math.min(stats.mPeakInUseCount, mMaxPoolSizeLimit));
+        if (maxSize != stats.mMaxSize) {
+            stats.mMaxSize = maxSize;
+            super.setMaxRecycledViews(viewType, maxSize);
+        }
+    }
+
+    /**
+     * 某种item类型的统计
+     */
+    private static class TypeStats {
+
+        /**
+         * 至少缓存的数量
+         */
+        private int mMinSize = DEFAULT_MAX_RECYCLED_VIEWS;
+
+        /**
+         * 当前最多缓存的数量
+         */
+        private int mMaxSize = DEFAULT_MAX_RECYCLED_VIEWS;
+
+        /**
+         * 当前在pool中的数量
+         */
+        private int mPooledCount;
+
+        /**
+         * 在界面上的各个列表中正在显示的数量
+         */
+        private int mInUseCount;
+
+        private int mPeakInUseCount;
+
+        private int mCreateCount;
+    }
+}
@@ -0,0 +1,97 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.content.Context;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * 使用{@link LoadingFooterView}的footer，在一个View上直接绘制加载圆弧和文字，
+ * 不需要inflate布局，也不依赖WhorlView，创建和布局的开销都比布局文件小
+ */
+public class SpinnerFooterRenderer implements FooterRenderer {
+
+    private CharSequence mLoadingText;
+
+    private CharSequence mLoadMoreText;
+
+    private CharSequence mNoMoreText;
+
+    private CharSequence mErrorText;
+
+    private int mHeight;
+
+    /**
+     * 使用默认的提示文字
+     */
+    public SpinnerFooterRenderer(Context context) {
+        this(context.getString(R.string.loading), context.getString(R.string.loadmore_recycler_load_more),
+                context.getString(R.string.loadmore_recycler_no_more),
+                context.getString(R.string.loadmore_recycler_load_failed));
+    }
+
+    /**
+     * @param loadingText 正在加载时的文字，可以为null
+     * @param loadMoreText 手动加载模式下等待点击时的文字
+     * @param noMoreText 没有更多时的文字
+     */
+    public SpinnerFooterRenderer(CharSequence loadingText, CharSequence loadMoreText, CharSequence noMoreText) {
+        this(loadingText, loadMoreText, noMoreText, loadMoreText);
+    }
+
+    /**
+     * @param loadingText 正在加载时的文字，可以为null
+     * @param loadMoreText 手动加载模式下等待点击时的文字
+     * @param noMoreText 没有更多时的文字
+     * @param errorText 加载失败时的文字
+     */
+    public SpinnerFooterRenderer(CharSequence loadingText, CharSequence loadMoreText, CharSequence noMoreText,
+                                 CharSequence errorText) {
+        mLoadingText = loadingText;
+        mLoadMoreText = loadMoreText;
+        mNoMoreText = noMoreText;
+        mErrorText = errorText;
+    }
+
+    /**
+     * 设置footer的高度
+     * @param height 单位px，0表示使用默认高度
+     */
+    public void setHeight(int height) {
+        mHeight = height;
+    }
+
+    @Override
+    public View onCreateView(ViewGroup parent) {
+        LoadingFooterView footer = new LoadingFooterView(parent.getContext());
+        if (mHeight > 0) {
+            footer.setDefaultHeight(mHeight);
+        }
+        footer.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT));
+        return footer;
+    }
+
+    @Override
+    public void onBindState(View footer, int state) {
+        LoadingFooterView view = (LoadingFooterView) footer;
+        if (state == STATE_LOADING) {
+            view.setSpinnerVisible(true);
+            view.setText(mLoadingText);
+        } else if (state == STATE_LOAD_MORE) {
+            view.setSpinnerVisible(false);
+            view.setText(mLoadMoreText);
+        } else if (state == STATE_ERROR) {
+            view.setSpinnerVisible(false);
+            view.setText(mErrorText);
+        } else {
+            view.setSpinnerVisible(false);
+            view.setText(mNoMoreText);
+        }
+    }
+
+    @Override
+    public void setAnimating(View footer, boolean animating) {
+        ((LoadingFooterView) footer).setAnimating(animating);
+    }
+}
@@ -0,0 +1,108 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * 在主线程空闲时预先创建ViewHolder并放入RecycledViewPool，列表第一次需要这些类型的item时直接从pool中取，
+ * 不需要在滑动的那一帧inflate布局
+ * <p>
+ * 每次空闲只创建一个holder，避免一次占用主线程太久；adapter被替换或者列表离开界面时停止
+ */
+final class ViewHolderWarmUp implements MessageQueue.IdleHandler {
+
+    /**
+     * RecycledViewPool中每种类型默认最多缓存的数量
+     */
+    private static final int DEFAULT_MAX_RECYCLED_VIEWS = 5;
+
+    private final RecyclerView mRecyclerView;
+
+    private final RecyclerView.Adapter mAdapter;
+
+    private final int[] mViewTypes;
+
+    /**
+     * 每种类型还需要创建的数量，和mViewTypes一一对应
+     */
+    private final int[] mRemainCounts;
+
+    /**
+     * 当前正在创建的类型在mViewTypes中的位置
+     */
+    private int mIndex;
+
+    private boolean mStarted;
+
+    /**
+     * @param recyclerView 创建的holder放入它的RecycledViewPool
+     * @param adapter 用于创建holder，需要是recyclerView当前的adapter
+     * @param viewTypes 需要创建的item类型
+     * @param counts 每种类型需要创建的数量，和viewTypes一一对应
+     */
+    ViewHolderWarmUp(RecyclerView recyclerView, RecyclerView.Adapter adapter, int[] viewTypes, int[] counts) {
+        mRecyclerView = recyclerView;
+        mAdapter = adapter;
+        mViewTypes = viewTypes.clone();
+        mRemainCounts = counts.clone();
+    }
+
+    /**
+     * 开始在空闲时创建，需要在主线程调用
+     */
+    void start() {
+        if (mStarted) {
+            return;
+        }
+        mStarted = true;
+        RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+        for (int i = 0; i < mViewTypes.length; i++) {
+            // 超过默认缓存数量的holder放不进pool，会直接被丢弃
+            if (mRemainCounts[i] > DEFAULT_MAX_RECYCLED_VIEWS) {
+                pool.setMaxRecycledViews(mViewTypes[i], mRemainCounts[i]);
+            }
+        }
+        Looper.myQueue().addIdleHandler(this);
+    }
+
+    /**
+     * 停止创建，已经放入pool的holder保留
+     */
+    void cancel() {
+        if (mStarted) {
+            mStarted = false;
+            Looper.myQueue().removeIdleHandler(this);
+        }
+    }
+
+    /**
+     * 是否所有holder都已经创建完毕或者已经停止
+     */
+    boolean isFinished() {
+        return !mStarted;
+    }
+
+    @Override
+    public boolean queueIdle() {
+        if (!mStarted) {
+            return false;
+        }
+        if (mRecyclerView.getAdapter() != mAdapter) {
+            // adapter已经被替换，item类型可能已经不一样了
+            mStarted = false;
+            return false;
+        }
+        while (mIndex < mViewTypes.length && mRemainCounts[mIndex] <= 0) {
+            mIndex++;
+        }
+        if (mIndex >= mViewTypes.length) {
+            mStarted = false;
+            return false;
+        }
+        mRemainCounts[mIndex]--;
+        RecyclerView.ViewHolder holder = mAdapter.createViewHolder(mRecyclerView, mViewTypes[mIndex]);
+        mRecyclerView.getRecycledViewPool().putRecycledView(holder);
+        return true;
+    }
+}
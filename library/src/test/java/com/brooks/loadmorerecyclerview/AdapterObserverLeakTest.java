@@ -0,0 +1,129 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 模拟下拉刷新时反复setAdapter，旧的包装adapter不能继续挂在业务adapter上
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23)
+public class AdapterObserverLeakTest {
+
+    private static final int REFRESH_COUNT = 1000;
+
+    @Test
+    public void refreshDoesNotAccumulateObservers() {
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        TestAdapter adapter = new TestAdapter(20);
+        for (int i = 0; i < REFRESH_COUNT; i++) {
+            recyclerView.setAdapter(adapter);
+            assertEquals(1, adapter.mObserverCount);
+        }
+        recyclerView.setAdapter(null);
+        assertEquals(0, adapter.mObserverCount);
+    }
+
+    @Test
+    public void mcRefreshDoesNotAccumulateObservers() {
+        McLoadMoreRecyclerView recyclerView = new McLoadMoreRecyclerView(RuntimeEnvironment.application);
+        TestAdapter adapter = new TestAdapter(20);
+        for (int i = 0; i < REFRESH_COUNT; i++) {
+            recyclerView.setAdapter(adapter);
+            assertEquals(1, adapter.mObserverCount);
+        }
+        recyclerView.setAdapter(null);
+        assertEquals(0, adapter.mObserverCount);
+    }
+
+    @Test
+    public void staleWrappersStopReceivingNotifications() {
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        TestAdapter adapter = new TestAdapter(20);
+        List<CountingObserver> observers = new ArrayList<CountingObserver>();
+        for (int i = 0; i < 10; i++) {
+            recyclerView.setAdapter(adapter);
+            CountingObserver observer = new CountingObserver();
+            recyclerView.getAdapter().registerAdapterDataObserver(observer);
+            observers.add(observer);
+        }
+        adapter.insert(0, 1);
+        for (int i = 0; i < observers.size() - 1; i++) {
+            assertEquals(0, observers.get(i).mCount);
+        }
+        assertEquals(1, observers.get(observers.size() - 1).mCount);
+    }
+
+    @Test
+    public void staleWrappersAreCollected() {
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        TestAdapter adapter = new TestAdapter(20);
+        List<WeakReference<RecyclerView.Adapter>> wrappers = new ArrayList<WeakReference<RecyclerView.Adapter>>();
+        for (int i = 0; i < REFRESH_COUNT; i++) {
+            recyclerView.setAdapter(adapter);
+            wrappers.add(new WeakReference<RecyclerView.Adapter>(recyclerView.getAdapter()));
+        }
+        recyclerView.setAdapter(null);
+        for (int i = 0; i < 10 && countAlive(wrappers) > 0; i++) {
+            System.gc();
+            System.runFinalization();
+        }
+        assertEquals(0, countAlive(wrappers));
+    }
+
+    @Test
+    public void detachUnregistersAndAttachRestores() {
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        TestAdapter adapter = new TestAdapter(20);
+        recyclerView.setAdapter(adapter);
+        CountingObserver observer = new CountingObserver();
+        recyclerView.getAdapter().registerAdapterDataObserver(observer);
+
+        recyclerView.onDetachedFromWindow();
+        assertEquals(0, adapter.mObserverCount);
+        adapter.insert(0, 1);
+        assertEquals(0, observer.mCount);
+
+        recyclerView.onAttachedToWindow();
+        assertEquals(1, adapter.mObserverCount);
+        // 重新attach时整体刷新一次，补上detach期间错过的变化
+        assertEquals(1, observer.mCount);
+        assertEquals(adapter.getItemCount(), recyclerView.getAdapter().getItemCount());
+    }
+
+    private static int countAlive(List<WeakReference<RecyclerView.Adapter>> references) {
+        int alive = 0;
+        for (WeakReference<RecyclerView.Adapter> reference : references) {
+            if (reference.get() != null) {
+                alive++;
+            }
+        }
+        return alive;
+    }
+
+    private static class CountingObserver extends RecyclerView.AdapterDataObserver {
+
+        private int mCount;
+
+        @Override
+        public void onChanged() {
+            mCount++;
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mCount++;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+import android.widget.FrameLayout;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 按item类型统计创建、绑定耗时和掉帧
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23)
+public class AdapterProfilerTest {
+
+    @Test
+    public void createAndBindAreCountedPerType() {
+        AdapterProfiler profiler = new AdapterProfiler();
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        recyclerView.setAdapterProfiler(profiler);
+        recyclerView.setAdapter(new TestAdapter(10));
+        RecyclerView.Adapter wrapper = recyclerView.getAdapter();
+        int viewType = wrapper.getItemViewType(0);
+
+        RecyclerView.ViewHolder holder = wrapper.createViewHolder(new FrameLayout(RuntimeEnvironment.application),
+                viewType);
+        wrapper.bindViewHolder(holder, 0);
+        AdapterProfiler.TypeSnapshot type = profiler.snapshot().getType(viewType);
+        assertEquals(1, type.createCount);
+        assertEquals(1, type.bindCount);
+        assertEquals(1, type.poolMissCount);
+        assertEquals(0, type.poolHitCount);
+
+        // 从pool中取出的holder再次绑定时记为命中
+        wrapper.onViewRecycled(holder);
+        wrapper.bindViewHolder(holder, 1);
+        type = profiler.snapshot().getType(viewType);
+        assertEquals(2, type.bindCount);
+        assertEquals(1, type.poolHitCount);
+
+        // 没有从pool中取出的holder不算命中
+        wrapper.bindViewHolder(holder, 2);
+        assertEquals(1, profiler.snapshot().getType(viewType).poolHitCount);
+
+        profiler.reset();
+        assertNull(profiler.snapshot().getType(viewType));
+    }
+
+    @Test
+    public void jankIsAttributedToBoundTypes() {
+        AdapterProfiler profiler = new AdapterProfiler();
+        profiler.setJankThreshold(25);
+        profiler.startFrameMonitor();
+        profiler.doFrame(0);
+        profiler.recordCreate(1, 30000000L);
+        profiler.doFrame(50000000L);
+        // 这一帧没有创建和绑定，不记到类型上
+        profiler.doFrame(100000000L);
+        profiler.doFrame(116000000L);
+        profiler.stopFrameMonitor();
+
+        AdapterProfiler.Snapshot snapshot = profiler.snapshot();
+        assertEquals(3, snapshot.frameCount);
+        assertEquals(2, snapshot.jankFrameCount);
+        AdapterProfiler.TypeSnapshot type = snapshot.getType(1);
+        assertEquals(1, type.jankFrameCount);
+        assertEquals(30000, type.jankMicros);
+    }
+}
@@ -0,0 +1,127 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+import android.widget.FrameLayout;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 包装adapter把stable id、payload绑定和回收回调交给业务adapter
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23)
+public class AutoLoadAdapterDelegationTest {
+
+    @Test
+    public void stableIdsAreForwarded() {
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        recyclerView.setLoadMoreEnable(true);
+        recyclerView.setLoadPreviousEnable(true);
+        TestAdapter adapter = new TestAdapter(10);
+        adapter.setHasStableIds(true);
+        recyclerView.setAdapter(adapter);
+        RecyclerView.Adapter wrapper = recyclerView.getAdapter();
+
+        assertTrue(wrapper.hasStableIds());
+        for (int i = 0; i < adapter.getItemCount(); i++) {
+            assertEquals(adapter.getItemId(i), wrapper.getItemId(i + 1));
+        }
+        long headerId = wrapper.getItemId(0);
+        long footerId = wrapper.getItemId(wrapper.getItemCount() - 1);
+        assertNotEquals(headerId, footerId);
+        for (int i = 0; i < adapter.getItemCount(); i++) {
+            assertNotEquals(headerId, adapter.getItemId(i));
+            assertNotEquals(footerId, adapter.getItemId(i));
+        }
+    }
+
+    @Test
+    public void payloadBindIsPartial() {
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        recyclerView.setLoadPreviousEnable(true);
+        TestAdapter adapter = new TestAdapter(10);
+        recyclerView.setAdapter(adapter);
+        RecyclerView.Adapter wrapper = recyclerView.getAdapter();
+        RecyclerView.ViewHolder holder = adapter.onCreateViewHolder(new FrameLayout(RuntimeEnvironment.application), 0);
+
+        wrapper.onBindViewHolder(holder, 3, Collections.<Object>singletonList("like"));
+
+        assertEquals(0, adapter.mFullBindCount);
+        assertEquals(2, adapter.mLastPayloadPosition);
+        assertEquals(Collections.<Object>singletonList("like"), adapter.mLastPayloads);
+
+        wrapper.onBindViewHolder(holder, 3, Collections.emptyList());
+        assertEquals(1, adapter.mFullBindCount);
+    }
+
+    /**
+     * 业务adapter只在三个参数的onBindViewHolder中绑定时，完整绑定也要交给这个方法
+     */
+    @Test
+    public void fullBindUsesPayloadOverload() {
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        recyclerView.setLoadPreviousEnable(true);
+        PayloadBindAdapter adapter = new PayloadBindAdapter();
+        recyclerView.setAdapter(adapter);
+        RecyclerView.Adapter wrapper = recyclerView.getAdapter();
+        RecyclerView.ViewHolder holder = adapter.onCreateViewHolder(new FrameLayout(RuntimeEnvironment.application), 0);
+
+        wrapper.onBindViewHolder(holder, 3, Collections.emptyList());
+        assertEquals(1, adapter.mEmptyPayloadBindCount);
+        assertEquals(2, adapter.mLastBindPosition);
+
+        McLoadMoreRecyclerView mcRecyclerView = new McLoadMoreRecyclerView(RuntimeEnvironment.application);
+        PayloadBindAdapter mcAdapter = new PayloadBindAdapter();
+        mcRecyclerView.setAdapter(mcAdapter);
+        mcRecyclerView.getAdapter().onBindViewHolder(holder, 3, Collections.emptyList());
+        assertEquals(1, mcAdapter.mEmptyPayloadBindCount);
+        assertEquals(3, mcAdapter.mLastBindPosition);
+    }
+
+    @Test
+    public void recycleIsForwarded() {
+        McLoadMoreRecyclerView recyclerView = new McLoadMoreRecyclerView(RuntimeEnvironment.application);
+        TestAdapter adapter = new TestAdapter(10);
+        recyclerView.setAdapter(adapter);
+        RecyclerView.Adapter wrapper = recyclerView.getAdapter();
+        RecyclerView.ViewHolder holder = adapter.onCreateViewHolder(new FrameLayout(RuntimeEnvironment.application), 0);
+
+        wrapper.onViewRecycled(holder);
+
+        assertEquals(1, adapter.mRecycledCount);
+    }
+
+    /**
+     * 记录三个参数的onBindViewHolder中没有payload的完整绑定
+     */
+    private static class PayloadBindAdapter extends TestAdapter {
+
+        int mEmptyPayloadBindCount;
+
+        int mLastBindPosition = -1;
+
+        PayloadBindAdapter() {
+            super(10);
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position, List<Object> payloads) {
+            if (payloads.isEmpty()) {
+                mEmptyPayloadBindCount++;
+                mLastBindPosition = position;
+            }
+            super.onBindViewHolder(holder, position, payloads);
+        }
+    }
+}
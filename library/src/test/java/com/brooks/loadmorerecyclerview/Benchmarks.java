@@ -0,0 +1,71 @@
+package com.brooks.loadmorerecyclerview;
+
+import org.junit.Assume;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 单元测试中的简单benchmark工具，默认跳过，需要时运行：
+ * <pre>
+ * ./gradlew :library:testDebugUnitTest -Dloadmore.benchmark=true --tests '*Benchmark'
+ * </pre>
+ * 先预热再取多轮的中位数，结果输出到标准输出，不做耗时断言；JVM上的数字只用于比较新旧实现，不代表设备上的耗时
+ */
+final class Benchmarks {
+
+    private static final boolean ENABLED = Boolean.getBoolean("loadmore.benchmark");
+
+    private static final int WARM_UP_ROUNDS = 5;
+
+    private static final int ROUNDS = 10;
+
+    private Benchmarks() {
+    }
+
+    /**
+     * 没有打开benchmark时跳过当前测试
+     */
+    static void assumeEnabled() {
+        Assume.assumeTrue("run with -Dloadmore.benchmark=true", ENABLED);
+    }
+
+    /**
+     * 多轮执行body，输出每次操作的耗时和分配的内存
+     * @param operations body每执行一次包含的操作次数
+     * @return 每次操作耗时的中位数，单位ns
+     */
+    static double measure(String name, int operations, Runnable body) {
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            body.run();
+        }
+        double[] nanos = new double[ROUNDS];
+        long[] bytes = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long startBytes = allocatedBytes();
+            long start = System.nanoTime();
+            body.run();
+            nanos[i] = (System.nanoTime() - start) / (double) operations;
+            bytes[i] = startBytes >= 0 ? allocatedBytes() - startBytes : -1;
+        }
+        Arrays.sort(nanos);
+        Arrays.sort(bytes);
+        double median = nanos[ROUNDS / 2];
+        System.out.println(String.format(Locale.US, "%-40s %12.1f ns/op %14d bytes/round", name, median,
+                bytes[ROUNDS / 2]));
+        return median;
+    }
+
+    /**
+     * 当前线程累计分配的字节数，JVM不支持时返回-1
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,159 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * 冷启动时读取磁盘缓存、到缓存的200条数据插入列表的耗时，以及写入第一页的耗时
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23)
+public class DiskPageCacheBenchmark {
+
+    private static final int PAGES = 10;
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final int ROUNDS = 100;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void coldStart() throws IOException {
+        Benchmarks.assumeEnabled();
+        final File file = mFolder.newFile();
+        final DiskPageCache<String> cache = new DiskPageCache<String>(file, new StringSerializer(), 1, PAGES);
+        for (int page = 0; page < PAGES; page++) {
+            cache.writePage(page, page(page));
+        }
+
+        Benchmarks.measure("read " + PAGES * PAGE_SIZE + " items", ROUNDS, new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < ROUNDS; i++) {
+                    cache.read();
+                }
+            }
+        });
+        Benchmarks.measure("start to first rows", ROUNDS, new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < ROUNDS; i++) {
+                    startFromCache(file);
+                }
+            }
+        });
+
+        final File writeFile = mFolder.newFile();
+        final DiskPageCache<String> writeCache = new DiskPageCache<String>(writeFile, new StringSerializer(), 1,
+                PAGES);
+        final List<String> firstPage = page(0);
+        Benchmarks.measure("write first page", ROUNDS, new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < ROUNDS; i++) {
+                    writeCache.writePage(0, firstPage);
+                }
+            }
+        });
+    }
+
+    /**
+     * 只执行读取缓存的任务，第一页的网络请求不执行，返回时缓存的数据已经插入adapter
+     */
+    private static void startFromCache(File file) {
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        StringAdapter adapter = new StringAdapter();
+        PagedLoader<Integer, String> loader = new PagedLoader<Integer, String>(recyclerView, adapter,
+                new PagedSource<Integer, String>() {
+                    @Override
+                    public Page<Integer, String> loadInitial() {
+                        return null;
+                    }
+
+                    @Override
+                    public Page<Integer, String> loadAfter(Integer key) {
+                        return null;
+                    }
+
+                    @Override
+                    public Page<Integer, String> loadBefore(Integer key) {
+                        return null;
+                    }
+                });
+        loader.setExecutor(new Executor() {
+
+            private boolean mCacheRead;
+
+            @Override
+            public void execute(Runnable command) {
+                if (!mCacheRead) {
+                    mCacheRead = true;
+                    command.run();
+                }
+            }
+        });
+        loader.setPageCache(new DiskPageCache<String>(file, new StringSerializer(), 1, PAGES));
+        loader.start();
+        if (adapter.getItemCount() != PAGES * PAGE_SIZE) {
+            throw new AssertionError("cache not shown: " + adapter.getItemCount());
+        }
+    }
+
+    private static List<String> page(int page) {
+        List<String> items = new ArrayList<String>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            items.add("item " + (page * PAGE_SIZE + i));
+        }
+        return items;
+    }
+
+    private static class StringSerializer implements DiskPageCache.ItemSerializer<String> {
+
+        @Override
+        public void write(DataOutput out, String item) throws IOException {
+            out.writeUTF(item);
+        }
+
+        @Override
+        public String read(DataInput in) throws IOException {
+            return in.readUTF();
+        }
+    }
+
+    private static class StringAdapter extends PagedAdapter<String, RecyclerView.ViewHolder> {
+
+        @Override
+        protected Object getItemKey(String item) {
+            return item;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            return new RecyclerView.ViewHolder(new View(parent.getContext())) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 磁盘页缓存的读写和冷启动时先显示缓存
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23)
+public class DiskPageCacheTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void pagesAreAppendedInOrder() throws IOException {
+        File file = mFolder.newFile();
+        DiskPageCache<String> cache = new DiskPageCache<String>(file, new StringSerializer(), 1, 2);
+        cache.writePage(0, Arrays.asList("a", "b"));
+        // 不是紧接着的页不写入
+        cache.writePage(2, Arrays.asList("x"));
+        cache.writePage(1, Arrays.asList("c"));
+        // 超过最大页数不写入
+        cache.writePage(2, Arrays.asList("d"));
+        assertEquals(Arrays.asList("a", "b", "c"), cache.read());
+
+        // 新的实例不知道文件中的页数，只能从第一页开始写
+        DiskPageCache<String> reopened = new DiskPageCache<String>(file, new StringSerializer(), 1, 2);
+        reopened.writePage(1, Arrays.asList("y"));
+        assertEquals(Arrays.asList("a", "b", "c"), reopened.read());
+        reopened.writePage(0, Arrays.asList("e"));
+        assertEquals(Arrays.asList("e"), reopened.read());
+        // 第一页通过临时文件替换，写完后不留下临时文件
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void truncatedPageIsDropped() throws IOException {
+        File file = mFolder.newFile();
+        DiskPageCache<String> cache = new DiskPageCache<String>(file, new StringSerializer(), 1, 3);
+        cache.writePage(0, Arrays.asList("a", "b"));
+        cache.writePage(1, Arrays.asList("c", "d"));
+        // 模拟写第二页时进程被杀
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(raf.length() - 3);
+        raf.close();
+        assertEquals(Arrays.asList("a", "b"), cache.read());
+    }
+
+    @Test
+    public void otherVersionIsIgnored() throws IOException {
+        File file = mFolder.newFile();
+        new DiskPageCache<String>(file, new StringSerializer(), 1, 1).writePage(0, Arrays.asList("a"));
+        assertTrue(new DiskPageCache<String>(file, new StringSerializer(), 2, 1).read().isEmpty());
+        assertTrue(new DiskPageCache<String>(new File(file.getParentFile(), "missing"), new StringSerializer(), 1, 1)
+                .read().isEmpty());
+    }
+
+    /**
+     * 冷启动时先显示缓存，第一页返回后再和缓存对比；耗时见{@link DiskPageCacheBenchmark}
+     */
+    @Test
+    public void coldStartRendersCacheBeforeFirstPage() throws IOException {
+        File file = mFolder.newFile();
+        DiskPageCache<String> cache = new DiskPageCache<String>(file, new StringSerializer(), 1, 10);
+        for (int page = 0; page < 10; page++) {
+            List<String> items = new ArrayList<String>();
+            for (int i = 0; i < 20; i++) {
+                items.add("item " + (page * 20 + i));
+            }
+            cache.writePage(page, items);
+        }
+        QueueExecutor executor = new QueueExecutor();
+        final List<String> fresh = new ArrayList<String>();
+        fresh.add("new item");
+        for (int i = 0; i < 20; i++) {
+            fresh.add("item " + i);
+        }
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        StringAdapter adapter = new StringAdapter();
+        PagedLoader<Integer, String> loader = new PagedLoader<Integer, String>(recyclerView, adapter,
+                new PagedSource<Integer, String>() {
+                    @Override
+                    public Page<Integer, String> loadInitial() {
+                        return new Page<Integer, String>(fresh, null, 1);
+                    }
+
+                    @Override
+                    public Page<Integer, String> loadAfter(Integer key) {
+                        return new Page<Integer, String>(new ArrayList<String>(), null, null);
+                    }
+
+                    @Override
+                    public Page<Integer, String> loadBefore(Integer key) {
+                        return null;
+                    }
+                });
+        loader.setExecutor(executor);
+        loader.setPageCache(new DiskPageCache<String>(file, new StringSerializer(), 1, 10));
+
+        loader.start();
+        // 只执行了读取缓存，第一页还没有加载
+        executor.runNext();
+        assertEquals(200, adapter.getItemCount());
+        assertEquals("item 0", adapter.getItem(0));
+
+        // 第一页返回后和缓存对比，缓存中多出来的页被移除
+        executor.runNext();
+        assertEquals(fresh, adapter.snapshotItems());
+        assertEquals(fresh, cache.read());
+    }
+
+    /**
+     * 分页窗口移除最后一页后滑回去重新加载，之后的页仍然按顺序写入缓存
+     */
+    @Test
+    public void evictedLastPageKeepsCacheInOrder() throws IOException {
+        File file = mFolder.newFile();
+        DiskPageCache<String> cache = new DiskPageCache<String>(file, new StringSerializer(), 1, 10);
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        StringAdapter adapter = new StringAdapter();
+        PagedLoader<Integer, String> loader = new PagedLoader<Integer, String>(recyclerView, adapter,
+                new PagedSource<Integer, String>() {
+                    @Override
+                    public Page<Integer, String> loadInitial() {
+                        return loadAfter(0);
+                    }
+
+                    @Override
+                    public Page<Integer, String> loadAfter(Integer key) {
+                        return new Page<Integer, String>(items(key * 10, 10), null, key + 1);
+                    }
+
+                    @Override
+                    public Page<Integer, String> loadBefore(Integer key) {
+                        return null;
+                    }
+                });
+        loader.setExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        loader.setPageCache(cache);
+        loader.start();
+        loader.onLoadMore();
+        loader.onLoadMore();
+        assertEquals(items(0, 30), cache.read());
+
+        loader.onEvictLastPage(10);
+        assertEquals(20, adapter.getItemCount());
+        // 重新加载被移除的第三页，缓存中已经有了，不重复写入
+        loader.onLoadMore();
+        assertEquals(items(0, 30), cache.read());
+        loader.onLoadMore();
+        assertEquals(items(0, 40), cache.read());
+    }
+
+    private static List<String> items(int start, int count) {
+        List<String> items = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            items.add("item " + (start + i));
+        }
+        return items;
+    }
+
+    private static class StringSerializer implements DiskPageCache.ItemSerializer<String> {
+
+        @Override
+        public void write(DataOutput out, String item) throws IOException {
+            out.writeUTF(item);
+        }
+
+        @Override
+        public String read(DataInput in) throws IOException {
+            return in.readUTF();
+        }
+    }
+
+    private static class StringAdapter extends PagedAdapter<String, RecyclerView.ViewHolder> {
+
+        @Override
+        protected Object getItemKey(String item) {
+            return item;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            return new RecyclerView.ViewHolder(new View(parent.getContext())) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        }
+    }
+
+    /**
+     * 按顺序手动执行提交的任务
+     */
+    private static class QueueExecutor implements Executor {
+
+        private final List<Runnable> mTasks = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            mTasks.add(command);
+        }
+
+        void runNext() {
+            mTasks.remove(0).run();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.graphics.drawable.AnimationDrawable;
+import android.graphics.drawable.Drawable;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+
+import com.tt.whorlviewlibrary.WhorlView;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * footer只在屏幕上并且正在加载时播放动画
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23)
+public class FooterAnimationTest {
+
+    @Test
+    public void offscreenFooterDoesNotInvalidate() {
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        recyclerView.setUsePictureAnim(true);
+        recyclerView.setLoadMoreEnable(true);
+        recyclerView.setAdapter(new TestAdapter(10));
+        RecyclerView.Adapter wrapper = recyclerView.getAdapter();
+        RecyclerView.ViewHolder footer = createFooter(recyclerView);
+        AnimationDrawable animation = (AnimationDrawable) ((ImageView) footer.itemView
+                .findViewById(R.id.loadmore_recycler_footer_image)).getBackground();
+        // 刚创建还没有显示时不播放
+        assertFalse(animation.isRunning());
+
+        wrapper.onViewAttachedToWindow(footer);
+        assertTrue(animation.isRunning());
+
+        wrapper.onViewDetachedFromWindow(footer);
+        assertFalse(animation.isRunning());
+        CountingCallback callback = new CountingCallback();
+        animation.setCallback(callback);
+        ShadowLooper.idleMainLooper(5, TimeUnit.SECONDS);
+        assertEquals(0, callback.mCount);
+
+        wrapper.onViewAttachedToWindow(footer);
+        wrapper.onViewRecycled(footer);
+        assertFalse(animation.isRunning());
+    }
+
+    @Test
+    public void manualFooterAnimatesOnlyWhileLoading() {
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        recyclerView.setLoadType(LoadMoreRecyclerView.LOAD_TYPE_MANUAL);
+        recyclerView.setLoadMoreEnable(true);
+        recyclerView.setLoadMoreListener(new LoadMoreRecyclerView.LoadMoreListener() {
+            @Override
+            public void onLoadMore() {
+            }
+        });
+        recyclerView.setAdapter(new TestAdapter(10));
+        RecyclerView.Adapter wrapper = recyclerView.getAdapter();
+        RecyclerView.ViewHolder footer = createFooter(recyclerView);
+        WhorlView whorlView = (WhorlView) footer.itemView.findViewById(R.id.loadmore_recycler_footer_whorl);
+
+        wrapper.onViewAttachedToWindow(footer);
+        assertFalse(whorlView.isCircling());
+
+        footer.itemView.performClick();
+        assertTrue(whorlView.isCircling());
+
+        // 加载完成后停止
+        recyclerView.notifyMoreFinish(true);
+        recyclerView.handleCallback();
+        assertFalse(whorlView.isCircling());
+    }
+
+    @Test
+    public void spinnerFooterAnimatesOnlyWhileAttached() {
+        McLoadMoreRecyclerView recyclerView = new McLoadMoreRecyclerView(RuntimeEnvironment.application);
+        recyclerView.setFooterRenderer(new SpinnerFooterRenderer(RuntimeEnvironment.application));
+        recyclerView.setLoadMoreEnable(true);
+        recyclerView.setAdapter(new TestAdapter(10));
+        RecyclerView.Adapter wrapper = recyclerView.getAdapter();
+        int footerPosition = wrapper.getItemCount() - 1;
+        RecyclerView.ViewHolder footer = wrapper.createViewHolder(new FrameLayout(RuntimeEnvironment.application),
+                wrapper.getItemViewType(footerPosition));
+        wrapper.bindViewHolder(footer, footerPosition);
+        LoadingFooterView footerView = (LoadingFooterView) footer.itemView;
+        assertFalse(footerView.isAnimating());
+
+        wrapper.onViewAttachedToWindow(footer);
+        assertTrue(footerView.isAnimating());
+
+        wrapper.onViewDetachedFromWindow(footer);
+        assertFalse(footerView.isAnimating());
+
+        // 没有更多时显示提示文字，不再旋转
+        recyclerView.setLoadMoreEnable(false);
+        wrapper.onViewAttachedToWindow(footer);
+        wrapper.bindViewHolder(footer, footerPosition);
+        assertFalse(footerView.isAnimating());
+    }
+
+    /**
+     * 直接new RecyclerView.LayoutParams的footer在瀑布流中也要占满一整行
+     */
+    @Test
+    public void spinnerFooterSpansStaggeredGrid() {
+        McLoadMoreRecyclerView recyclerView = new McLoadMoreRecyclerView(RuntimeEnvironment.application);
+        recyclerView.setLayoutManager(new StaggeredGridLayoutManager(2, StaggeredGridLayoutManager.VERTICAL));
+        recyclerView.setFooterRenderer(new SpinnerFooterRenderer(RuntimeEnvironment.application));
+        recyclerView.setLoadMoreEnable(true);
+        recyclerView.setAdapter(new TestAdapter(10));
+        RecyclerView.Adapter wrapper = recyclerView.getAdapter();
+        int footerPosition = wrapper.getItemCount() - 1;
+        RecyclerView.ViewHolder footer = wrapper.createViewHolder(recyclerView, wrapper.getItemViewType(footerPosition));
+        assertTrue(((StaggeredGridLayoutManager.LayoutParams) footer.itemView.getLayoutParams()).isFullSpan());
+
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(2000, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, 1000, 2000);
+        View footerView = recyclerView.getLayoutManager().findViewByPosition(footerPosition);
+        assertEquals(1000, footerView.getWidth());
+    }
+
+    private static RecyclerView.ViewHolder createFooter(LoadMoreRecyclerView recyclerView) {
+        RecyclerView.Adapter wrapper = recyclerView.getAdapter();
+        int footerPosition = wrapper.getItemCount() - 1;
+        RecyclerView.ViewHolder footer = wrapper.createViewHolder(new FrameLayout(RuntimeEnvironment.application),
+                wrapper.getItemViewType(footerPosition));
+        wrapper.bindViewHolder(footer, footerPosition);
+        return footer;
+    }
+
+    private static class CountingCallback implements Drawable.Callback {
+
+        private int mCount;
+
+        @Override
+        public void invalidateDrawable(Drawable who) {
+            mCount++;
+        }
+
+        @Override
+        public void scheduleDrawable(Drawable who, Runnable what, long when) {
+            mCount++;
+        }
+
+        @Override
+        public void unscheduleDrawable(Drawable who, Runnable what) {
+        }
+    }
+}
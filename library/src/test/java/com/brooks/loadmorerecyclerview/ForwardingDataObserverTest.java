@@ -0,0 +1,173 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 随机地对业务adapter做插入、移除、移动和变化，检查包装adapter转发出去的通知和业务adapter一一对应
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23)
+public class ForwardingDataObserverTest {
+
+    private static final int ROUNDS = 2000;
+
+    @Test
+    public void forwardsRandomUpdates_withoutHeader() {
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        recyclerView.setLoadMoreEnable(true);
+        fuzz(recyclerView, new TestAdapter(50), 0, new Random(1));
+    }
+
+    @Test
+    public void forwardsRandomUpdates_withHeader() {
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        recyclerView.setLoadMoreEnable(true);
+        recyclerView.setLoadPreviousEnable(true);
+        fuzz(recyclerView, new TestAdapter(50), 1, new Random(2));
+    }
+
+    @Test
+    public void forwardsRandomUpdates_mcRecyclerView() {
+        McLoadMoreRecyclerView recyclerView = new McLoadMoreRecyclerView(RuntimeEnvironment.application);
+        fuzz(recyclerView, new TestAdapter(50), 0, new Random(3));
+    }
+
+    @Test
+    public void moveIsNotForwardedAsChange() {
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        recyclerView.setLoadPreviousEnable(true);
+        TestAdapter adapter = new TestAdapter(100);
+        recyclerView.setAdapter(adapter);
+        RecordingObserver observer = new RecordingObserver(adapter, 1);
+        recyclerView.getAdapter().registerAdapterDataObserver(observer);
+
+        adapter.move(3, 90);
+
+        assertEquals(1, observer.mNotifyCount);
+        assertEquals(0, observer.mReboundCount);
+        assertEquals("move 4 91", observer.mEvents.get(0));
+    }
+
+    private void fuzz(RecyclerView recyclerView, TestAdapter adapter, int headerCount, Random random) {
+        recyclerView.setAdapter(adapter);
+        RecordingObserver observer = new RecordingObserver(adapter, headerCount);
+        recyclerView.getAdapter().registerAdapterDataObserver(observer);
+        int expectedNotifyCount = 0;
+        int expectedReboundCount = 0;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            int size = adapter.getItemCount();
+            int op = random.nextInt(size == 0 ? 1 : 4);
+            if (op == 0) {
+                adapter.insert(random.nextInt(size + 1), 1 + random.nextInt(5));
+            } else if (op == 1) {
+                int positionStart = random.nextInt(size);
+                adapter.remove(positionStart, 1 + random.nextInt(Math.min(5, size - positionStart)));
+            } else if (op == 2) {
+                adapter.move(random.nextInt(size), random.nextInt(size));
+            } else {
+                int positionStart = random.nextInt(size);
+                int itemCount = 1 + random.nextInt(Math.min(5, size - positionStart));
+                adapter.change(positionStart, itemCount, random.nextBoolean() ? "payload" : null);
+                expectedReboundCount += itemCount;
+            }
+            expectedNotifyCount++;
+            assertEquals(adapter.mItems, observer.mMirror);
+            assertEquals(expectedNotifyCount, observer.mNotifyCount);
+            assertEquals(expectedReboundCount, observer.mReboundCount);
+            assertEquals(adapter.getItemCount() + headerCount + 1, recyclerView.getAdapter().getItemCount());
+        }
+    }
+
+    /**
+     * 记录包装adapter发出的通知，并按通知维护一份业务数据的镜像，镜像应该始终和业务adapter一致
+     */
+    private static class RecordingObserver extends RecyclerView.AdapterDataObserver {
+
+        private final TestAdapter mAdapter;
+
+        private final int mHeaderCount;
+
+        private final List<Integer> mMirror;
+
+        private final List<String> mEvents = new ArrayList<String>();
+
+        private int mNotifyCount;
+
+        /**
+         * 变化通知覆盖的item数量，即RecyclerView需要重新绑定的数量
+         */
+        private int mReboundCount;
+
+        private RecordingObserver(TestAdapter adapter, int headerCount) {
+            mAdapter = adapter;
+            mHeaderCount = headerCount;
+            mMirror = new ArrayList<Integer>(adapter.mItems);
+        }
+
+        @Override
+        public void onChanged() {
+            mEvents.add("changed");
+            mNotifyCount++;
+            mMirror.clear();
+            mMirror.addAll(mAdapter.mItems);
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            mEvents.add("change " + positionStart + " " + itemCount);
+            mNotifyCount++;
+            mReboundCount += itemCount;
+            assertInRange(positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mEvents.add("insert " + positionStart + " " + itemCount);
+            mNotifyCount++;
+            int innerStart = positionStart - mHeaderCount;
+            for (int i = 0; i < itemCount; i++) {
+                mMirror.add(innerStart + i, mAdapter.mItems.get(innerStart + i));
+            }
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            mEvents.add("remove " + positionStart + " " + itemCount);
+            mNotifyCount++;
+            assertInRange(positionStart, itemCount);
+            int innerStart = positionStart - mHeaderCount;
+            mMirror.subList(innerStart, innerStart + itemCount).clear();
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            mEvents.add("move " + fromPosition + " " + toPosition);
+            mNotifyCount++;
+            assertEquals(1, itemCount);
+            assertInRange(fromPosition, 1);
+            mMirror.add(toPosition - mHeaderCount, mMirror.remove(fromPosition - mHeaderCount));
+        }
+
+        /**
+         * 通知的范围不能落到header或footer上
+         */
+        private void assertInRange(int positionStart, int itemCount) {
+            assertTrue(positionStart >= mHeaderCount);
+            assertTrue(positionStart + itemCount <= mHeaderCount + mMirror.size());
+        }
+    }
+}
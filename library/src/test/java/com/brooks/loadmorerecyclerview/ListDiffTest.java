@@ -0,0 +1,122 @@
+package com.brooks.loadmorerecyclerview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 差分结果通知的范围，数据用"key:内容"表示
+ */
+public class ListDiffTest {
+
+    private static final ListDiff.ItemCallback<String> CALLBACK = new ListDiff.ItemCallback<String>() {
+        @Override
+        public boolean areItemsTheSame(String oldItem, String newItem) {
+            return key(oldItem).equals(key(newItem));
+        }
+
+        @Override
+        public boolean areContentsTheSame(String oldItem, String newItem) {
+            return oldItem.equals(newItem);
+        }
+    };
+
+    @Test
+    public void sameListHasNoUpdates() {
+        List<String> items = items("1:a", "2:a", "3:a");
+        ListDiff.Result result = ListDiff.calculate(items, items("1:a", "2:a", "3:a"), CALLBACK);
+        assertTrue(result.isEmpty());
+        assertEquals(Arrays.<String>asList(), dispatch(result));
+    }
+
+    @Test
+    public void insertAtFront() {
+        List<String> oldList = items("1:a", "2:a", "3:a");
+        List<String> newList = items("-1:a", "0:a", "1:a", "2:a", "3:a");
+        assertEquals(Arrays.asList("inserted 0 2"), diff(oldList, newList));
+    }
+
+    @Test
+    public void insertAtEnd() {
+        List<String> oldList = items("1:a", "2:a");
+        List<String> newList = items("1:a", "2:a", "3:a", "4:a", "5:a");
+        assertEquals(Arrays.asList("inserted 2 3"), diff(oldList, newList));
+    }
+
+    @Test
+    public void removeInMiddle() {
+        List<String> oldList = items("1:a", "2:a", "3:a", "4:a", "5:a", "6:a");
+        List<String> newList = items("1:a", "2:a", "5:a", "6:a");
+        assertEquals(Arrays.asList("removed 2 2"), diff(oldList, newList));
+    }
+
+    @Test
+    public void changedContentsAreMergedIntoOneRange() {
+        List<String> oldList = items("1:a", "2:a", "3:a", "4:a", "5:a");
+        List<String> newList = items("1:a", "2:b", "3:b", "4:b", "5:a");
+        assertEquals(Arrays.asList("changed 1 3"), diff(oldList, newList));
+    }
+
+    @Test
+    public void combinedUpdatesAreDispatchedFromBackToFront() {
+        List<String> oldList = items("1:a", "2:a", "3:a", "4:a", "5:a", "6:a");
+        List<String> newList = items("0:a", "1:a", "3:b", "4:a", "6:a", "7:a");
+        assertEquals(Arrays.asList("inserted 6 1", "removed 4 1", "changed 2 1", "removed 1 1", "inserted 0 1"),
+                diff(oldList, newList));
+    }
+
+    private static List<String> diff(List<String> oldList, List<String> newList) {
+        ListDiff.Result result = ListDiff.calculate(oldList, newList, CALLBACK);
+        List<String> updates = dispatch(result);
+        // 按通知的顺序修改旧列表，最后应该和新列表一致
+        List<String> applied = new ArrayList<String>(oldList);
+        for (String update : updates) {
+            String[] parts = update.split(" ");
+            int position = Integer.parseInt(parts[1]);
+            int count = Integer.parseInt(parts[2]);
+            for (int i = 0; i < count; i++) {
+                if (parts[0].equals("inserted")) {
+                    applied.add(position + i, null);
+                } else if (parts[0].equals("removed")) {
+                    applied.remove(position);
+                }
+            }
+        }
+        assertEquals(newList.size(), applied.size());
+        return updates;
+    }
+
+    private static List<String> dispatch(ListDiff.Result result) {
+        final List<String> updates = new ArrayList<String>();
+        result.dispatchUpdatesTo(new ListDiff.UpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                updates.add("inserted " + position + " " + count);
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                updates.add("removed " + position + " " + count);
+            }
+
+            @Override
+            public void onChanged(int position, int count) {
+                updates.add("changed " + position + " " + count);
+            }
+        });
+        return updates;
+    }
+
+    private static List<String> items(String... items) {
+        return new ArrayList<String>(Arrays.asList(items));
+    }
+
+    private static String key(String item) {
+        return item.substring(0, item.indexOf(':'));
+    }
+}
@@ -0,0 +1,196 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 刷新或者重新setAdapter之后，之前发出的加载返回时被丢弃
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23)
+public class LoadGenerationTest {
+
+    private LoadMoreRecyclerView mRecyclerView;
+
+    private IntAdapter mAdapter;
+
+    private QueueExecutor mExecutor;
+
+    private PageSource mSource;
+
+    private PagedLoader<Integer, Integer> mLoader;
+
+    @Before
+    public void setUp() {
+        mRecyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        mAdapter = new IntAdapter();
+        mExecutor = new QueueExecutor();
+        mSource = new PageSource();
+        mLoader = new PagedLoader<Integer, Integer>(mRecyclerView, mAdapter, mSource);
+        mLoader.setExecutor(mExecutor);
+        mLoader.start();
+        mExecutor.runAll();
+        assertEquals(range(0, 10), mAdapter.snapshotItems());
+    }
+
+    @Test
+    public void lateLoadMoreAfterRefreshIsDropped() {
+        mLoader.onLoadMore();
+        // 第二页的请求已经发出，返回之前用户下拉刷新
+        mSource.mOnLoadAfter = new Runnable() {
+            @Override
+            public void run() {
+                mSource.mFirstPageStart = 100;
+                mLoader.refresh();
+            }
+        };
+        mExecutor.runNext();
+        assertEquals(Arrays.asList(1), mSource.mAfterKeys);
+        // 过期的第二页没有追加到列表中
+        assertEquals(range(0, 10), mAdapter.snapshotItems());
+        assertEquals(mAdapter.getItemCount() + 1, mRecyclerView.getAdapter().getItemCount());
+
+        mExecutor.runAll();
+        assertEquals(range(100, 10), mAdapter.snapshotItems());
+    }
+
+    @Test
+    public void cancelledRequestNeverReachesSource() {
+        mLoader.onLoadMore();
+        mRecyclerView.setAdapter(mAdapter);
+        mExecutor.runAll();
+        assertTrue(mSource.mAfterKeys.isEmpty());
+        assertEquals(range(0, 10), mAdapter.snapshotItems());
+    }
+
+    @Test
+    public void repeatedTriggersShareOneRequest() {
+        mLoader.onLoadMore();
+        mLoader.onLoadMore();
+        assertEquals(1, mExecutor.mTasks.size());
+        mExecutor.runAll();
+        assertEquals(Arrays.asList(1), mSource.mAfterKeys);
+        assertEquals(range(0, 20), mAdapter.snapshotItems());
+    }
+
+    /**
+     * 直接使用列表时，业务用发起加载时的代数通知完成，过期的通知被忽略
+     */
+    @Test
+    public void staleNotifyMoreFinishIsIgnored() {
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        recyclerView.setLoadMoreEnable(true);
+        TestAdapter adapter = new TestAdapter(10);
+        recyclerView.setAdapter(adapter);
+        int generation = recyclerView.getLoadGeneration();
+
+        recyclerView.cancelLoads();
+        assertFalse(recyclerView.isCurrentLoadGeneration(generation));
+        recyclerView.notifyMoreFinish(generation, false);
+        // 仍然有更多，footer还在
+        assertEquals(11, recyclerView.getAdapter().getItemCount());
+
+        recyclerView.notifyMoreFinish(recyclerView.getLoadGeneration(), false);
+        assertEquals(10, recyclerView.getAdapter().getItemCount());
+    }
+
+    private static List<Integer> range(int start, int count) {
+        List<Integer> items = new ArrayList<Integer>();
+        for (int i = 0; i < count; i++) {
+            items.add(start + i);
+        }
+        return items;
+    }
+
+    /**
+     * 每页10条，页码作为key
+     */
+    private static class PageSource implements PagedSource<Integer, Integer> {
+
+        private int mFirstPageStart;
+
+        private final List<Integer> mAfterKeys = new ArrayList<Integer>();
+
+        /**
+         * 加载下一页的请求返回之前执行
+         */
+        private Runnable mOnLoadAfter;
+
+        @Override
+        public Page<Integer, Integer> loadInitial() {
+            return new Page<Integer, Integer>(range(mFirstPageStart, 10), null, 1);
+        }
+
+        @Override
+        public Page<Integer, Integer> loadAfter(Integer key) {
+            mAfterKeys.add(key);
+            if (mOnLoadAfter != null) {
+                mOnLoadAfter.run();
+            }
+            return new Page<Integer, Integer>(range(key * 10, 10), null, key + 1);
+        }
+
+        @Override
+        public Page<Integer, Integer> loadBefore(Integer key) {
+            return null;
+        }
+    }
+
+    private static class IntAdapter extends PagedAdapter<Integer, RecyclerView.ViewHolder> {
+
+        @Override
+        protected Object getItemKey(Integer item) {
+            return item;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            return new RecyclerView.ViewHolder(new View(parent.getContext())) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        }
+    }
+
+    /**
+     * 按顺序手动执行提交的任务
+     */
+    private static class QueueExecutor implements Executor {
+
+        private final List<Runnable> mTasks = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            mTasks.add(command);
+        }
+
+        void runNext() {
+            mTasks.remove(0).run();
+        }
+
+        void runAll() {
+            while (!mTasks.isEmpty()) {
+                runNext();
+            }
+        }
+    }
+}
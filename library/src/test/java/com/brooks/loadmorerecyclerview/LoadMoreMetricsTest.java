@@ -0,0 +1,228 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 加载更多的统计和耗时直方图
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23)
+public class LoadMoreMetricsTest {
+
+    @Test
+    public void histogramBuckets() {
+        assertEquals(0, LatencyHistogram.getBucketIndex(0));
+        assertEquals(1, LatencyHistogram.getBucketIndex(1));
+        assertEquals(2, LatencyHistogram.getBucketIndex(2));
+        assertEquals(2, LatencyHistogram.getBucketIndex(3));
+        assertEquals(11, LatencyHistogram.getBucketIndex(1024));
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.getBucketIndex(Long.MAX_VALUE));
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        histogram.record(-1);
+        assertEquals(100, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50, histogram.getMean());
+        // 50落在[32, 64)，99落在[64, 128)，不超过最大值
+        assertEquals(64, histogram.getPercentile(50));
+        assertEquals(100, histogram.getPercentile(99));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50));
+    }
+
+    @Test
+    public void manualLoadIsMeasured() {
+        LoadMoreMetrics metrics = new LoadMoreMetrics();
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        recyclerView.setLoadType(LoadMoreRecyclerView.LOAD_TYPE_MANUAL);
+        recyclerView.setLoadMoreEnable(true);
+        recyclerView.setMetricsListener(metrics);
+        recyclerView.setLoadMoreListener(new LoadMoreRecyclerView.LoadMoreListener() {
+            @Override
+            public void onLoadMore() {
+            }
+        });
+        TestAdapter adapter = new TestAdapter(10);
+        recyclerView.setAdapter(adapter);
+        RecyclerView.Adapter wrapper = recyclerView.getAdapter();
+        int footerPosition = wrapper.getItemCount() - 1;
+        RecyclerView.ViewHolder footer = wrapper.createViewHolder(new FrameLayout(RuntimeEnvironment.application),
+                wrapper.getItemViewType(footerPosition));
+        wrapper.bindViewHolder(footer, footerPosition);
+        wrapper.onViewAttachedToWindow(footer);
+
+        footer.itemView.performClick();
+        // 正在加载时再次点击不会重复触发
+        footer.itemView.performClick();
+        assertEquals(1, metrics.getTriggerCount());
+        assertEquals(1, metrics.getDuplicateTriggerCount());
+
+        ShadowLooper.idleMainLooper(100, TimeUnit.MILLISECONDS);
+        adapter.mItems.add(100);
+        adapter.mItems.add(101);
+        recyclerView.notifyMoreFinish(true);
+        assertEquals(1, metrics.getPageCount());
+        assertEquals(2, metrics.getItemCount());
+        assertEquals(1, metrics.getLoadLatency().getCount());
+        assertTrue(metrics.getLoadLatency().getMax() >= 100);
+
+        // 加载完成后footer回到点击加载更多，结束计时
+        assertEquals(1, metrics.getFooterVisibleDuration().getCount());
+        assertTrue(metrics.getFooterVisibleDuration().getMax() >= 100);
+
+        footer.itemView.performClick();
+        recyclerView.notifyMoreFailed(new IOException());
+        assertEquals(2, metrics.getTriggerCount());
+        assertEquals(1, metrics.getFailureCount());
+        assertEquals(2, metrics.getFooterVisibleDuration().getCount());
+
+        // 显示失败重试期间不计时
+        ShadowLooper.idleMainLooper(500, TimeUnit.MILLISECONDS);
+        wrapper.onViewDetachedFromWindow(footer);
+        assertEquals(2, metrics.getFooterVisibleDuration().getCount());
+        assertTrue(metrics.getFooterVisibleDuration().getMax() < 500);
+    }
+
+    @Test
+    public void footerTimeStopsWhenLoadFails() {
+        LoadMoreMetrics metrics = new LoadMoreMetrics();
+        McLoadMoreRecyclerView recyclerView = new McLoadMoreRecyclerView(RuntimeEnvironment.application);
+        recyclerView.setLoadMoreEnable(true);
+        recyclerView.setMetricsListener(metrics);
+        recyclerView.setAdapter(new TestAdapter(10));
+        RecyclerView.Adapter wrapper = recyclerView.getAdapter();
+        int footerPosition = wrapper.getItemCount() - 1;
+        RecyclerView.ViewHolder footer = wrapper.createViewHolder(new FrameLayout(RuntimeEnvironment.application),
+                wrapper.getItemViewType(footerPosition));
+        wrapper.bindViewHolder(footer, footerPosition);
+        wrapper.onViewAttachedToWindow(footer);
+
+        ShadowLooper.idleMainLooper(100, TimeUnit.MILLISECONDS);
+        recyclerView.notifyMoreFailed(new IOException());
+        // notifyItemChanged后footer重新绑定为失败重试
+        wrapper.bindViewHolder(footer, footerPosition);
+        assertEquals(1, metrics.getFooterVisibleDuration().getCount());
+        assertTrue(metrics.getFooterVisibleDuration().getMax() >= 100);
+
+        ShadowLooper.idleMainLooper(500, TimeUnit.MILLISECONDS);
+        wrapper.onViewDetachedFromWindow(footer);
+        assertEquals(1, metrics.getFooterVisibleDuration().getCount());
+        assertTrue(metrics.getFooterVisibleDuration().getMax() < 500);
+    }
+
+    @Test
+    public void footerUpdatesAreNotCountedAsPages() {
+        LoadMoreMetrics metrics = new LoadMoreMetrics();
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        recyclerView.setMetricsListener(metrics);
+        QueueExecutor executor = new QueueExecutor();
+        PagedLoader<Integer, Integer> loader = new PagedLoader<Integer, Integer>(recyclerView, new IntAdapter(),
+                new TwoPageSource());
+        loader.setExecutor(executor);
+        loader.start();
+        executor.runAll();
+        loader.onLoadMore();
+        executor.runAll();
+        assertEquals(2, metrics.getPageCount());
+        assertEquals(20, metrics.getItemCount());
+
+        // 已经没有下一页时只移除footer
+        loader.onLoadMore();
+        // 刷新替换数据后只更新footer
+        loader.refresh();
+        executor.runAll();
+        assertEquals(2, metrics.getPageCount());
+        assertEquals(20, metrics.getItemCount());
+    }
+
+    private static List<Integer> range(int start, int count) {
+        List<Integer> items = new ArrayList<Integer>();
+        for (int i = 0; i < count; i++) {
+            items.add(start + i);
+        }
+        return items;
+    }
+
+    /**
+     * 每页10条，一共两页
+     */
+    private static class TwoPageSource implements PagedSource<Integer, Integer> {
+
+        @Override
+        public Page<Integer, Integer> loadInitial() {
+            return new Page<Integer, Integer>(range(0, 10), null, 1);
+        }
+
+        @Override
+        public Page<Integer, Integer> loadAfter(Integer key) {
+            return new Page<Integer, Integer>(range(key * 10, 10), null, null);
+        }
+
+        @Override
+        public Page<Integer, Integer> loadBefore(Integer key) {
+            return null;
+        }
+    }
+
+    private static class IntAdapter extends PagedAdapter<Integer, RecyclerView.ViewHolder> {
+
+        @Override
+        protected Object getItemKey(Integer item) {
+            return item;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            return new RecyclerView.ViewHolder(new View(parent.getContext())) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        }
+    }
+
+    /**
+     * 按顺序手动执行提交的任务
+     */
+    private static class QueueExecutor implements Executor {
+
+        private final List<Runnable> mTasks = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            mTasks.add(command);
+        }
+
+        void runAll() {
+            while (!mTasks.isEmpty()) {
+                mTasks.remove(0).run();
+            }
+        }
+    }
+}
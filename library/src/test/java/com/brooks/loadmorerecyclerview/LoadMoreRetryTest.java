@@ -0,0 +1,174 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.app.Activity;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 加载更多失败后的footer状态、重试和退避
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23)
+public class LoadMoreRetryTest {
+
+    @Test
+    public void failedLoadShowsErrorAndRetriesOnClick() {
+        StateRenderer renderer = new StateRenderer();
+        final int[] loadCount = new int[1];
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        recyclerView.setFooterRenderer(renderer);
+        recyclerView.setLoadMoreEnable(true);
+        recyclerView.setLoadMoreListener(new LoadMoreRecyclerView.LoadMoreListener() {
+            @Override
+            public void onLoadMore() {
+                loadCount[0]++;
+            }
+        });
+        TestAdapter adapter = new TestAdapter(10);
+        recyclerView.setAdapter(adapter);
+        RecyclerView.Adapter wrapper = recyclerView.getAdapter();
+        int footerPosition = wrapper.getItemCount() - 1;
+        RecyclerView.ViewHolder footer = wrapper.createViewHolder(new FrameLayout(RuntimeEnvironment.application),
+                wrapper.getItemViewType(footerPosition));
+        wrapper.bindViewHolder(footer, footerPosition);
+        wrapper.onViewAttachedToWindow(footer);
+        assertEquals(FooterRenderer.STATE_LOADING, renderer.mState);
+
+        recyclerView.setLoadingMore(true);
+        IOException error = new IOException("timeout");
+        recyclerView.notifyMoreFailed(error);
+        assertTrue(recyclerView.isLoadMoreFailed());
+        assertSame(error, recyclerView.getLoadMoreError());
+        assertEquals(FooterRenderer.STATE_ERROR, renderer.mState);
+        assertFalse(renderer.mAnimating);
+
+        // 点击footer立即重试
+        footer.itemView.performClick();
+        assertEquals(1, loadCount[0]);
+        assertFalse(recyclerView.isLoadMoreFailed());
+        assertEquals(FooterRenderer.STATE_LOADING, renderer.mState);
+        assertTrue(renderer.mAnimating);
+
+        // 重试成功后恢复
+        adapter.mItems.add(100);
+        recyclerView.notifyMoreFinish(true);
+        assertNull(recyclerView.getLoadMoreError());
+        footer.itemView.performClick();
+        assertEquals(1, loadCount[0]);
+    }
+
+    @Test
+    public void autoRetryIsOptIn() {
+        final int[] loadCount = new int[1];
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(activity);
+        recyclerView.setLoadMoreEnable(true);
+        recyclerView.setLoadMoreListener(new LoadMoreRecyclerView.LoadMoreListener() {
+            @Override
+            public void onLoadMore() {
+                loadCount[0]++;
+            }
+        });
+        recyclerView.setAdapter(new TestAdapter(10));
+        // footer显示出来时不触发新的加载
+        recyclerView.setLoadingMore(true);
+        activity.setContentView(recyclerView);
+
+        // 默认不自动重试
+        recyclerView.notifyMoreFailed(new IOException());
+        ShadowLooper.idleMainLooper(60, TimeUnit.SECONDS);
+        assertEquals(0, loadCount[0]);
+        assertTrue(recyclerView.isLoadMoreFailed());
+
+        RetryPolicy policy = new RetryPolicy(100, 1000, 3);
+        policy.setJitter(0);
+        recyclerView.setRetryPolicy(policy);
+        recyclerView.setLoadingMore(true);
+        recyclerView.notifyMoreFailed(new IOException());
+        ShadowLooper.idleMainLooper(50, TimeUnit.MILLISECONDS);
+        assertEquals(0, loadCount[0]);
+        // 连续第二次失败，延迟200ms
+        ShadowLooper.idleMainLooper(150, TimeUnit.MILLISECONDS);
+        assertEquals(1, loadCount[0]);
+        assertFalse(recyclerView.isLoadMoreFailed());
+    }
+
+    @Test
+    public void staleFailureIsIgnored() {
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        recyclerView.setLoadMoreEnable(true);
+        recyclerView.setAdapter(new TestAdapter(10));
+        int generation = recyclerView.getLoadGeneration();
+        recyclerView.cancelLoads();
+        recyclerView.notifyMoreFailed(generation, new IOException());
+        assertFalse(recyclerView.isLoadMoreFailed());
+    }
+
+    @Test
+    public void retryDelayGrowsExponentially() {
+        RetryPolicy policy = new RetryPolicy(100, 1000, 6);
+        policy.setJitter(0);
+        assertEquals(100, policy.getRetryDelay(1));
+        assertEquals(200, policy.getRetryDelay(2));
+        assertEquals(400, policy.getRetryDelay(3));
+        assertEquals(800, policy.getRetryDelay(4));
+        assertEquals(1000, policy.getRetryDelay(5));
+        assertEquals(1000, policy.getRetryDelay(6));
+        // 超过最大次数后不再自动重试
+        assertEquals(-1, policy.getRetryDelay(7));
+    }
+
+    @Test
+    public void retryDelayIsJittered() {
+        RetryPolicy policy = new RetryPolicy(1000, 1000, 1);
+        policy.setJitter(0.5f);
+        for (int i = 0; i < 100; i++) {
+            long delay = policy.getRetryDelay(1);
+            assertTrue(delay >= 500 && delay <= 1000);
+        }
+    }
+
+    /**
+     * 记录最后一次显示的状态
+     */
+    private static class StateRenderer implements FooterRenderer {
+
+        private int mState = -1;
+
+        private boolean mAnimating;
+
+        @Override
+        public View onCreateView(ViewGroup parent) {
+            return new View(parent.getContext());
+        }
+
+        @Override
+        public void onBindState(View footer, int state) {
+            mState = state;
+        }
+
+        @Override
+        public void setAnimating(View footer, boolean animating) {
+            mAnimating = animating;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.app.Activity;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 按item数量的预加载在阈值位置的item attach时触发，而不是在每帧的onScrolled中检查
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23)
+public class LoadMoreTriggerTest {
+
+    private static final int ITEM_HEIGHT = 100;
+
+    private int mLoadCount;
+
+    @Test
+    public void loadsWhenThresholdItemIsAttached() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(activity);
+        recyclerView.setLayoutManager(new LinearLayoutManager(activity));
+        recyclerView.setLoadMoreEnable(true);
+        // 20条数据，footer在位置20，最后一个可见的是15时触发
+        recyclerView.setPrefetchItemCount(5);
+        recyclerView.setLoadMoreListener(new LoadMoreRecyclerView.LoadMoreListener() {
+            @Override
+            public void onLoadMore() {
+                mLoadCount++;
+            }
+        });
+        recyclerView.setAdapter(new FixedHeightAdapter(20));
+        activity.setContentView(recyclerView);
+
+        // 一屏5个，显示10到14
+        scrollTo(recyclerView, 10);
+        assertEquals(0, mLoadCount);
+
+        // 15被attach，scrollToPosition的onScrolled中dy为0，只能由attach触发
+        scrollTo(recyclerView, 11);
+        assertEquals(1, mLoadCount);
+
+        // 正在加载时再有item attach不会重复触发
+        scrollTo(recyclerView, 12);
+        assertEquals(1, mLoadCount);
+    }
+
+    private static void scrollTo(RecyclerView recyclerView, int position) {
+        ((LinearLayoutManager) recyclerView.getLayoutManager()).scrollToPositionWithOffset(position, 0);
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(5 * ITEM_HEIGHT, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, 1000, 5 * ITEM_HEIGHT);
+        ShadowLooper.idleMainLooper();
+    }
+
+    /**
+     * 每个item固定高度
+     */
+    private static class FixedHeightAdapter extends TestAdapter {
+
+        FixedHeightAdapter(int itemCount) {
+            super(itemCount);
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            View view = new View(parent.getContext());
+            view.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ITEM_HEIGHT));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+    }
+}
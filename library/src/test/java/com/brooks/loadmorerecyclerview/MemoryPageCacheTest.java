@@ -0,0 +1,163 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.content.ComponentCallbacks2;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 内存页缓存的淘汰和重新创建列表时恢复
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23)
+public class MemoryPageCacheTest {
+
+    private static final int ITEM_SIZE = 100;
+
+    @Test
+    public void pagesAreEvictedBySize() {
+        MemoryPageCache cache = newCache(1000);
+        cache.put("a", null, page(0, 2, 1));
+        cache.put("a", 1, page(2, 2, 2));
+        cache.put("b", null, page(0, 2, null));
+        assertEquals(2, cache.getPages("a").size());
+
+        // 超过大小后淘汰最久没有使用的b的第一页
+        cache.put("a", 2, page(4, 2, 3));
+        assertNull(cache.get("b", null));
+        assertEquals(3, cache.getPages("a").size());
+
+        cache.removeList("a");
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void trimMemoryShrinksCache() {
+        MemoryPageCache cache = newCache(3000);
+        for (int i = 0; i < 10; i++) {
+            cache.put("a", i == 0 ? null : i, page(i * 2, 2, i + 1));
+        }
+        int size = cache.size();
+        // 界面隐藏时保留，返回时还需要使用
+        cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+        assertEquals(size, cache.size());
+        cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        assertEquals(true, cache.size() <= cache.maxSize() / 2);
+        // 最近放入的页仍然保留
+        assertNotNull(cache.get("a", 9));
+        cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_MODERATE);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void recreatedListRestoresPagesWithoutLoading() {
+        MemoryPageCache cache = newCache(100000);
+        CountingSource source = new CountingSource();
+        IntAdapter adapter = new IntAdapter();
+        PagedLoader<Integer, Integer> loader = newLoader(adapter, source, cache);
+        loader.start();
+        loader.onLoadMore();
+        assertEquals(2, source.mLoadCount);
+        assertEquals(20, adapter.getItemCount());
+
+        // 旋转屏幕后重新创建列表和adapter
+        CountingSource newSource = new CountingSource();
+        IntAdapter newAdapter = new IntAdapter();
+        PagedLoader<Integer, Integer> newLoader = newLoader(newAdapter, newSource, cache);
+        newLoader.start();
+        assertEquals(0, newSource.mLoadCount);
+        assertEquals(adapter.snapshotItems(), newAdapter.snapshotItems());
+
+        // 从缓存的翻页位置继续加载
+        newLoader.onLoadMore();
+        assertEquals(Arrays.asList(2), newSource.mAfterKeys);
+        assertEquals(30, newAdapter.getItemCount());
+    }
+
+    private static MemoryPageCache newCache(int maxBytes) {
+        return new MemoryPageCache(maxBytes, new MemoryPageCache.SizeEstimator() {
+            @Override
+            public int estimateSize(Object item) {
+                return ITEM_SIZE;
+            }
+        });
+    }
+
+    private static PagedSource.Page<Integer, Integer> page(int start, int count, Integer nextKey) {
+        List<Integer> items = new ArrayList<Integer>();
+        for (int i = 0; i < count; i++) {
+            items.add(start + i);
+        }
+        return new PagedSource.Page<Integer, Integer>(items, null, nextKey);
+    }
+
+    private static PagedLoader<Integer, Integer> newLoader(IntAdapter adapter, CountingSource source,
+                                                           MemoryPageCache cache) {
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        PagedLoader<Integer, Integer> loader = new PagedLoader<Integer, Integer>(recyclerView, adapter, source);
+        loader.setExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        loader.setMemoryCache(cache, "feed");
+        return loader;
+    }
+
+    /**
+     * 每页10条，页码作为key
+     */
+    private static class CountingSource implements PagedSource<Integer, Integer> {
+
+        private int mLoadCount;
+
+        private final List<Integer> mAfterKeys = new ArrayList<Integer>();
+
+        @Override
+        public Page<Integer, Integer> loadInitial() {
+            mLoadCount++;
+            return page(0, 10, 1);
+        }
+
+        @Override
+        public Page<Integer, Integer> loadAfter(Integer key) {
+            mLoadCount++;
+            mAfterKeys.add(key);
+            return page(key * 10, 10, key + 1);
+        }
+
+        @Override
+        public Page<Integer, Integer> loadBefore(Integer key) {
+            return null;
+        }
+    }
+
+    private static class IntAdapter extends PagedAdapter<Integer, RecyclerView.ViewHolder> {
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            return new RecyclerView.ViewHolder(new View(parent.getContext())) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        }
+    }
+}
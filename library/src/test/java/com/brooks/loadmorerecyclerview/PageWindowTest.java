@@ -0,0 +1,183 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.app.Activity;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 分页窗口模式下移除离屏幕较远的页，滑回去时重新加载
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23)
+public class PageWindowTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    private static final int ITEM_HEIGHT = 100;
+
+    private FrameLayout mContainer;
+
+    private LoadMoreRecyclerView mRecyclerView;
+
+    private FixedHeightAdapter mAdapter;
+
+    private final List<Integer> mEvictedFirst = new ArrayList<Integer>();
+
+    private final List<Integer> mEvictedLast = new ArrayList<Integer>();
+
+    private int mLoadPreviousCount;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        mContainer = new FrameLayout(activity);
+        activity.setContentView(mContainer);
+        mRecyclerView = new LoadMoreRecyclerView(activity);
+        mRecyclerView.setLayoutManager(new LinearLayoutManager(activity));
+        mContainer.addView(mRecyclerView);
+        mAdapter = new FixedHeightAdapter(PAGE_SIZE);
+        mRecyclerView.setLoadMoreEnable(true);
+        // 刚加载回来的页在屏幕外两个item以内时不移除
+        mRecyclerView.setPrefetchItemCount(2);
+        mRecyclerView.setLoadMoreListener(new LoadMoreRecyclerView.LoadMoreListener() {
+            @Override
+            public void onLoadMore() {
+            }
+        });
+        mRecyclerView.setLoadPreviousListener(new LoadMoreRecyclerView.LoadPreviousListener() {
+            @Override
+            public void onLoadPrevious() {
+                mLoadPreviousCount++;
+            }
+        });
+        mRecyclerView.setAdapter(mAdapter);
+        mRecyclerView.setMaxPages(2, new LoadMoreRecyclerView.PageEvictListener() {
+            @Override
+            public void onEvictFirstPage(int itemCount) {
+                mEvictedFirst.add(itemCount);
+                mAdapter.mItems.subList(0, itemCount).clear();
+            }
+
+            @Override
+            public void onEvictLastPage(int itemCount) {
+                mEvictedLast.add(itemCount);
+                int size = mAdapter.mItems.size();
+                mAdapter.mItems.subList(size - itemCount, size).clear();
+            }
+        });
+        settle();
+    }
+
+    @Test
+    public void evictsAndReloadsInBothDirections() {
+        appendPage(10);
+        scrollTo(15);
+        appendPage(20);
+        // 第一页已经完全离开屏幕，超过2页时被移除，打开加载上一页
+        assertEquals(1, mEvictedFirst.size());
+        assertEquals(10, (int) mAdapter.mItems.get(0));
+
+        // 滑回顶部，header出现时加载上一页，重新加载第一页后移除离屏幕最远的最后一页
+        scrollTo(0);
+        assertEquals(1, mLoadPreviousCount);
+        prependPage(0);
+        assertEquals(1, mEvictedLast.size());
+        assertEquals(20, mAdapter.mItems.size());
+        assertEquals(0, (int) mAdapter.mItems.get(0));
+    }
+
+    /**
+     * ViewPager切换等离开界面又回来之后，分页窗口仍然生效
+     */
+    @Test
+    public void windowSurvivesDetachAndAttach() {
+        appendPage(10);
+        mContainer.removeView(mRecyclerView);
+        mContainer.addView(mRecyclerView);
+        settle();
+
+        scrollTo(15);
+        appendPage(20);
+        assertEquals(1, mEvictedFirst.size());
+        assertEquals(20, mAdapter.mItems.size());
+    }
+
+    /**
+     * 只能向后加载的列表没有设置加载上一页的监听，前面的页移除后无法加载回来，不移除
+     */
+    @Test
+    public void topPagesAreKeptWithoutLoadPreviousListener() {
+        mRecyclerView.setLoadPreviousListener(null);
+        appendPage(10);
+        scrollTo(15);
+        appendPage(20);
+        scrollTo(25);
+        assertEquals(0, mEvictedFirst.size());
+        assertEquals(30, mAdapter.mItems.size());
+        assertEquals(0, (int) mAdapter.mItems.get(0));
+        // 没有打开header，只有数据和footer
+        assertEquals(31, mRecyclerView.getAdapter().getItemCount());
+    }
+
+    private void appendPage(int start) {
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            mAdapter.mItems.add(start + i);
+        }
+        mRecyclerView.notifyMoreFinish(true);
+        settle();
+    }
+
+    private void prependPage(int start) {
+        for (int i = PAGE_SIZE - 1; i >= 0; i--) {
+            mAdapter.mItems.add(0, start + i);
+        }
+        mRecyclerView.notifyPreviousFinish(PAGE_SIZE, false);
+        settle();
+    }
+
+    private void scrollTo(int position) {
+        ((LinearLayoutManager) mRecyclerView.getLayoutManager()).scrollToPositionWithOffset(position, 0);
+        settle();
+    }
+
+    private void settle() {
+        mRecyclerView.measure(View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(5 * ITEM_HEIGHT, View.MeasureSpec.EXACTLY));
+        mRecyclerView.layout(0, 0, 1000, 5 * ITEM_HEIGHT);
+        ShadowLooper.idleMainLooper();
+    }
+
+    /**
+     * 每个item固定高度
+     */
+    private static class FixedHeightAdapter extends TestAdapter {
+
+        FixedHeightAdapter(int itemCount) {
+            super(itemCount);
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            View view = new View(parent.getContext());
+            view.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ITEM_HEIGHT));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+    }
+}
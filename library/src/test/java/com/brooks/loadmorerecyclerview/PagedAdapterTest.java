@@ -0,0 +1,127 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 分页重叠数据的合并，数据用"key:内容"表示
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23)
+public class PagedAdapterTest {
+
+    @Test
+    public void overlappingItemsAreDropped() {
+        ItemAdapter adapter = new ItemAdapter();
+        adapter.appendItems(Arrays.asList("1:a", "2:a", "3:a", "4:a"));
+        RecordingObserver observer = new RecordingObserver();
+        adapter.registerAdapterDataObserver(observer);
+
+        // 服务端数据有插入，下一页开头重复了上一页末尾的两条
+        List<String> fresh = adapter.mergeOverlap(Arrays.asList("3:a", "4:a", "5:a", "6:a"));
+        assertEquals(Arrays.asList("5:a", "6:a"), fresh);
+        assertEquals(Arrays.<String>asList(), observer.mUpdates);
+        assertEquals(Arrays.asList("1:a", "2:a", "3:a", "4:a"), adapter.snapshotItems());
+    }
+
+    @Test
+    public void changedOverlappingItemsAreReplacedInPlace() {
+        ItemAdapter adapter = new ItemAdapter();
+        adapter.appendItems(Arrays.asList("1:a", "2:a", "3:a", "4:a"));
+        adapter.appendItems(Arrays.asList("5:a", "6:a"));
+        RecordingObserver observer = new RecordingObserver();
+        adapter.registerAdapterDataObserver(observer);
+
+        List<String> fresh = adapter.mergeOverlap(Arrays.asList("2:b", "4:a", "5:b", "7:a"));
+        assertEquals(Arrays.asList("7:a"), fresh);
+        // 只有内容变化的位置被通知，没有变化的4不会重新绑定
+        assertEquals(Arrays.asList("changed 1 1", "changed 4 1"), observer.mUpdates);
+        assertEquals(Arrays.asList("1:a", "2:b", "3:a", "4:a", "5:b", "6:a"), adapter.snapshotItems());
+    }
+
+    @Test
+    public void duplicatesWithinOnePageAreDropped() {
+        ItemAdapter adapter = new ItemAdapter();
+        adapter.appendItems(Arrays.asList("1:a", "2:a"));
+        RecordingObserver observer = new RecordingObserver();
+        adapter.registerAdapterDataObserver(observer);
+
+        List<String> fresh = adapter.mergeOverlap(Arrays.asList("3:a", "3:b", "2:b", "2:c", "4:a"));
+        // 同一页中只保留第一次出现的数据
+        assertEquals(Arrays.asList("3:a", "4:a"), fresh);
+        assertEquals(Arrays.asList("changed 1 1"), observer.mUpdates);
+        assertEquals(Arrays.asList("1:a", "2:b"), adapter.snapshotItems());
+    }
+
+    @Test
+    public void itemsWithoutKeyAreNotMerged() {
+        ItemAdapter adapter = new ItemAdapter();
+        adapter.appendItems(Arrays.asList("1:a", ":a"));
+        List<String> fresh = adapter.mergeOverlap(Arrays.asList("1:a", ":a", ":a", "2:a"));
+        assertEquals(Arrays.asList(":a", ":a", "2:a"), fresh);
+    }
+
+    private static class ItemAdapter extends PagedAdapter<String, RecyclerView.ViewHolder> {
+
+        @Override
+        protected Object getItemKey(String item) {
+            String key = item.substring(0, item.indexOf(':'));
+            return key.isEmpty() ? null : key;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            return new RecyclerView.ViewHolder(new View(parent.getContext())) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        }
+    }
+
+    /**
+     * 记录adapter发出的通知范围
+     */
+    private static class RecordingObserver extends RecyclerView.AdapterDataObserver {
+
+        final List<String> mUpdates = new ArrayList<String>();
+
+        @Override
+        public void onChanged() {
+            mUpdates.add("dataSetChanged");
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            mUpdates.add("changed " + positionStart + " " + itemCount);
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            onItemRangeChanged(positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mUpdates.add("inserted " + positionStart + " " + itemCount);
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            mUpdates.add("removed " + positionStart + " " + itemCount);
+        }
+    }
+}
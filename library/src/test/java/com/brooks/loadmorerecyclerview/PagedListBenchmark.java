@@ -0,0 +1,89 @@
+package com.brooks.loadmorerecyclerview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按页追加数据和按位置读取：ArrayList.addAll和PagedList.addPage对比
+ * <p>
+ * 每轮从空列表开始追加到指定数量，bytes/round是这一轮分配的内存，ArrayList扩容时复制的旧数组都计算在内
+ */
+public class PagedListBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final int[] SIZES = {10000, 100000, 1000000};
+
+    private static long sSink;
+
+    @Test
+    public void appendPages() {
+        Benchmarks.assumeEnabled();
+        final List<Integer> page = page();
+        for (final int size : SIZES) {
+            Benchmarks.measure("ArrayList.addAll " + size, size, new Runnable() {
+                @Override
+                public void run() {
+                    List<Integer> list = new ArrayList<Integer>();
+                    for (int i = 0; i < size; i += PAGE_SIZE) {
+                        list.addAll(page);
+                    }
+                }
+            });
+            Benchmarks.measure("PagedList.addPage " + size, size, new Runnable() {
+                @Override
+                public void run() {
+                    PagedList<Integer> list = new PagedList<Integer>();
+                    for (int i = 0; i < size; i += PAGE_SIZE) {
+                        list.addPage(page);
+                    }
+                }
+            });
+        }
+    }
+
+    @Test
+    public void getByPosition() {
+        Benchmarks.assumeEnabled();
+        List<Integer> page = page();
+        for (int size : SIZES) {
+            final List<Integer> arrayList = new ArrayList<Integer>();
+            final PagedList<Integer> pagedList = new PagedList<Integer>();
+            for (int i = 0; i < size; i += PAGE_SIZE) {
+                arrayList.addAll(page);
+                pagedList.addPage(page);
+            }
+            Benchmarks.measure("ArrayList.get " + size, size, new Runnable() {
+                @Override
+                public void run() {
+                    sum(arrayList);
+                }
+            });
+            Benchmarks.measure("PagedList.get " + size, size, new Runnable() {
+                @Override
+                public void run() {
+                    sum(pagedList);
+                }
+            });
+        }
+    }
+
+    private static void sum(List<Integer> list) {
+        long sum = 0;
+        for (int i = 0; i < list.size(); i++) {
+            sum += list.get(i);
+        }
+        // 避免循环被优化掉
+        sSink += sum;
+    }
+
+    private static List<Integer> page() {
+        List<Integer> page = new ArrayList<Integer>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(i);
+        }
+        return page;
+    }
+}
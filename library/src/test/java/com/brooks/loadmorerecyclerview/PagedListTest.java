@@ -0,0 +1,97 @@
+package com.brooks.loadmorerecyclerview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 分块列表的按页增删和key索引
+ */
+public class PagedListTest {
+
+    @Test
+    public void pagesSpanChunks() {
+        PagedList<Integer> list = new PagedList<Integer>(4, null);
+        List<Integer> expected = new ArrayList<Integer>();
+        for (int page = 0; page < 5; page++) {
+            List<Integer> items = range(page * 7, 7);
+            list.addPage(items);
+            expected.addAll(items);
+        }
+        assertEquals(expected, list);
+        assertEquals(expected, new ArrayList<Integer>(list));
+
+        // 在前面插入一页，再从两头移除
+        list.addPageFirst(range(-10, 10));
+        expected.addAll(0, range(-10, 10));
+        assertEquals(expected, list);
+        list.removeFirst(13);
+        expected.subList(0, 13).clear();
+        list.removeLast(9);
+        expected.subList(expected.size() - 9, expected.size()).clear();
+        assertEquals(expected, list);
+
+        list.clear();
+        assertEquals(0, list.size());
+        list.addPageFirst(range(0, 3));
+        assertEquals(range(0, 3), list);
+    }
+
+    @Test
+    public void keyIndexFollowsPositions() {
+        PagedList<Integer> list = new PagedList<Integer>(4, new PagedList.KeyProvider<Integer>() {
+            @Override
+            public Object getKey(Integer item) {
+                return item < 0 ? null : "key" + item;
+            }
+        });
+        list.addPage(range(0, 10));
+        assertEquals(7, list.indexOfKey("key7"));
+
+        // 前面插入或者移除数据后位置跟着变化，不需要重建索引
+        list.addPageFirst(range(100, 5));
+        assertEquals(12, list.indexOfKey("key7"));
+        assertEquals(0, list.indexOfKey("key100"));
+        list.removeFirst(8);
+        assertEquals(-1, list.indexOfKey("key100"));
+        assertEquals(4, list.indexOfKey("key7"));
+
+        list.set(4, 70);
+        assertEquals(-1, list.indexOfKey("key7"));
+        assertEquals(4, list.indexOfKey("key70"));
+        list.set(4, -1);
+        assertEquals(-1, list.indexOfKey("key70"));
+
+        list.removeLast(2);
+        assertEquals(-1, list.indexOfKey("key9"));
+        assertEquals(Arrays.asList(3, 4, 5, 6, -1), list);
+    }
+
+    /**
+     * 分页窗口模式下一边追加一边移除前面的页，数据一直正确
+     */
+    @Test
+    public void slidingWindowReusesChunks() {
+        PagedList<Integer> list = new PagedList<Integer>(8, null);
+        for (int page = 0; page < 1000; page++) {
+            list.addPage(range(page * 20, 20));
+            if (list.size() > 100) {
+                list.removeFirst(20);
+            }
+        }
+        assertEquals(100, list.size());
+        assertEquals(range(19900, 100), list);
+    }
+
+    private static List<Integer> range(int start, int count) {
+        List<Integer> items = new ArrayList<Integer>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(start + i);
+        }
+        return items;
+    }
+}
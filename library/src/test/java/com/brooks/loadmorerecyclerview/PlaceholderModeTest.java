@@ -0,0 +1,138 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.app.Activity;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 占位模式下只加载可见范围附近的页
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23)
+public class PlaceholderModeTest {
+
+    private static final int TOTAL_COUNT = 10000;
+
+    private static final int PAGE_SIZE = 20;
+
+    @Test
+    public void onlyPagesAroundLandingPointAreLoaded() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(activity);
+        recyclerView.setLayoutManager(new LinearLayoutManager(activity));
+        activity.setContentView(recyclerView);
+
+        RecordingSource source = new RecordingSource();
+        StringAdapter adapter = new StringAdapter();
+        PositionalLoader<String> loader = new PositionalLoader<String>(recyclerView, adapter, source, PAGE_SIZE);
+        loader.setExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        loader.start(TOTAL_COUNT);
+        // 一开始就是全部数量，没有footer
+        assertEquals(TOTAL_COUNT, recyclerView.getAdapter().getItemCount());
+        assertFalse(adapter.isLoaded(0));
+
+        layoutAndWait(recyclerView);
+        // 第一页和预加载的第二页
+        assertEquals(Arrays.asList(0, 20), source.mStartPositions);
+        assertEquals("item 0", adapter.getItem(0));
+
+        source.mStartPositions.clear();
+        recyclerView.scrollToPosition(5000);
+        layoutAndWait(recyclerView);
+        // 先加载落点所在的页，再加载前后各一页，中间经过的页都不加载
+        assertEquals(Arrays.asList(5000, 4980, 5020), source.mStartPositions);
+        assertTrue(adapter.isLoaded(5000));
+        assertFalse(adapter.isLoaded(2500));
+    }
+
+    @Test
+    public void farPagesAreTrimmed() {
+        StringAdapter adapter = new StringAdapter();
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(Robolectric.setupActivity(Activity.class));
+        PositionalLoader<String> loader = new PositionalLoader<String>(recyclerView, adapter, new RecordingSource(),
+                PAGE_SIZE);
+        loader.setExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        loader.setMaxPages(3);
+        loader.start(TOTAL_COUNT);
+        loader.onVisibleRangeChanged(0, 10);
+        assertTrue(adapter.isLoaded(20));
+        loader.onVisibleRangeChanged(5000, 5010);
+        // 离可见范围最远的页被移除，重新显示占位
+        assertFalse(adapter.isLoaded(0));
+        assertFalse(adapter.isLoaded(20));
+        assertTrue(adapter.isLoaded(4980));
+        assertTrue(adapter.isLoaded(5000));
+        assertTrue(adapter.isLoaded(5020));
+    }
+
+    private static void layoutAndWait(RecyclerView recyclerView) {
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(480, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(800, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, 480, 800);
+        // 停止绑定之后才回调可见范围
+        ShadowLooper.idleMainLooper(200, TimeUnit.MILLISECONDS);
+        ShadowLooper.idleMainLooper(200, TimeUnit.MILLISECONDS);
+    }
+
+    private static class RecordingSource implements PositionalSource<String> {
+
+        private final List<Integer> mStartPositions = new ArrayList<Integer>();
+
+        @Override
+        public List<String> loadRange(int startPosition, int count) {
+            mStartPositions.add(startPosition);
+            List<String> items = new ArrayList<String>(count);
+            for (int i = 0; i < count; i++) {
+                items.add("item " + (startPosition + i));
+            }
+            return items;
+        }
+    }
+
+    /**
+     * 每个item固定高度100px
+     */
+    private static class StringAdapter extends PlaceholderAdapter<String, RecyclerView.ViewHolder> {
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            View view = new View(parent.getContext());
+            view.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 100));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 保存和恢复加载状态、翻页位置和滚动位置
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23)
+public class SavedStateTest {
+
+    private static final int ITEM_HEIGHT = 100;
+
+    @Test
+    public void restoresLoadStateAndCursor() {
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        recyclerView.setLoadType(LoadMoreRecyclerView.LOAD_TYPE_MANUAL);
+        recyclerView.setLoadMoreEnable(true);
+        recyclerView.setPagingStateListener(new PageListener(3));
+        recyclerView.setAdapter(new TestAdapter(10));
+        Parcelable state = parcel(recyclerView.onSaveInstanceState());
+
+        LoadMoreRecyclerView restored = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        PageListener listener = new PageListener(0);
+        restored.setPagingStateListener(listener);
+        TestAdapter adapter = new TestAdapter(10);
+        restored.setAdapter(adapter);
+        restored.onRestoreInstanceState(state);
+        assertEquals(3, listener.mPage);
+        // 手动加载并且还有更多，footer恢复显示
+        assertEquals(adapter.getItemCount() + 1, restored.getAdapter().getItemCount());
+    }
+
+    @Test
+    public void scrollAnchorFollowsItemId() {
+        LoadMoreRecyclerView recyclerView = newRecyclerView();
+        FixedHeightAdapter adapter = new FixedHeightAdapter(30);
+        recyclerView.setAdapter(adapter);
+        layout(recyclerView);
+        ((LinearLayoutManager) recyclerView.getLayoutManager()).scrollToPositionWithOffset(10, -30);
+        layout(recyclerView);
+        Parcelable state = parcel(recyclerView.onSaveInstanceState());
+
+        // 进程被杀后重新创建，数据加载回来之前恢复状态
+        LoadMoreRecyclerView restored = newRecyclerView();
+        FixedHeightAdapter newAdapter = new FixedHeightAdapter(0);
+        restored.setAdapter(newAdapter);
+        restored.onRestoreInstanceState(state);
+        layout(restored);
+
+        // 重新加载的数据前面多了3条新数据
+        newAdapter.mItems.add(100);
+        newAdapter.mItems.add(101);
+        newAdapter.mItems.add(102);
+        for (int i = 0; i < 30; i++) {
+            newAdapter.mItems.add(i);
+        }
+        newAdapter.notifyItemRangeInserted(0, newAdapter.mItems.size());
+        layout(restored);
+        LinearLayoutManager layoutManager = (LinearLayoutManager) restored.getLayoutManager();
+        int first = layoutManager.findFirstVisibleItemPosition();
+        assertEquals(13, first);
+        assertEquals(-30, layoutManager.findViewByPosition(first).getTop());
+    }
+
+    @Test
+    public void stateSurvivesParcel() {
+        LoadMoreSavedState state = new LoadMoreSavedState(null);
+        state.mHasMore = true;
+        state.mLoadType = LoadMoreRecyclerView.LOAD_TYPE_MANUAL;
+        state.mLastPosition = 42;
+        state.mAnchorPosition = 7;
+        state.mAnchorId = 1234567890123L;
+        state.mAnchorOffset = -12;
+        LoadMoreSavedState copy = (LoadMoreSavedState) parcel(state);
+        assertTrue(copy.mHasMore);
+        assertEquals(LoadMoreRecyclerView.LOAD_TYPE_MANUAL, copy.mLoadType);
+        assertEquals(42, copy.mLastPosition);
+        assertEquals(7, copy.mAnchorPosition);
+        assertEquals(1234567890123L, copy.mAnchorId);
+        assertEquals(-12, copy.mAnchorOffset);
+    }
+
+    private static Parcelable parcel(Parcelable state) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            state.writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            return LoadMoreSavedState.CREATOR.createFromParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static LoadMoreRecyclerView newRecyclerView() {
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        recyclerView.setLayoutManager(new LinearLayoutManager(RuntimeEnvironment.application));
+        return recyclerView;
+    }
+
+    private static void layout(RecyclerView recyclerView) {
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(500, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, 1000, 500);
+    }
+
+    private static class PageListener implements PagingStateListener {
+
+        private int mPage;
+
+        private PageListener(int page) {
+            mPage = page;
+        }
+
+        @Override
+        public void onSavePagingState(Bundle outState) {
+            outState.putInt("page", mPage);
+        }
+
+        @Override
+        public void onRestorePagingState(Bundle savedState) {
+            mPage = savedState.getInt("page");
+        }
+    }
+
+    /**
+     * 每个item固定高度，id就是数据本身
+     */
+    private static class FixedHeightAdapter extends TestAdapter {
+
+        FixedHeightAdapter(int itemCount) {
+            super(itemCount);
+            setHasStableIds(true);
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            View view = new View(parent.getContext());
+            view.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ITEM_HEIGHT));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+    }
+}
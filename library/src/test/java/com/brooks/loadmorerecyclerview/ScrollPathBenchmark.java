@@ -0,0 +1,113 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.app.Activity;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * 每帧onScrolled中加载更多检查的耗时：之前每次都查找最后一个可见item，现在只在item attach时检查
+ * <p>
+ * 两边都直接调用滑动监听，不包括RecyclerView自身滑动和布局的开销，也就是每帧额外增加的那部分
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23)
+public class ScrollPathBenchmark {
+
+    private static final int FRAMES = 10000;
+
+    @Test
+    public void scrollCallbackCostPerFrame() throws Exception {
+        Benchmarks.assumeEnabled();
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        final LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(activity);
+        recyclerView.setLayoutManager(new LinearLayoutManager(activity));
+        recyclerView.setLoadMoreEnable(true);
+        recyclerView.setLoadMoreListener(new LoadMoreRecyclerView.LoadMoreListener() {
+            @Override
+            public void onLoadMore() {
+            }
+        });
+        recyclerView.setAdapter(new SmallItemAdapter(1000));
+        activity.setContentView(recyclerView);
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(2000, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, 1000, 2000);
+
+        final RecyclerView.OnScrollListener current = findLibraryScrollListener(recyclerView);
+        final RecyclerView.OnScrollListener legacy = new LegacyScrollCheck();
+        Benchmarks.measure("onScrolled before (find last visible)", FRAMES, new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < FRAMES; i++) {
+                    legacy.onScrolled(recyclerView, 0, 10);
+                }
+            }
+        });
+        Benchmarks.measure("onScrolled after (attach trigger)", FRAMES, new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < FRAMES; i++) {
+                    current.onScrolled(recyclerView, 0, 10);
+                }
+            }
+        });
+    }
+
+    /**
+     * 列表在init中添加的第一个滑动监听
+     */
+    @SuppressWarnings("unchecked")
+    private static RecyclerView.OnScrollListener findLibraryScrollListener(RecyclerView recyclerView)
+            throws Exception {
+        Field field = RecyclerView.class.getDeclaredField("mScrollListeners");
+        field.setAccessible(true);
+        return ((List<RecyclerView.OnScrollListener>) field.get(recyclerView)).get(0);
+    }
+
+    /**
+     * 改动之前onScrolled中的检查：每帧查找最后一个可见item并和footer位置比较
+     */
+    private static class LegacyScrollCheck extends RecyclerView.OnScrollListener {
+
+        private int mTriggerCount;
+
+        @Override
+        public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+            if (dy >= 0) {
+                int lastVisPos = LayoutManagerHelper.findLastVisibleItemPosition(recyclerView.getLayoutManager());
+                if (lastVisPos >= recyclerView.getAdapter().getItemCount() - 1) {
+                    mTriggerCount++;
+                }
+            }
+        }
+    }
+
+    /**
+     * 每个item高度20px，一屏100个
+     */
+    private static class SmallItemAdapter extends TestAdapter {
+
+        SmallItemAdapter(int itemCount) {
+            super(itemCount);
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            View view = new View(parent.getContext());
+            view.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 20));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.app.Activity;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 多个列表共用RecycledViewPool时的复用和缓存数量
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23)
+public class SharedRecycledViewPoolTest {
+
+    private static final int VIEW_TYPE = 0;
+
+    private static final int ITEM_HEIGHT = 100;
+
+    @Test
+    public void maxSizeGrowsToPeakInUse() {
+        SharedRecycledViewPool pool = new SharedRecycledViewPool();
+        TestAdapter adapter = new TestAdapter(0);
+        List<RecyclerView.ViewHolder> holders = new ArrayList<RecyclerView.ViewHolder>();
+        // 第一个列表同时显示了8个item，超过默认的5个
+        for (int i = 0; i < 8; i++) {
+            assertNull(pool.getRecycledView(VIEW_TYPE));
+            RecyclerView.ViewHolder holder = createHolder(adapter);
+            pool.onViewAttached(holder);
+            holders.add(holder);
+        }
+        assertEquals(8, pool.getCreateCount());
+        assertEquals(8, pool.getMaxRecycledViews(VIEW_TYPE));
+
+        // 切换tab，第一个列表回收所有holder，第二个列表全部复用，不再新建
+        for (RecyclerView.ViewHolder holder : holders) {
+            pool.onViewDetached(holder);
+            pool.putRecycledView(holder);
+        }
+        for (int i = 0; i < 8; i++) {
+            RecyclerView.ViewHolder holder = pool.getRecycledView(VIEW_TYPE);
+            assertNotNull(holder);
+            pool.onViewAttached(holder);
+        }
+        assertEquals(8, pool.getCreateCount(VIEW_TYPE));
+        assertEquals(8, pool.getReuseCount());
+    }
+
+    @Test
+    public void maxSizeIsLimited() {
+        SharedRecycledViewPool pool = new SharedRecycledViewPool();
+        pool.setMaxPoolSizeLimit(10);
+        TestAdapter adapter = new TestAdapter(0);
+        for (int i = 0; i < 20; i++) {
+            pool.onViewAttached(createHolder(adapter));
+        }
+        assertEquals(10, pool.getMaxRecycledViews(VIEW_TYPE));
+
+        pool.setMaxRecycledViews(VIEW_TYPE, 15);
+        assertEquals(15, pool.getMaxRecycledViews(VIEW_TYPE));
+    }
+
+    @Test
+    public void holdersNotReturnedToPoolDoNotRaisePeak() {
+        SharedRecycledViewPool pool = new SharedRecycledViewPool();
+        pool.setMaxRecycledViews(VIEW_TYPE, 1);
+        TestAdapter adapter = new TestAdapter(0);
+        // 反复显示4个item，每次取出的holder都没有放回pool，例如留在view cache中或者被丢弃
+        for (int round = 0; round < 10; round++) {
+            List<RecyclerView.ViewHolder> holders = new ArrayList<RecyclerView.ViewHolder>();
+            for (int i = 0; i < 4; i++) {
+                pool.getRecycledView(VIEW_TYPE);
+                RecyclerView.ViewHolder holder = createHolder(adapter);
+                pool.onViewAttached(holder);
+                holders.add(holder);
+            }
+            for (RecyclerView.ViewHolder holder : holders) {
+                pool.onViewDetached(holder);
+            }
+        }
+        assertEquals(4, pool.getMaxRecycledViews(VIEW_TYPE));
+    }
+
+    @Test
+    public void detachedListDoesNotCountAsInUse() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        SharedRecycledViewPool pool = new SharedRecycledViewPool();
+        pool.setMaxRecycledViews(VIEW_TYPE, 1);
+        LoadMoreRecyclerView first = createAttachableList(activity, pool);
+        LoadMoreRecyclerView second = createAttachableList(activity, pool);
+
+        // 像ViewPager切换tab一样轮流显示两个列表，离开界面的列表不回收屏幕上的holder
+        for (int round = 0; round < 3; round++) {
+            activity.setContentView(first);
+            layout(first);
+            assertEquals(5, first.getChildCount());
+            activity.setContentView(second);
+            layout(second);
+            assertEquals(5, second.getChildCount());
+        }
+        assertEquals(5, pool.getMaxRecycledViews(VIEW_TYPE));
+    }
+
+    @Test
+    public void footerIsReusedAcrossLists() {
+        SharedRecycledViewPool pool = new SharedRecycledViewPool();
+        LoadMoreRecyclerView first = createList(pool);
+        LoadMoreRecyclerView second = createList(pool);
+        LoadMoreRecyclerView picture = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        picture.setRecycledViewPool(pool);
+        picture.setUsePictureAnim(true);
+        picture.setLoadMoreEnable(true);
+        picture.setAdapter(new TestAdapter(10));
+
+        int footerType = getFooterViewType(first);
+        assertEquals(footerType, getFooterViewType(second));
+        // 不同样式的footer不能互相复用
+        assertNotEquals(footerType, getFooterViewType(picture));
+
+        RecyclerView.Adapter wrapper = first.getAdapter();
+        RecyclerView.ViewHolder footer = wrapper.createViewHolder(new FrameLayout(RuntimeEnvironment.application),
+                footerType);
+        pool.putRecycledView(footer);
+        assertSame(footer, pool.getRecycledView(getFooterViewType(second)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void footerViewTypesAreReserved() {
+        SharedRecycledViewPool pool = new SharedRecycledViewPool();
+        final int footerType = getFooterViewType(createList(pool));
+        LoadMoreRecyclerView list = createList(pool);
+        list.setAdapter(new TestAdapter(10) {
+            @Override
+            public int getItemViewType(int position) {
+                return footerType;
+            }
+        });
+        list.getAdapter().getItemViewType(0);
+    }
+
+    private static LoadMoreRecyclerView createList(SharedRecycledViewPool pool) {
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(RuntimeEnvironment.application);
+        recyclerView.setRecycledViewPool(pool);
+        recyclerView.setLoadMoreEnable(true);
+        recyclerView.setAdapter(new TestAdapter(10));
+        return recyclerView;
+    }
+
+    private static LoadMoreRecyclerView createAttachableList(Activity activity, SharedRecycledViewPool pool) {
+        LoadMoreRecyclerView recyclerView = new LoadMoreRecyclerView(activity);
+        recyclerView.setLayoutManager(new LinearLayoutManager(activity));
+        recyclerView.setRecycledViewPool(pool);
+        recyclerView.setAdapter(new TestAdapter(20) {
+            @Override
+            public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+                View view = new View(parent.getContext());
+                view.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ITEM_HEIGHT));
+                return new RecyclerView.ViewHolder(view) {
+                };
+            }
+        });
+        return recyclerView;
+    }
+
+    /**
+     * 一屏显示5个item
+     */
+    private static void layout(RecyclerView recyclerView) {
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(5 * ITEM_HEIGHT, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, 1000, 5 * ITEM_HEIGHT);
+    }
+
+    private static int getFooterViewType(LoadMoreRecyclerView recyclerView) {
+        RecyclerView.Adapter wrapper = recyclerView.getAdapter();
+        return wrapper.getItemViewType(wrapper.getItemCount() - 1);
+    }
+
+    private static RecyclerView.ViewHolder createHolder(TestAdapter adapter) {
+        return adapter.createViewHolder(new FrameLayout(RuntimeEnvironment.application), VIEW_TYPE);
+    }
+}
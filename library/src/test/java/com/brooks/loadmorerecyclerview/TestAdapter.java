@@ -0,0 +1,118 @@
+package com.brooks.loadmorerecyclerview;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 测试用的业务adapter，修改数据的同时发出对应的通知
+ */
+class TestAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+    final List<Integer> mItems = new ArrayList<Integer>();
+
+    private int mNextId;
+
+    /**
+     * 当前注册在这个adapter上的监听数量
+     */
+    int mObserverCount;
+
+    /**
+     * 完整绑定的次数
+     */
+    int mFullBindCount;
+
+    /**
+     * 最后一次带payload绑定的位置和payload
+     */
+    int mLastPayloadPosition = -1;
+
+    List<Object> mLastPayloads;
+
+    int mRecycledCount;
+
+    TestAdapter(int itemCount) {
+        for (int i = 0; i < itemCount; i++) {
+            mItems.add(mNextId++);
+        }
+    }
+
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        return new RecyclerView.ViewHolder(new View(parent.getContext())) {
+        };
+    }
+
+    @Override
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        mFullBindCount++;
+    }
+
+    @Override
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position, List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+        } else {
+            mLastPayloadPosition = position;
+            mLastPayloads = payloads;
+        }
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return mItems.get(position);
+    }
+
+    @Override
+    public void onViewRecycled(RecyclerView.ViewHolder holder) {
+        mRecycledCount++;
+    }
+
+    @Override
+    public int getItemCount() {
+        return mItems.size();
+    }
+
+    @Override
+    public void registerAdapterDataObserver(RecyclerView.AdapterDataObserver observer) {
+        super.registerAdapterDataObserver(observer);
+        mObserverCount++;
+    }
+
+    @Override
+    public void unregisterAdapterDataObserver(RecyclerView.AdapterDataObserver observer) {
+        super.unregisterAdapterDataObserver(observer);
+        mObserverCount--;
+    }
+
+    void insert(int positionStart, int itemCount) {
+        for (int i = 0; i < itemCount; i++) {
+            mItems.add(positionStart + i, mNextId++);
+        }
+        notifyItemRangeInserted(positionStart, itemCount);
+    }
+
+    void remove(int positionStart, int itemCount) {
+        mItems.subList(positionStart, positionStart + itemCount).clear();
+        notifyItemRangeRemoved(positionStart, itemCount);
+    }
+
+    void move(int fromPosition, int toPosition) {
+        mItems.add(toPosition, mItems.remove(fromPosition));
+        notifyItemMoved(fromPosition, toPosition);
+    }
+
+    void change(int positionStart, int itemCount, Object payload) {
+        notifyItemRangeChanged(positionStart, itemCount, payload);
+    }
+
+    void shuffle() {
+        Collections.reverse(mItems);
+        notifyDataSetChanged();
+    }
+}